@@ -34,6 +34,8 @@ android {
 
     testOptions {
         animationsDisabled = true
+        // Local tests touch classes with android.* statics (LruCache, Handler)
+        unitTests.isReturnDefaultValues = true
     }
 }
 
@@ -57,6 +59,7 @@ dependencies {
     implementation("androidx.recyclerview:recyclerview:1.3.2")
     implementation("androidx.viewpager2:viewpager2:1.0.0")
     implementation("androidx.activity:activity:1.9.3")
+    implementation("androidx.work:work-runtime:2.9.1")
     implementation(libs.play.services.location)
 
     // ===== CameraX =====
@@ -76,7 +79,9 @@ dependencies {
     // ===== Images =====
     implementation("com.github.bumptech.glide:glide:4.16.0")
     annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
-    implementation("com.squareup.picasso:picasso:2.71828")
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.16.0") {
+        isTransitive = false
+    }
     implementation("com.firebaseui:firebase-ui-storage:9.0.0")
 
 
@@ -14,13 +14,16 @@
  * Key Behaviors:
  * - Start/stop a realtime Firestore listener for recent created events.
  * - Maintain an in-memory cache of all events received.
- * - Apply text query and status filters and post the filtered list as LiveData.
+ * - Apply text query and status filters and post the filtered list as LiveData;
+ *   the text query is answered by a {@link SearchIndex} kept in sync with
+ *   each snapshot.
  * - Support temporary local removal of an event for UI purposes only.
+ * - Publish the admin image list: event posters merged with the standalone
+ *   uploads the Admin Images screen feeds in (setUploadedImages).
  *
  * Outstanding Issues / Notes:
  * - Cache is in-memory; no persistence across process death.
- * - Filtering is done on the full list in-process; consider server-side
- *   queries or background threading for very large datasets.
+ * - Status filtering is still a pass over the keyword matches in-process.
  * - No debounce/throttle on search updates.
  * - Caller must pair start/stop with lifecycle to avoid leaks.
  */
@@ -34,7 +37,9 @@ import androidx.lifecycle.MutableLiveData;
 import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class AdminRepository {
 
@@ -54,6 +59,10 @@ public class AdminRepository {
     // Raw Firestore event list
     private List<Event> allEvents = new ArrayList<>();
 
+    // Title index over allEvents
+    private final SearchIndex<Event> eventIndex =
+            new SearchIndex<>(Event::getId, Event::getTitle);
+
     // Filtered list exposed to UI
     private final MutableLiveData<List<Event>> eventsLive =
             new MutableLiveData<>(new ArrayList<>());
@@ -90,6 +99,7 @@ public class AdminRepository {
     // Receive new Firestore data
     public void setEventsFromFirestore(List<Event> items) {
         allEvents = new ArrayList<>(items);
+        eventIndex.update(allEvents);
         applyFilters();            // refresh events LiveData
         rebuildImagesFromEvents(); // keep images LiveData in sync
     }
@@ -110,17 +120,13 @@ public class AdminRepository {
     private void applyFilters() {
         List<Event> result = new ArrayList<>();
 
-        for (Event e : allEvents) {
-
-            boolean matchesSearch =
-                    searchQuery.isEmpty() ||
-                            e.getTitle().toLowerCase().contains(searchQuery.toLowerCase());
+        for (Event e : eventIndex.search(searchQuery)) {
 
             boolean matchesStatus =
                     filterStatus.equals("ALL") ||
                             e.getStatus().equalsIgnoreCase(filterStatus);
 
-            if (matchesSearch && matchesStatus) {
+            if (matchesStatus) {
                 result.add(e);
             }
         }
@@ -132,6 +138,7 @@ public class AdminRepository {
     public void removeEvent(Event event) {
         if (event == null) return;
         allEvents.remove(event);
+        eventIndex.remove(event.getId());
         applyFilters();
         // Also remove the corresponding image from the images list
         removeImageForEvent(event);
@@ -141,9 +148,15 @@ public class AdminRepository {
     // Images section: derived from events.imageUrl, used by Admin Images screen
     // ---------------------------------------------------------------------
 
-    // All images (unfiltered)
+    // All images (unfiltered): event posters plus standalone uploads
     private List<Image> allImages = new ArrayList<>();
 
+    // Posters of the current events
+    private List<Image> eventImages = new ArrayList<>();
+
+    // Standalone uploads ("images" collection or its Storage fallback), see setUploadedImages
+    private List<Image> uploadedImages = new ArrayList<>();
+
     // Filtered image list exposed to UI
     private final MutableLiveData<List<Image>> imagesLive =
             new MutableLiveData<>(new ArrayList<>());
@@ -155,6 +168,10 @@ public class AdminRepository {
     // Search query for the images screen
     private String imageSearchQuery = "";
 
+    // Title index over allImages
+    private final SearchIndex<Image> imageIndex =
+            new SearchIndex<>(Image::getId, Image::safeTitle);
+
     /**
      * Rebuild the image list from the current allEvents:
      * - For each Event that has an imageUrl, create an Image object.
@@ -174,13 +191,37 @@ public class AdminRepository {
             img.setId(e.getId());
             img.setUrl(url);
             img.setTitle(e.getTitle());
+            img.setRenditions(e.getPosterRenditions());
+            img.setPreview(e.getPosterPreview());
             // If you later add createdAt on Event, you can also set it here:
             // img.setCreatedAt(e.getCreatedAt());
 
             rebuilt.add(img);
         }
 
-        allImages = rebuilt;
+        eventImages = rebuilt;
+        mergeImages();
+    }
+
+    /**
+     * Standalone uploads from FirestoreImageRepository#listenLatest; shown next to
+     * the event posters, minus any whose URL an event already uses.
+     */
+    @MainThread
+    public void setUploadedImages(@Nullable List<Image> images) {
+        uploadedImages = images == null ? new ArrayList<>() : new ArrayList<>(images);
+        mergeImages();
+    }
+
+    private void mergeImages() {
+        List<Image> merged = new ArrayList<>(eventImages);
+        Set<String> urls = new HashSet<>();
+        for (Image img : eventImages) urls.add(img.getUrl());
+        for (Image img : uploadedImages) {
+            if (img.getUrl() != null && urls.add(img.getUrl())) merged.add(img);
+        }
+        allImages = merged;
+        imageIndex.update(allImages);
         applyImageFilters();
     }
 
@@ -198,22 +239,7 @@ public class AdminRepository {
      * and update the images LiveData.
      */
     private void applyImageFilters() {
-        List<Image> result = new ArrayList<>();
-
-        String q = imageSearchQuery.toLowerCase();
-
-        for (Image img : allImages) {
-            String title = img.getTitle();
-            boolean matchesSearch =
-                    q.isEmpty() ||
-                            (title != null && title.toLowerCase().contains(q));
-
-            if (matchesSearch) {
-                result.add(img);
-            }
-        }
-
-        imagesLive.postValue(result);
+        imagesLive.postValue(imageIndex.search(imageSearchQuery));
     }
 
     /**
@@ -226,12 +252,12 @@ public class AdminRepository {
         if (eventId == null) return;
 
         List<Image> remaining = new ArrayList<>();
-        for (Image img : allImages) {
+        for (Image img : eventImages) {
             if (!eventId.equals(img.getId())) {
                 remaining.add(img);
             }
         }
-        allImages = remaining;
-        applyImageFilters();
+        eventImages = remaining;
+        mergeImages();
     }
 }
@@ -0,0 +1,30 @@
+package com.example.lottary.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared executors for work that must stay off the main thread
+ * (snapshot parsing, spatial aggregation, image encoding) and for
+ * posting results back to it.
+ */
+public final class AppExecutors {
+
+    private static final ExecutorService BACKGROUND = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static final Executor MAIN = MAIN_HANDLER::post;
+
+    private AppExecutors() {}
+
+    /** Small shared pool for CPU-bound background work. */
+    public static Executor background() { return BACKGROUND; }
+
+    /** Runs tasks on the main thread. */
+    public static Executor main() { return MAIN; }
+}
@@ -19,6 +19,10 @@
  */
 package com.example.lottary.data;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 public class Event {
 
     private final String id;
@@ -36,6 +40,10 @@ public class Event {
 
     private final String status;
     private final String imageUrl;
+    /** Poster rendition key ("thumb" / "medium" / "full") -> download URL; may be empty. */
+    private final Map<String, String> posterRenditions;
+    /** Base64 WebP of a ~16px poster preview, shown while the poster loads; may be empty. */
+    private final String posterPreview;
 
     public Event(
             String id, String title, String city, String venue,
@@ -92,6 +100,33 @@ public class Event {
             long startTimeMs, long registerStartMs, long registerEndMs,
             boolean geolocationEnabled, String type,
             String status, String imageUrl
+    ) {
+        this(id, title, city, venue, prettyStartTime, full,
+                startTimeMs, registerStartMs, registerEndMs,
+                geolocationEnabled, type,
+                status, imageUrl, null);
+    }
+
+    public Event(
+            String id, String title, String city, String venue,
+            String prettyStartTime, boolean full,
+            long startTimeMs, long registerStartMs, long registerEndMs,
+            boolean geolocationEnabled, String type,
+            String status, String imageUrl, Map<String, String> posterRenditions
+    ) {
+        this(id, title, city, venue, prettyStartTime, full,
+                startTimeMs, registerStartMs, registerEndMs,
+                geolocationEnabled, type,
+                status, imageUrl, posterRenditions, "");
+    }
+
+    public Event(
+            String id, String title, String city, String venue,
+            String prettyStartTime, boolean full,
+            long startTimeMs, long registerStartMs, long registerEndMs,
+            boolean geolocationEnabled, String type,
+            String status, String imageUrl, Map<String, String> posterRenditions,
+            String posterPreview
     ) {
         this.id = id;
         this.title = title == null ? "" : title;
@@ -108,6 +143,10 @@ public class Event {
 
         this.status = status == null ? "" : status;
         this.imageUrl = imageUrl == null ? "" : imageUrl;
+        this.posterRenditions = posterRenditions == null
+                ? Collections.<String, String>emptyMap()
+                : Collections.unmodifiableMap(new HashMap<>(posterRenditions));
+        this.posterPreview = posterPreview == null ? "" : posterPreview;
     }
 
     public String getId() { return id; }
@@ -125,6 +164,8 @@ public class Event {
 
     public String getStatus() { return status; }
     public String getImageUrl() { return imageUrl; }
+    public Map<String, String> getPosterRenditions() { return posterRenditions; }
+    public String getPosterPreview() { return posterPreview; }
 
     public String getPrettyTime() { return prettyStartTime; }
 }
@@ -8,25 +8,30 @@ import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SetOptions;
-import com.google.firebase.firestore.WriteBatch;
 
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * FirestoreEventRepository
  *
  * Central repository for all Firestore event operations.
+ * Events with latitude/longitude also store a "geohash" (see {@link GeoHash})
+ * so {@link #queryNearby} can answer radius searches with a few range queries.
  */
 public class FirestoreEventRepository {
 
@@ -40,6 +45,15 @@ public class FirestoreEventRepository {
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
     private final CollectionReference events = db.collection("events");
 
+    /** Status of a draw record while its winners are still being notified. */
+    private static final String DRAW_NOTIFYING = "notifying";
+    private static final String DRAW_DONE = "done";
+    /**
+     * How long a device owns a draw's fan-out; every committed chunk extends it. A lease
+     * left by a device that died can be taken over once it runs out.
+     */
+    private static final long DRAW_LEASE_MS = TimeUnit.MINUTES.toMillis(5);
+
     // ---------- listeners ----------
     public interface EventsListener { void onChanged(@NonNull List<Event> items); }
     public interface DocListener    { void onChanged(DocumentSnapshot doc); }
@@ -120,6 +134,10 @@ public class FirestoreEventRepository {
                 });
     }
 
+    public Task<DocumentSnapshot> getEvent(@NonNull String eventId) {
+        return events.document(eventId).get();
+    }
+
     // ---------- create / update / delete ----------
 
     public Task<DocumentReference> createEvent(Map<String, Object> fields) {
@@ -127,10 +145,12 @@ public class FirestoreEventRepository {
         if (!fields.containsKey("createdAt")) {
             fields.put("createdAt", Timestamp.now());
         }
+        GeoHash.putGeohash(fields);
         return events.add(fields);
     }
 
     public Task<Void> updateEvent(@NonNull String eventId, Map<String, Object> fields) {
+        GeoHash.putGeohash(fields);
         return events.document(eventId).set(fields, SetOptions.merge());
     }
 
@@ -139,6 +159,51 @@ public class FirestoreEventRepository {
     }
 
 
+    // ---------- proximity search ----------
+
+    /** Nearby events sorted by distance, plus each event's distance in meters. */
+    public interface NearbyListener {
+        void onLoaded(@NonNull List<Event> items, @NonNull Map<String, Double> distanceMeters);
+    }
+
+    /**
+     * Events within {@code radiusM} of the given point. Runs one "geohash"
+     * range query per covering cell, merges the results, drops the ones
+     * outside the circle and sorts the rest by distance. Failed ranges are
+     * skipped.
+     */
+    public void queryNearby(double lat, double lng, double radiusM, @NonNull NearbyListener l) {
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (String[] b : GeoHash.queryBounds(lat, lng, radiusM)) {
+            reads.add(events.orderBy("geohash").startAt(b[0]).endAt(b[1]).get());
+        }
+
+        Tasks.whenAllComplete(reads).addOnCompleteListener(done -> {
+            Map<String, DocumentSnapshot> byId = new HashMap<>();
+            Map<String, Double> distances = new HashMap<>();
+            for (Task<QuerySnapshot> t : reads) {
+                if (!t.isSuccessful() || t.getResult() == null) continue;
+                for (DocumentSnapshot d : t.getResult().getDocuments()) {
+                    Object la = d.get("latitude");
+                    Object lo = d.get("longitude");
+                    if (!(la instanceof Number) || !(lo instanceof Number)) continue;
+                    double dist = GeoHash.distanceMeters(lat, lng,
+                            ((Number) la).doubleValue(), ((Number) lo).doubleValue());
+                    if (dist > radiusM) continue;
+                    byId.put(d.getId(), d);
+                    distances.put(d.getId(), dist);
+                }
+            }
+
+            List<DocumentSnapshot> docs = new ArrayList<>(byId.values());
+            Collections.sort(docs, (a, b) ->
+                    Double.compare(distances.get(a.getId()), distances.get(b.getId())));
+            List<Event> out = new ArrayList<>(docs.size());
+            for (DocumentSnapshot d : docs) out.add(map(d));
+            l.onLoaded(out, distances);
+        });
+    }
+
     // ---------- draw winners ----------
 
     public Task<Void> drawWinners(@NonNull String eventId, int maxToDraw) {
@@ -175,8 +240,25 @@ public class FirestoreEventRepository {
         });
     }
 
+    /**
+     * Draws winners and notifies them.
+     * <p>
+     * The transaction that extends "chosen" also writes a draw record to
+     * events/{id}/draws/{drawId} holding the winners and message, with status "notifying".
+     * Notifications are then fanned out in chunks ({@link NotificationFanOut}) with ids keyed by
+     * the draw id. Committed chunks are checkpointed on the draw record, which is marked "done" at
+     * the end. If the app dies part-way, {@link #resumePendingDraws} finishes the job without
+     * duplicating anything. While a device is fanning out it holds the draw's owner/leaseUntil
+     * lease, so a resume on another screen or device leaves the draw alone.
+     */
     public Task<Void> drawWinnersAndNotify(@NonNull String eventId, String message) {
         DocumentReference ref = events.document(eventId);
+        // Allocated outside the transaction so retries reuse the same id
+        DocumentReference drawRef = ref.collection("draws").document();
+        String finalMsg = (message == null || message.trim().isEmpty())
+                ? "Congratulations! You are selected. Please sign up to secure your spot."
+                : message.trim();
+        String owner = UUID.randomUUID().toString();
 
         return db.runTransaction(tr -> {
             DocumentSnapshot d = tr.get(ref);
@@ -212,6 +294,23 @@ public class FirestoreEventRepository {
             res.organizerId = str(d.get("creatorDeviceId"));
             res.eventTitle  = str(d.get("title"));
             res.eventId     = eventId;
+            res.drawId      = drawRef.getId();
+            res.message     = finalMsg;
+            res.drawnAt     = Timestamp.now();
+
+            if (!winners.isEmpty()) {
+                Map<String, Object> draw = new HashMap<>();
+                draw.put("winners", winners);
+                draw.put("organizerId", res.organizerId);
+                draw.put("eventTitle", res.eventTitle);
+                draw.put("message", finalMsg);
+                draw.put("drawnAt", res.drawnAt);
+                draw.put("status", DRAW_NOTIFYING);
+                draw.put("doneChunks", new ArrayList<Long>());
+                draw.put("owner", owner);
+                draw.put("leaseUntil", leaseUntil());
+                tr.set(drawRef, draw);
+            }
             return res;
         }).continueWithTask(t -> {
             if (!t.isSuccessful()) {
@@ -226,26 +325,117 @@ public class FirestoreEventRepository {
                 return Tasks.forResult(null);
             }
 
-            String finalMsg = (message == null || message.trim().isEmpty())
-                    ? "Congratulations! You are selected. Please sign up to secure your spot."
-                    : message.trim();
-
-            WriteBatch batch = db.batch();
-            CollectionReference notifs = db.collection("notifications");
-
-            for (String rid : r.winners) {
-                Map<String, Object> doc = new HashMap<>();
-                doc.put("recipientId", rid);
-                doc.put("eventId", r.eventId);
-                doc.put("eventTitle", r.eventTitle);
-                doc.put("organizerId", r.organizerId);
-                doc.put("type", "selected");
-                doc.put("message", finalMsg);
-                doc.put("sentAt", Timestamp.now());
-                batch.set(notifs.document(), doc);
-            }
-            return batch.commit();
+            return notifyDraw(drawRef, r, Collections.emptyList(), owner);
+        });
+    }
+
+    /**
+     * Finishes the notification step of any draw of this event that did not complete,
+     * e.g. because the app was killed mid fan-out. Draws whose lease is held elsewhere
+     * (still being sent) are skipped. Resolves with the number of draws resumed.
+     */
+    public Task<Integer> resumePendingDraws(@NonNull String eventId) {
+        return events.document(eventId).collection("draws")
+                .whereEqualTo("status", DRAW_NOTIFYING)
+                .get()
+                .continueWithTask(t -> {
+                    if (!t.isSuccessful() || t.getResult() == null) {
+                        return Tasks.forResult(0);
+                    }
+                    List<Task<Boolean>> runs = new ArrayList<>();
+                    for (DocumentSnapshot d : t.getResult().getDocuments()) {
+                        runs.add(resumeDraw(eventId, d.getReference()));
+                    }
+                    return Tasks.whenAllSuccess(runs).continueWith(x -> {
+                        int resumed = 0;
+                        for (Object claimed : x.getResult()) if (Boolean.TRUE.equals(claimed)) resumed++;
+                        return resumed;
+                    });
+                });
+    }
+
+    /** Claims one unfinished draw and fans it out; resolves false if it was not claimed. */
+    private Task<Boolean> resumeDraw(@NonNull String eventId, @NonNull DocumentReference drawRef) {
+        String owner = UUID.randomUUID().toString();
+        return db.runTransaction(tr -> {
+            DocumentSnapshot d = tr.get(drawRef);
+            if (!DRAW_NOTIFYING.equals(d.getString("status"))) return null;
+            Timestamp until = d.getTimestamp("leaseUntil");
+            if (until != null && until.toDate().getTime() > System.currentTimeMillis()) return null;
+            Map<String, Object> lease = new HashMap<>();
+            lease.put("owner", owner);
+            lease.put("leaseUntil", leaseUntil());
+            tr.update(drawRef, lease);
+            return d;
+        }).continueWithTask(t -> {
+            DocumentSnapshot d = t.getResult();
+            if (d == null) return Tasks.forResult(false);
+            DrawResult r = new DrawResult();
+            r.winners     = strList(d.get("winners"));
+            r.organizerId = str(d.get("organizerId"));
+            r.eventTitle  = str(d.get("eventTitle"));
+            r.eventId     = eventId;
+            r.drawId      = d.getId();
+            r.message     = str(d.get("message"));
+            Timestamp at  = d.getTimestamp("drawnAt");
+            r.drawnAt     = at == null ? Timestamp.now() : at;
+            return notifyDraw(drawRef, r, longList(d.get("doneChunks")), owner)
+                    .continueWith(x -> {
+                        x.getResult();
+                        return true;
+                    });
+        });
+    }
+
+    private static Timestamp leaseUntil() {
+        return new Timestamp(new Date(System.currentTimeMillis() + DRAW_LEASE_MS));
+    }
+
+    /** Frees a draw's lease after a failed fan-out, unless another device took it over. */
+    private Task<Void> releaseDraw(@NonNull DocumentReference drawRef, @NonNull String owner) {
+        return db.runTransaction(tr -> {
+            DocumentSnapshot d = tr.get(drawRef);
+            if (!owner.equals(d.getString("owner"))) return null;
+            tr.update(drawRef, "owner", FieldValue.delete(), "leaseUntil", FieldValue.delete());
+            return null;
+        });
+    }
+
+    private Task<Void> notifyDraw(@NonNull DocumentReference drawRef, @NonNull DrawResult r,
+                                  @NonNull List<Long> doneChunks, @NonNull String owner) {
+        NotificationFanOut fanOut = new NotificationFanOut(r.drawId, r.winners, rid -> {
+            Map<String, Object> doc = new HashMap<>();
+            doc.put("recipientId", rid);
+            doc.put("eventId", r.eventId);
+            doc.put("eventTitle", r.eventTitle);
+            doc.put("organizerId", r.organizerId);
+            doc.put("type", "selected");
+            doc.put("message", r.message);
+            doc.put("sentAt", r.drawnAt);
+            doc.put("drawId", r.drawId);
+            return doc;
         });
+
+        // Checkpoints live on the draw record so any device can finish the draw
+        Set<Long> done = new HashSet<>(doneChunks);
+        NotificationFanOut.Checkpoint checkpoint = new NotificationFanOut.Checkpoint() {
+            @Override public boolean isDone(int chunk) { return done.contains((long) chunk); }
+            @Override public void markDone(int chunk) {
+                done.add((long) chunk);
+                drawRef.update("doneChunks", FieldValue.arrayUnion((long) chunk),
+                        "leaseUntil", leaseUntil());
+            }
+        };
+
+        return fanOut.start(checkpoint, null)
+                .continueWithTask(t -> {
+                    if (!t.isSuccessful()) {
+                        return releaseDraw(drawRef, owner)
+                                .continueWithTask(x -> Tasks.<Void>forException(t.getException()));
+                    }
+                    return drawRef.update("status", DRAW_DONE,
+                            "owner", FieldValue.delete(), "leaseUntil", FieldValue.delete());
+                });
     }
 
     // ---------- entrant actions ----------
@@ -422,7 +612,9 @@ public class FirestoreEventRepository {
                 geo,
                 type,
                 full ? "Full" : "Open",
-                posterUrl
+                posterUrl,
+                PosterImages.renditions(d.get(PosterUploader.FIELD_RENDITIONS)),
+                safe(d.getString(PosterUploader.FIELD_PREVIEW))
         );
     }
 
@@ -449,6 +641,16 @@ public class FirestoreEventRepository {
         return new ArrayList<>();
     }
 
+    private static List<Long> longList(Object o) {
+        List<Long> out = new ArrayList<>();
+        if (o instanceof List<?>) {
+            for (Object e : (List<?>) o) {
+                if (e instanceof Number) out.add(((Number) e).longValue());
+            }
+        }
+        return out;
+    }
+
     private static String str(Object o) {
         return o == null ? "" : o.toString();
     }
@@ -458,5 +660,8 @@ public class FirestoreEventRepository {
         String organizerId = "";
         String eventTitle  = "";
         String eventId     = "";
+        String drawId      = "";
+        String message     = "";
+        Timestamp drawnAt;
     }
 }
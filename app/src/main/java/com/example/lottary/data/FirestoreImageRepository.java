@@ -1,5 +1,6 @@
 package com.example.lottary.data;
 
+import android.content.Context;
 import android.net.Uri;
 
 import androidx.annotation.NonNull;
@@ -17,11 +18,19 @@ import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.ListResult;
+import com.google.firebase.storage.StorageMetadata;
 import com.google.firebase.storage.StorageReference;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FirestoreImageRepository {
 
@@ -38,7 +47,26 @@ public class FirestoreImageRepository {
 
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
 
+    /** Storage items requested per list page by the fallback. */
+    private static final int FALLBACK_PAGE_SIZE = 100;
+    /** Files resolved (download URL + metadata) at the same time by the fallback. */
+    private static final int FALLBACK_MAX_IN_FLIGHT = 6;
+    private static final String FALLBACK_FOLDER = "images";
+
     public ListenerHandle listenLatest(ImagesListener listener) {
+        return listenLatest(null, listener);
+    }
+
+    /**
+     * Latest images from Firestore; when the collection is empty, falls back to
+     * listing the Storage folder page by page (see {@link StorageFallback}).
+     * With a context, resolved Storage files are cached in {@link StorageFileCache}.
+     */
+    public ListenerHandle listenLatest(@Nullable Context context, ImagesListener listener) {
+        StorageFileCache cache = context == null ? null : StorageFileCache.get(context);
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicBoolean fallbackRunning = new AtomicBoolean();
+
         Query q = db.collection("images")
                 .orderBy("createdAt", Query.Direction.DESCENDING)
                 .limit(200);
@@ -63,55 +91,190 @@ public class FirestoreImageRepository {
                         }
                     }
                     listener.onChanged(out, null);
-                } else {
-                    fallbackStorage(listener);
+                } else if (fallbackRunning.compareAndSet(false, true)) {
+                    // One walk at a time; a repeated empty snapshot does not restart it
+                    new StorageFallback(cache, stopped, listener,
+                            () -> fallbackRunning.set(false)).start();
                 }
             }
         });
 
-        return new ListenerHandle(reg);
+        return new ListenerHandle(reg, stopped);
     }
 
-    private void fallbackStorage(ImagesListener listener) {
-        FirebaseStorage storage = FirebaseStorage.getInstance();
-        StorageReference dir = storage.getReference().child("images");
+    /**
+     * One paged walk of the Storage fallback folder.
+     *
+     * - list(maxResults, pageToken) instead of listAll(), so memory and the
+     *   first result do not depend on the folder size.
+     * - Per page, cached files come straight from {@link StorageFileCache};
+     *   the rest are resolved {@link #FALLBACK_MAX_IN_FLIGHT} at a time, each
+     *   with its real creation time from getMetadata().
+     * - The listener gets the growing list after every page, newest first,
+     *   so the UI fills in while later pages load.
+     * - After the last page, cache rows for files that are gone are pruned.
+     */
+    private static final class StorageFallback {
+        private final StorageReference dir =
+                FirebaseStorage.getInstance().getReference().child(FALLBACK_FOLDER);
+        @Nullable private final StorageFileCache cache;
+        private final AtomicBoolean stopped;
+        private final ImagesListener listener;
+        private final Runnable onFinished;
 
-        dir.listAll()
-                .addOnSuccessListener((ListResult list) -> {
-                    List<StorageReference> items = list.getItems();
-                    if (items.isEmpty()) {
-                        listener.onChanged(new ArrayList<>(), null);
-                        return;
-                    }
+        private final List<Image> shown = new ArrayList<>();
+        private final Set<String> listed = new HashSet<>();
 
-                    List<Image> result = new ArrayList<>();
-                    List<Task<Uri>> tasks = new ArrayList<>();
-
-                    for (StorageReference item : items) {
-                        Task<Uri> t = item.getDownloadUrl()
-                                .addOnSuccessListener(uri -> {
-                                    Image img = new Image();
-                                    img.setId(item.getName());
-                                    img.setUrl(uri.toString());
-                                    img.setTitle(item.getName());
-                                    img.setCreatedAt(Timestamp.now());
-                                    synchronized (result) { result.add(img); }
-                                });
-
-                        tasks.add(t);
-                    }
+        StorageFallback(@Nullable StorageFileCache cache, AtomicBoolean stopped,
+                        ImagesListener listener, Runnable onFinished) {
+            this.cache = cache;
+            this.stopped = stopped;
+            this.listener = listener;
+            this.onFinished = onFinished;
+        }
 
-                    Tasks.whenAllComplete(tasks)
-                            .addOnCompleteListener(done -> listener.onChanged(result, null))
-                            .addOnFailureListener(e -> listener.onChanged(null, e));
-                })
-                .addOnFailureListener(e -> listener.onChanged(null, e));
+        void start() {
+            nextPage(null);
+        }
+
+        private void nextPage(@Nullable String pageToken) {
+            Task<ListResult> page = pageToken == null
+                    ? dir.list(FALLBACK_PAGE_SIZE)
+                    : dir.list(FALLBACK_PAGE_SIZE, pageToken);
+            page.addOnSuccessListener(this::onPage)
+                    .addOnFailureListener(e -> {
+                        if (!stopped.get()) listener.onChanged(null, e);
+                        onFinished.run();
+                    });
+        }
+
+        private void onPage(ListResult list) {
+            if (stopped.get()) {
+                onFinished.run();
+                return;
+            }
+            List<StorageReference> items = list.getItems();
+            List<String> paths = new ArrayList<>();
+            for (StorageReference item : items) paths.add(item.getPath());
+            listed.addAll(paths);
+
+            Tasks.call(AppExecutors.background(), () -> cache == null
+                            ? Collections.<String, StorageFileCache.Entry>emptyMap()
+                            : cache.lookup(paths))
+                    .continueWithTask(cached -> {
+                        Map<String, StorageFileCache.Entry> hits = cached.isSuccessful()
+                                ? cached.getResult()
+                                : Collections.<String, StorageFileCache.Entry>emptyMap();
+                        List<StorageFileCache.Entry> entries = new ArrayList<>();
+                        List<StorageReference> misses = new ArrayList<>();
+                        for (StorageReference item : items) {
+                            StorageFileCache.Entry hit = hits.get(item.getPath());
+                            if (hit != null) entries.add(hit);
+                            else misses.add(item);
+                        }
+                        return resolveAll(misses).continueWith(resolved -> {
+                            List<StorageFileCache.Entry> fresh = resolved.getResult();
+                            store(fresh);
+                            entries.addAll(fresh);
+                            return entries;
+                        });
+                    })
+                    .addOnCompleteListener(t -> {
+                        if (stopped.get()) {
+                            onFinished.run();
+                            return;
+                        }
+                        if (t.isSuccessful()) {
+                            for (StorageFileCache.Entry e : t.getResult()) shown.add(toImage(e));
+                            Collections.sort(shown, Image.BY_CREATED_DESC);
+                        }
+                        listener.onChanged(new ArrayList<>(shown), null);
+
+                        String next = list.getPageToken();
+                        if (next != null) {
+                            nextPage(next);
+                        } else {
+                            prune();
+                            onFinished.run();
+                        }
+                    });
+        }
+
+        /** Resolves {@code refs} with at most {@link #FALLBACK_MAX_IN_FLIGHT} in flight; failures are skipped. */
+        private Task<List<StorageFileCache.Entry>> resolveAll(List<StorageReference> refs) {
+            List<StorageFileCache.Entry> out = Collections.synchronizedList(new ArrayList<>());
+            if (refs.isEmpty()) return Tasks.forResult(out);
+            AtomicInteger next = new AtomicInteger();
+            List<Task<Void>> lanes = new ArrayList<>();
+            for (int i = 0; i < Math.min(FALLBACK_MAX_IN_FLIGHT, refs.size()); i++) {
+                lanes.add(lane(refs, next, out));
+            }
+            return Tasks.whenAllComplete(lanes).continueWith(done -> new ArrayList<>(out));
+        }
+
+        /** Resolves one file, then the next unclaimed one, until none are left. */
+        private Task<Void> lane(List<StorageReference> refs, AtomicInteger next,
+                                List<StorageFileCache.Entry> out) {
+            int i = next.getAndIncrement();
+            if (i >= refs.size() || stopped.get()) return Tasks.forResult(null);
+            StorageReference ref = refs.get(i);
+            Task<Uri> url = ref.getDownloadUrl();
+            Task<StorageMetadata> meta = ref.getMetadata();
+            return Tasks.whenAllComplete(url, meta).continueWithTask(done -> {
+                if (url.isSuccessful()) {
+                    StorageMetadata m = meta.isSuccessful() ? meta.getResult() : null;
+                    out.add(new StorageFileCache.Entry(ref.getPath(), FALLBACK_FOLDER, ref.getName(),
+                            url.getResult().toString(),
+                            m == null ? 0L : m.getCreationTimeMillis(),
+                            m == null ? 0L : m.getUpdatedTimeMillis(),
+                            m == null ? 0L : m.getSizeBytes()));
+                }
+                return lane(refs, next, out);
+            });
+        }
+
+        private void store(List<StorageFileCache.Entry> fresh) {
+            if (cache == null || fresh.isEmpty()) return;
+            List<StorageFileCache.Entry> complete = new ArrayList<>();
+            // Without metadata the row would pin a missing time; resolve it again next time
+            for (StorageFileCache.Entry e : fresh) if (e.createdMs > 0) complete.add(e);
+            Tasks.call(AppExecutors.background(), () -> {
+                cache.put(complete);
+                return null;
+            });
+        }
+
+        private void prune() {
+            if (cache == null) return;
+            Set<String> present = new HashSet<>(listed);
+            Tasks.call(AppExecutors.background(), () -> {
+                cache.retainOnly(FALLBACK_FOLDER, present);
+                return null;
+            });
+        }
+
+        private static Image toImage(StorageFileCache.Entry e) {
+            Image img = new Image();
+            img.setId(e.name);
+            img.setUrl(e.url);
+            img.setTitle(e.name);
+            img.setCreatedAt(e.createdMs > 0 ? new Timestamp(new Date(e.createdMs)) : null);
+            return img;
+        }
     }
 
     public static class ListenerHandle {
         private final ListenerRegistration reg;
-        public ListenerHandle(@NonNull ListenerRegistration r) { this.reg = r; }
-        public void remove() { if (reg != null) reg.remove(); }
+        @Nullable private final AtomicBoolean stopped;
+        public ListenerHandle(@NonNull ListenerRegistration r) { this(r, null); }
+        ListenerHandle(@NonNull ListenerRegistration r, @Nullable AtomicBoolean stopped) {
+            this.reg = r;
+            this.stopped = stopped;
+        }
+        public void remove() {
+            if (stopped != null) stopped.set(true);
+            if (reg != null) reg.remove();
+        }
     }
 
     public interface DeleteCallback { void onComplete(@Nullable Exception error); }
@@ -133,6 +296,34 @@ public class FirestoreImageRepository {
                 .addOnFailureListener(cb::onComplete);
     }
 
+    /**
+     * Deletes a standalone upload's file from the Storage fallback folder and its
+     * {@link StorageFileCache} row, so the fallback listing does not bring it back.
+     * URLs outside that folder are left alone (posters are collected by PosterGc).
+     */
+    public void deleteUploadedFile(@NonNull Context context, @NonNull String downloadUrl,
+                                   @NonNull DeleteCallback cb) {
+        StorageReference ref;
+        try {
+            ref = FirebaseStorage.getInstance().getReferenceFromUrl(downloadUrl);
+        } catch (Exception e) {
+            cb.onComplete(null); // not a Storage URL, nothing to delete
+            return;
+        }
+        String path = ref.getPath();
+        if (!path.startsWith("/" + FALLBACK_FOLDER + "/")) {
+            cb.onComplete(null);
+            return;
+        }
+        StorageFileCache cache = StorageFileCache.get(context);
+        ref.delete()
+                .addOnSuccessListener(unused -> {
+                    AppExecutors.background().execute(() -> cache.remove(path));
+                    cb.onComplete(null);
+                })
+                .addOnFailureListener(cb::onComplete);
+    }
+
     public void deleteByStorageUrl(@NonNull String downloadUrl, @NonNull DeleteCallback cb) {
         try {
             StorageReference ref =
@@ -146,26 +337,15 @@ public class FirestoreImageRepository {
             cb.onComplete(e);
         }
     }
-    public Task<String> uploadPoster(@NonNull Uri imageUri, String eventId) {
-        String fileName = eventId + "_" + System.currentTimeMillis() + ".jpg";
 
-        StorageReference ref = FirebaseStorage.getInstance()
-                .getReference()
-                .child("event_posters")
-                .child(fileName);
-
-        return ref.putFile(imageUri)
-                .continueWithTask(task -> {
-                    if (!task.isSuccessful()) {
-                        throw task.getException();
-                    }
-                    return ref.getDownloadUrl();
-                })
-                .continueWith(task -> {
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        return task.getResult().toString();
-                    }
-                    throw task.getException();
-                });
+    /**
+     * Uploads a picked poster as WebP renditions (see {@link PosterUploader})
+     * and resolves with the fields to merge into the event document.
+     */
+    public Task<Map<String, Object>> uploadPoster(@NonNull Context context,
+                                                  @NonNull Uri imageUri,
+                                                  @NonNull String eventId) {
+        return PosterUploader.upload(context, imageUri, eventId)
+                .continueWith(task -> task.getResult().toEventUpdate());
     }
-}
\ No newline at end of file
+}
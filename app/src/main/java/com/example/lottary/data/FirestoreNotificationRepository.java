@@ -1,14 +1,30 @@
 package com.example.lottary.data;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * FirestoreNotificationRepository
@@ -21,12 +37,41 @@ import java.util.List;
  *  - eventId     : related event id
  *  - eventTitle  : event title to display
  *  - organizerId : who sent it
- *  - type        : "selected" / "not_selected" / ...
+ *  - type        : "selected" (draw invitations) / "info" (organizer messages)
  *  - message     : body text
  *  - sentAt      : Timestamp
  *
  * Legacy compatibility:
  *  - title/timestamp fields are still read as fallback for older docs.
+ *
+ * Archive:
+ *  - Old notifications are moved by NotificationArchiver into
+ *    users/{uid}/notificationArchive/{yyyy-MM} ("items" array);
+ *    getArchivedLogsForUser reads them back on demand.
+ *
+ * Paging:
+ *  - Inbox and log reads use recipientId + sentAt desc (composite index
+ *    required) with startAfter cursors, PAGE_SIZE documents at a time.
+ *    Legacy docs that only carry "timestamp" are not returned by these
+ *    queries until backfillOnce (run by the first admin device) has copied
+ *    timestamp into sentAt; the same pass stamps the updatedAt field that
+ *    NotificationSync keys on.
+ *  - The admin explorer (queryLogs) pages over the whole collection with
+ *    optional eventId / organizerId / type equality filters and a sentAt
+ *    range. Each combination of equality filters in use needs its own
+ *    composite index ending in sentAt desc.
+ *
+ * Broadcasts (fan-out on read):
+ *  - A message to a whole event group can instead be stored once in
+ *    "broadcasts" (eventId, eventTitle, organizerId, targetGroup, type,
+ *    message, sentAt). Nothing is written per recipient at send time.
+ *  - Readers find broadcasts for the events they belong to and keep only
+ *    those whose targetGroup they are currently in. Only the newest
+ *    PAGE_SIZE are read (eventId in + sentAt desc, composite index required).
+ *  - Per-user state lives in tiny receipts at broadcasts/{id}/receipts/{uid}
+ *    (read, actedAt), written only when the user acts (see ReceiptWriter).
+ *    loadBroadcastsFor reads the receipts of the loaded page back with
+ *    collection-group queries on their paths, 30 at a time.
  */
 public class FirestoreNotificationRepository {
 
@@ -37,27 +82,339 @@ public class FirestoreNotificationRepository {
         return INSTANCE;
     }
 
+    /** Event groups a broadcast can target; mirrors the arrays on the event document. */
+    public static final String[] BROADCAST_GROUPS = {"waitingList", "chosen", "signedUp", "cancelled"};
+
+    /** Firestore caps whereIn at 30 values. */
+    private static final int IN_QUERY_LIMIT = 30;
+
+    /** Documents per inbox / log page. */
+    public static final int PAGE_SIZE = 50;
+
+    /** Maintenance job filling sentAt / updatedAt on legacy docs; see {@link #backfillOnce()}. */
+    static final String BACKFILL_JOB = "notificationFields";
+    private static final long BACKFILL_LEASE_MS = TimeUnit.MINUTES.toMillis(15);
+    /** Documents read per backfill page; each page is at most one write batch. */
+    private static final int BACKFILL_PAGE = 400;
+
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
 
     public interface LogsListener {
         void onChanged(List<NotificationLog> list);
     }
 
+    public interface LogsPageListener {
+        void onPage(@NonNull List<NotificationLog> list, @Nullable DocumentSnapshot last, boolean hasMore);
+    }
+
+    public interface PageListener {
+        void onPage(@NonNull List<DocumentSnapshot> docs, @Nullable DocumentSnapshot last, boolean hasMore);
+    }
+
+
+    public interface BroadcastsListener {
+        /** {@code readIds} holds the ids of those broadcasts the user has a read receipt for. */
+        void onLoaded(@NonNull List<DocumentSnapshot> broadcasts, @NonNull Set<String> readIds);
+    }
+
+    /** First page of the user's log, newest first. */
     public void getLogsForUser(String uid, @NonNull LogsListener callback) {
-        db.collection("notifications")
-                .whereEqualTo("recipientId", uid)
-                .limit(200)
+        getLogsForUser(uid, null, PAGE_SIZE, (list, last, hasMore) -> callback.onChanged(list));
+    }
+
+    /** One page of the user's log, newest first, starting after {@code after}. */
+    public void getLogsForUser(String uid, @Nullable DocumentSnapshot after, int pageSize,
+                               @NonNull LogsPageListener callback) {
+        loadInboxPage(uid, after, pageSize, (docs, last, hasMore) -> {
+            List<NotificationLog> list = new ArrayList<>(docs.size());
+            for (DocumentSnapshot d : docs) list.add(map(d));
+            callback.onPage(list, last, hasMore);
+        });
+    }
+
+    /**
+     * Archived notifications of {@code uid}, newest first. Reads the monthly
+     * archive buckets written by {@link NotificationArchiver}; empty on failure.
+     */
+    public void getArchivedLogsForUser(@NonNull String uid, @NonNull LogsListener callback) {
+        db.collection("users").document(uid).collection("notificationArchive")
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
                 .get()
-                .addOnSuccessListener(snap -> callback.onChanged(mapList(snap)));
+                .addOnCompleteListener(t -> {
+                    List<NotificationLog> out = new ArrayList<>();
+                    if (t.isSuccessful() && t.getResult() != null) {
+                        for (DocumentSnapshot bucket : t.getResult().getDocuments()) {
+                            List<NotificationLog> month = new ArrayList<>();
+                            Object items = bucket.get("items");
+                            if (items instanceof List<?>) {
+                                for (Object o : (List<?>) items) {
+                                    if (o instanceof Map<?, ?>) month.add(mapArchived((Map<?, ?>) o));
+                                }
+                            }
+                            Collections.sort(month, (a, b) -> Long.compare(millis(b), millis(a)));
+                            out.addAll(month);
+                        }
+                    }
+                    callback.onChanged(out);
+                });
+    }
+
+    private static NotificationLog mapArchived(Map<?, ?> m) {
+        Object ts = m.get("sentAt");
+        return new NotificationLog(
+                str(m.get("id")),
+                str(m.get("eventTitle")),
+                null,
+                str(m.get("message")),
+                ts instanceof Timestamp ? (Timestamp) ts : null);
+    }
+
+    private static long millis(NotificationLog log) {
+        return log.getTimestamp() == null ? 0L : log.getTimestamp().toDate().getTime();
+    }
+
+    private static String str(Object o) {
+        return o == null ? "" : o.toString();
+    }
+
+    // ---------- inbox paging ----------
+
+    private Query inbox(@NonNull String uid) {
+        return db.collection("notifications")
+                .whereEqualTo("recipientId", uid)
+                .orderBy("sentAt", Query.Direction.DESCENDING);
+    }
+
+    /**
+     * One page of notifications for {@code uid}, newest first. {@code last} is the
+     * cursor for the next page. On failure the page is empty and hasMore is false.
+     */
+    public void loadInboxPage(@NonNull String uid, @Nullable DocumentSnapshot after, int pageSize,
+                              @NonNull PageListener callback) {
+        Query q = inbox(uid).limit(pageSize);
+        if (after != null) q = q.startAfter(after);
+        q.get().addOnCompleteListener(t -> {
+            QuerySnapshot snap = t.isSuccessful() ? t.getResult() : null;
+            List<DocumentSnapshot> docs = snap == null
+                    ? new ArrayList<>() : snap.getDocuments();
+            DocumentSnapshot last = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+            callback.onPage(docs, last, docs.size() == pageSize);
+        });
+    }
+
+    // ---------- legacy field backfill ----------
+
+    /**
+     * Runs {@link #backfill()} once for the whole project: the first
+     * admin device to take the shared maintenance lease does it, later calls
+     * are a single document read.
+     */
+    public Task<Void> backfillOnce() {
+        return MaintenanceLock.acquire(BACKFILL_JOB, BACKFILL_LEASE_MS, 0L)
+                .continueWithTask(t -> {
+                    String token = t.getResult();
+                    if (token == null) return Tasks.forResult(null);
+                    return backfill().continueWithTask(run -> run.isSuccessful()
+                            ? MaintenanceLock.finish(BACKFILL_JOB, token, true, null)
+                            : MaintenanceLock.release(BACKFILL_JOB, token)
+                                    .continueWithTask(x -> run));
+                });
+    }
+
+    /**
+     * Walks the notifications in id order. Copies the legacy "timestamp" into
+     * "sentAt" where that is missing, so the sentAt-ordered inbox and log
+     * queries see the document, and stamps the server-set updatedAt where
+     * that is missing, so NotificationSync's delta query sees it.
+     */
+    public Task<Void> backfill() {
+        return backfillPage(null);
     }
 
-    private List<NotificationLog> mapList(QuerySnapshot snap) {
-        List<NotificationLog> list = new ArrayList<>();
-        if (snap == null) return list;
-        for (DocumentSnapshot d : snap.getDocuments()) {
-            list.add(map(d));
+    private Task<Void> backfillPage(@Nullable DocumentSnapshot after) {
+        Query q = db.collection("notifications")
+                .orderBy(FieldPath.documentId())
+                .limit(BACKFILL_PAGE);
+        if (after != null) q = q.startAfter(after);
+
+        return q.get().continueWithTask(t -> {
+            if (!t.isSuccessful()) throw t.getException();
+            List<DocumentSnapshot> docs = t.getResult().getDocuments();
+            if (docs.isEmpty()) return Tasks.forResult(null);
+
+            WriteBatch batch = db.batch();
+            int pending = 0;
+            for (DocumentSnapshot d : docs) {
+                Map<String, Object> up = new HashMap<>();
+                Timestamp legacy = d.getTimestamp("timestamp");
+                if (legacy != null && d.get("sentAt") == null) up.put("sentAt", legacy);
+                if (d.get(NotificationSync.FIELD_UPDATED_AT) == null) NotificationSync.stamp(up);
+                if (up.isEmpty()) continue;
+                batch.update(d.getReference(), up);
+                pending++;
+            }
+
+            DocumentSnapshot last = docs.get(docs.size() - 1);
+            Task<Void> written = pending == 0 ? Tasks.forResult(null) : batch.commit();
+            if (docs.size() < BACKFILL_PAGE) return written;
+            return written.continueWithTask(w -> {
+                if (!w.isSuccessful()) throw w.getException();
+                return backfillPage(last);
+            });
+        });
+    }
+
+    // ---------- admin log explorer ----------
+
+    /** Filters for {@link #queryLogs}; empty strings and 0 bounds mean "any". */
+    public static class LogFilter {
+        public String eventId = "";
+        public String organizerId = "";
+        public String type = "";
+        /** Inclusive lower sentAt bound in ms; 0 = none. */
+        public long fromMs;
+        /** Exclusive upper sentAt bound in ms; 0 = none. */
+        public long toMs;
+    }
+
+    /**
+     * One page of all notifications matching {@code filter}, newest first,
+     * starting after {@code after}. Never scans more than {@code pageSize}
+     * documents, so it stays cheap however large the collection grows.
+     * Failures go to {@code onError} instead of looking like an empty last
+     * page; the usual one is a filter combination whose composite index has
+     * not been created yet (the message carries the link to create it).
+     */
+    public void queryLogs(@NonNull LogFilter filter, @Nullable DocumentSnapshot after, int pageSize,
+                          @NonNull LogsPageListener callback, @NonNull OnFailureListener onError) {
+        Query q = db.collection("notifications");
+        if (!filter.eventId.isEmpty()) q = q.whereEqualTo("eventId", filter.eventId);
+        if (!filter.organizerId.isEmpty()) q = q.whereEqualTo("organizerId", filter.organizerId);
+        if (!filter.type.isEmpty()) q = q.whereEqualTo("type", filter.type);
+        if (filter.fromMs > 0) {
+            q = q.whereGreaterThanOrEqualTo("sentAt", new Timestamp(new Date(filter.fromMs)));
+        }
+        if (filter.toMs > 0) {
+            q = q.whereLessThan("sentAt", new Timestamp(new Date(filter.toMs)));
+        }
+        q = q.orderBy("sentAt", Query.Direction.DESCENDING).limit(pageSize);
+        if (after != null) q = q.startAfter(after);
+
+        q.get().addOnSuccessListener(snap -> {
+            List<DocumentSnapshot> docs = snap.getDocuments();
+            List<NotificationLog> list = new ArrayList<>(docs.size());
+            for (DocumentSnapshot d : docs) list.add(map(d));
+            DocumentSnapshot last = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+            callback.onPage(list, last, docs.size() == pageSize);
+        }).addOnFailureListener(onError);
+    }
+
+    // ---------- broadcasts ----------
+
+    /** Stores one broadcast for every member of {@code targetGroup} of the event. */
+    public Task<DocumentReference> sendBroadcast(@NonNull String eventId,
+                                                 String eventTitle,
+                                                 String organizerId,
+                                                 @NonNull String targetGroup,
+                                                 @NonNull String type,
+                                                 @NonNull String message) {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("eventId", eventId);
+        doc.put("eventTitle", eventTitle == null ? "" : eventTitle);
+        doc.put("organizerId", organizerId == null ? "" : organizerId);
+        doc.put("targetGroup", targetGroup);
+        doc.put("type", type);
+        doc.put("message", message);
+        doc.put("sentAt", Timestamp.now());
+        return db.collection("broadcasts").add(doc);
+    }
+
+    /**
+     * Loads the newest broadcasts addressed to {@code uid}: one query per group to find
+     * the user's events, then whereIn queries (30 ids at a time) over "broadcasts", each
+     * limited to the newest {@link #PAGE_SIZE}. The merged result is cut to PAGE_SIZE and
+     * only broadcasts whose targetGroup the user is currently in are returned, together
+     * with the ids the user's receipts mark as read.
+     * Empty on failure; a receipt that cannot be read counts as unread.
+     */
+    public void loadBroadcastsFor(@NonNull String uid, @NonNull BroadcastsListener callback) {
+        List<Task<QuerySnapshot>> memberships = new ArrayList<>();
+        for (String group : BROADCAST_GROUPS) {
+            memberships.add(db.collection("events").whereArrayContains(group, uid).get());
         }
-        return list;
+
+        Tasks.whenAllComplete(memberships).continueWithTask(t -> {
+            // eventId -> groups the user belongs to
+            Map<String, Set<String>> groupsByEvent = new LinkedHashMap<>();
+            for (int i = 0; i < memberships.size(); i++) {
+                Task<QuerySnapshot> q = memberships.get(i);
+                if (!q.isSuccessful() || q.getResult() == null) continue;
+                for (DocumentSnapshot e : q.getResult().getDocuments()) {
+                    Set<String> groups = groupsByEvent.get(e.getId());
+                    if (groups == null) {
+                        groups = new HashSet<>();
+                        groupsByEvent.put(e.getId(), groups);
+                    }
+                    groups.add(BROADCAST_GROUPS[i]);
+                }
+            }
+
+            List<String> ids = new ArrayList<>(groupsByEvent.keySet());
+            List<Task<QuerySnapshot>> reads = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i += IN_QUERY_LIMIT) {
+                reads.add(db.collection("broadcasts")
+                        .whereIn("eventId", ids.subList(i, Math.min(ids.size(), i + IN_QUERY_LIMIT)))
+                        .orderBy("sentAt", Query.Direction.DESCENDING)
+                        .limit(PAGE_SIZE)
+                        .get());
+            }
+            return Tasks.whenAllComplete(reads).continueWith(x -> {
+                List<DocumentSnapshot> out = new ArrayList<>();
+                for (Task<QuerySnapshot> r : reads) {
+                    if (!r.isSuccessful() || r.getResult() == null) continue;
+                    for (DocumentSnapshot b : r.getResult().getDocuments()) {
+                        Set<String> groups = groupsByEvent.get(b.getString("eventId"));
+                        if (groups != null && groups.contains(b.getString("targetGroup"))) out.add(b);
+                    }
+                }
+                // Each chunk returned its newest page; keep the newest page overall
+                Collections.sort(out, (a, b) -> Long.compare(sentAtMs(b), sentAtMs(a)));
+                return out.size() > PAGE_SIZE ? new ArrayList<>(out.subList(0, PAGE_SIZE)) : out;
+            });
+        }).continueWithTask(t -> {
+            List<DocumentSnapshot> found = t.isSuccessful() && t.getResult() != null
+                    ? t.getResult() : new ArrayList<>();
+            List<String> paths = new ArrayList<>(found.size());
+            for (DocumentSnapshot b : found) {
+                paths.add(b.getReference().collection("receipts").document(uid).getPath());
+            }
+            List<Task<QuerySnapshot>> receipts = new ArrayList<>();
+            for (int i = 0; i < paths.size(); i += IN_QUERY_LIMIT) {
+                receipts.add(db.collectionGroup("receipts")
+                        .whereIn(FieldPath.documentId(),
+                                paths.subList(i, Math.min(paths.size(), i + IN_QUERY_LIMIT)))
+                        .get());
+            }
+            return Tasks.whenAllComplete(receipts).continueWith(x -> {
+                Set<String> readIds = new HashSet<>();
+                for (Task<QuerySnapshot> r : receipts) {
+                    if (!r.isSuccessful() || r.getResult() == null) continue;
+                    for (DocumentSnapshot receipt : r.getResult().getDocuments()) {
+                        DocumentReference broadcast = receipt.getReference().getParent().getParent();
+                        if (broadcast != null && Boolean.TRUE.equals(receipt.getBoolean("read"))) {
+                            readIds.add(broadcast.getId());
+                        }
+                    }
+                }
+                callback.onLoaded(found, readIds);
+                return null;
+            });
+        });
+    }
+
+    private static long sentAtMs(DocumentSnapshot d) {
+        Timestamp ts = d.getTimestamp("sentAt");
+        return ts == null ? 0L : ts.toDate().getTime();
     }
 
     private NotificationLog map(DocumentSnapshot d) {
@@ -68,6 +425,7 @@ public class FirestoreNotificationRepository {
             title = d.getString("title"); // fallback for older docs
         }
 
+        String recipientId = d.getString("recipientId");
         String recipientName = d.getString("recipientName");
         String message = d.getString("message");
 
@@ -79,6 +437,7 @@ public class FirestoreNotificationRepository {
         return new NotificationLog(
                 id,
                 title,
+                recipientId,
                 recipientName,
                 message,
                 ts
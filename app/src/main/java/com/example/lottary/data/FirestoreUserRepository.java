@@ -3,22 +3,32 @@ package com.example.lottary.data;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * FirestoreUserRepository
@@ -33,9 +43,15 @@ import java.util.Map;
  * for the “users” collection. Provides unified data access and mapping
  * between Firestore snapshots and User model objects.
  *
+ * Search:
+ * - createUser/updateUser keep lower-cased "nameLower" and "emailLower"
+ *   copies of the name/email fields; searchUsers runs an indexed, paged
+ *   prefix range query over one of them (email when the keyword has '@').
+ * - Documents written before the keys existed are fixed up once, by the
+ *   first admin device to get there ({@link #backfillSearchKeysOnce()},
+ *   guarded by the shared maintenance/{@value #BACKFILL_JOB} flag).
+ *
  * Outstanding Issues / Notes:
- * - User lookup and search rely on simple name field range queries;
- *   lacks indexing or case-insensitive handling.
  * - No error callback provided for failed Firestore operations.
  * - Uses client-side mapping; schema changes in Firestore may break parsing.
  * - Device ID is used as the document key — assumes one user per device.
@@ -52,16 +68,33 @@ public class FirestoreUserRepository {
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
     private final CollectionReference users = db.collection("users");
 
+    /** Default page size for {@link #searchUsers(String, DocumentSnapshot, int, UsersPageListener)}. */
+    public static final int SEARCH_PAGE_SIZE = 30;
+
+    // Firestore caps a WriteBatch at 500 operations.
+    private static final int BACKFILL_PAGE_SIZE = 400;
+    static final String BACKFILL_JOB = "userSearchKeys";
+    private static final long BACKFILL_LEASE_MS = TimeUnit.MINUTES.toMillis(15);
+
+    // Firestore caps "in" queries at 30 values.
+    private static final int IN_QUERY_LIMIT = 30;
+    /** "in" query chunks read at the same time by getUserLocations. */
+    private static final int LOCATION_CHUNKS_IN_FLIGHT = 4;
+
     // ---------- basic CRUD ----------
 
     public Task<Void> createUser(String deviceID, Map<String, Object> fields) {
         if (!fields.containsKey("createdAt")) {
             fields.put("createdAt", Timestamp.now());
         }
+        putSearchKeys(fields);
+        GeoHash.putGeohash(fields);
         return users.document(deviceID).set(fields);
     }
 
     public Task<Void> updateUser(@NonNull String deviceID, Map<String, Object> fields) {
+        putSearchKeys(fields);
+        GeoHash.putGeohash(fields);
         return users.document(deviceID).set(fields, SetOptions.merge());
     }
 
@@ -78,6 +111,11 @@ public class FirestoreUserRepository {
     public interface UsersListener { void onChanged(@NonNull List<User> items); }
     public interface DocListener    { void onChanged(DocumentSnapshot doc); }
 
+    /** One page of search results; {@code last} is the cursor for the next page, null when done. */
+    public interface UsersPageListener {
+        void onLoaded(@NonNull List<User> items, @Nullable DocumentSnapshot last);
+    }
+
     public ListenerRegistration listenRecentCreated(@NonNull UsersListener l) {
         return users.orderBy("createdAt").limit(50)
                 .addSnapshotListener((snap, err) -> {
@@ -126,6 +164,20 @@ public class FirestoreUserRepository {
         return s == null ? "" : s;
     }
 
+    /** Normalized form used for the stored search keys and for search keywords. */
+    @NonNull
+    public static String searchKey(@Nullable String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Mirrors name/email into their lower-cased search keys when present in the write. */
+    private static void putSearchKeys(Map<String, Object> fields) {
+        Object name = fields.get("name");
+        if (name instanceof String) fields.put("nameLower", searchKey((String) name));
+        Object email = fields.get("email");
+        if (email instanceof String) fields.put("emailLower", searchKey((String) email));
+    }
+
     // ---------- list & search APIs ----------
 
     public void getAllUsers(@NonNull UsersListener callback) {
@@ -139,22 +191,191 @@ public class FirestoreUserRepository {
     }
 
     public void searchUsers(@NonNull String keyword, @NonNull UsersListener callback) {
-        users.whereGreaterThanOrEqualTo("name", keyword)
-                .whereLessThanOrEqualTo("name", keyword + "\uf8ff")
-                .get()
+        searchUsers(keyword, null, SEARCH_PAGE_SIZE, (items, last) -> callback.onChanged(items));
+    }
+
+    /**
+     * Case-insensitive prefix search over the indexed "nameLower" key, or
+     * "emailLower" when the keyword looks like an email address.
+     *
+     * @param keyword  raw user input; normalized with {@link #searchKey(String)}
+     * @param after    cursor returned by the previous page, or null for the first page
+     * @param pageSize maximum number of users to return
+     * @param callback receives the page and the cursor for the next one
+     */
+    public void searchUsers(@NonNull String keyword,
+                            @Nullable DocumentSnapshot after,
+                            int pageSize,
+                            @NonNull UsersPageListener callback) {
+        String key = searchKey(keyword);
+        if (key.isEmpty()) {
+            callback.onLoaded(Collections.emptyList(), null);
+            return;
+        }
+        String field = key.indexOf('@') >= 0 ? "emailLower" : "nameLower";
+
+        Query q = users.whereGreaterThanOrEqualTo(field, key)
+                .whereLessThanOrEqualTo(field, key + "\uf8ff")
+                .orderBy(field)
+                .limit(pageSize);
+        if (after != null) q = q.startAfter(after);
+
+        q.get()
                 .addOnSuccessListener(snap -> {
-                    if (snap == null) {
-                        callback.onChanged(Collections.emptyList());
+                    if (snap == null || snap.isEmpty()) {
+                        callback.onLoaded(Collections.emptyList(), null);
                         return;
                     }
-                    callback.onChanged(mapList(snap));
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    DocumentSnapshot last = docs.size() < pageSize ? null : docs.get(docs.size() - 1);
+                    callback.onLoaded(mapList(snap), last);
+                })
+                .addOnFailureListener(e -> {
+                    Log.w("UserSearch", "search failed", e);
+                    callback.onLoaded(Collections.emptyList(), null);
+                });
+    }
+
+    /**
+     * Runs {@link #backfillSearchKeys()} once for the whole project: the first
+     * device to take the shared lease does it and marks the job done, everyone
+     * else (and every later call) skips it. A failed run frees the lease so
+     * the next admin open retries.
+     */
+    public Task<Void> backfillSearchKeysOnce() {
+        return MaintenanceLock.acquire(BACKFILL_JOB, BACKFILL_LEASE_MS, 0L)
+                .continueWithTask(t -> {
+                    String token = t.getResult();
+                    if (token == null) return Tasks.forResult(null);
+                    return backfillSearchKeys().continueWithTask(run -> run.isSuccessful()
+                            ? MaintenanceLock.finish(BACKFILL_JOB, token, true, null)
+                            : MaintenanceLock.release(BACKFILL_JOB, token)
+                                    .continueWithTask(x -> run));
                 });
     }
 
+    /**
+     * Walks the users collection in id order and writes the lower-cased
+     * search keys for documents created before they existed.
+     */
+    public Task<Void> backfillSearchKeys() {
+        return backfillPage(null);
+    }
+
+    private Task<Void> backfillPage(@Nullable DocumentSnapshot after) {
+        Query q = users.orderBy(FieldPath.documentId()).limit(BACKFILL_PAGE_SIZE);
+        if (after != null) q = q.startAfter(after);
+
+        return q.get().continueWithTask(t -> {
+            if (!t.isSuccessful()) throw t.getException();
+            QuerySnapshot snap = t.getResult();
+            if (snap == null || snap.isEmpty()) return Tasks.forResult(null);
+
+            WriteBatch batch = db.batch();
+            int pending = 0;
+            for (DocumentSnapshot d : snap.getDocuments()) {
+                Map<String, Object> keys = new HashMap<>();
+                String nameKey = searchKey(d.getString("name"));
+                String emailKey = searchKey(d.getString("email"));
+                if (!nameKey.equals(d.getString("nameLower"))) keys.put("nameLower", nameKey);
+                if (!emailKey.equals(d.getString("emailLower"))) keys.put("emailLower", emailKey);
+                if (!keys.isEmpty()) {
+                    batch.set(d.getReference(), keys, SetOptions.merge());
+                    pending++;
+                }
+            }
+
+            List<DocumentSnapshot> docs = snap.getDocuments();
+            DocumentSnapshot last = docs.get(docs.size() - 1);
+            Task<Void> written = pending == 0 ? Tasks.forResult(null) : batch.commit();
+            if (docs.size() < BACKFILL_PAGE_SIZE) return written;
+            return written.continueWithTask(w -> {
+                if (!w.isSuccessful()) throw w.getException();
+                return backfillPage(last);
+            });
+        });
+    }
+
     public void removeUser(@NonNull String userID) {
         deleteUser(userID);
     }
 
+    // ---------- batched location reads ----------
+
+    public interface LocationsCallback {
+        void onLoaded(@NonNull List<UserLocation> locations);
+    }
+
+    /**
+     * One-shot read of the stored coordinates for the given users.
+     * Ids are fetched in chunks of 30 with "in" queries instead of one
+     * listener per user, at most {@link #LOCATION_CHUNKS_IN_FLIGHT} chunks at
+     * a time; snapshots are parsed on a background thread and the callback
+     * runs on the main thread. Users without coordinates are skipped; failed
+     * chunks are logged and left out.
+     */
+    public void getUserLocations(@NonNull List<String> userIds, @NonNull LocationsCallback cb) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i += IN_QUERY_LIMIT) {
+            chunks.add(new ArrayList<>(
+                    userIds.subList(i, Math.min(i + IN_QUERY_LIMIT, userIds.size()))));
+        }
+        if (chunks.isEmpty()) {
+            cb.onLoaded(Collections.emptyList());
+            return;
+        }
+
+        List<QuerySnapshot> snaps = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger next = new AtomicInteger();
+        List<Task<Void>> lanes = new ArrayList<>();
+        for (int i = 0; i < Math.min(LOCATION_CHUNKS_IN_FLIGHT, chunks.size()); i++) {
+            lanes.add(locationLane(chunks, next, snaps));
+        }
+
+        Tasks.whenAllComplete(lanes)
+                .continueWith(AppExecutors.background(), done -> {
+                    List<UserLocation> out = new ArrayList<>();
+                    synchronized (snaps) {
+                        for (QuerySnapshot snap : snaps) {
+                            for (DocumentSnapshot d : snap.getDocuments()) {
+                                UserLocation loc = mapLocation(d);
+                                if (loc != null) out.add(loc);
+                            }
+                        }
+                    }
+                    return out;
+                })
+                .addOnSuccessListener(AppExecutors.main(), cb::onLoaded)
+                .addOnFailureListener(AppExecutors.main(), e -> cb.onLoaded(Collections.emptyList()));
+    }
+
+    /** Reads one unclaimed chunk, then the next, until none are left. */
+    private Task<Void> locationLane(List<List<String>> chunks, AtomicInteger next,
+                                    List<QuerySnapshot> out) {
+        int i = next.getAndIncrement();
+        if (i >= chunks.size()) return Tasks.forResult(null);
+        return users.whereIn(FieldPath.documentId(), chunks.get(i)).get()
+                .continueWithTask(t -> {
+                    if (t.isSuccessful() && t.getResult() != null) out.add(t.getResult());
+                    else Log.w("UserLocations", "chunk failed", t.getException());
+                    return locationLane(chunks, next, out);
+                });
+    }
+
+    @Nullable
+    private static UserLocation mapLocation(DocumentSnapshot d) {
+        Object la = d.get("latitude");
+        Object lo = d.get("longitude");
+        if (!(la instanceof Number) || !(lo instanceof Number)) return null;
+        // CreateProfileActivity stores 0/0 when the user did not share a location
+        if (((Number) la).doubleValue() == 0d && ((Number) lo).doubleValue() == 0d) return null;
+        return new UserLocation(
+                d.getId(),
+                safe(d.getString("name")),
+                ((Number) la).doubleValue(),
+                ((Number) lo).doubleValue());
+    }
+
     // ---------- device ID → user name mapping ----------
 
     public interface DeviceNameMapCallback {
@@ -181,4 +402,58 @@ public class FirestoreUserRepository {
                     cb.onLoaded(new HashMap<>());
                 });
     }
+
+    // ---------- batched name lookups ----------
+
+    /** Names already resolved by {@link #getUserNames}; users without a name map to their id. */
+    private final Map<String, String> nameCache = new HashMap<>();
+
+    /**
+     * Resolves display names for the given user ids. Cached ids are answered
+     * from memory; the rest are read in chunks of 30 with "in" queries.
+     * Missing users and failed chunks fall back to the id. Main thread only;
+     * the callback runs on the main thread.
+     */
+    public void getUserNames(@NonNull Collection<String> userIds, @NonNull DeviceNameMapCallback cb) {
+        Map<String, String> out = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(userIds)) {
+            if (id == null || id.isEmpty()) continue;
+            String cached = nameCache.get(id);
+            if (cached != null) out.put(id, cached);
+            else missing.add(id);
+        }
+        if (missing.isEmpty()) {
+            cb.onLoaded(out);
+            return;
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i += IN_QUERY_LIMIT) {
+            List<String> chunk = new ArrayList<>(
+                    missing.subList(i, Math.min(i + IN_QUERY_LIMIT, missing.size())));
+            chunks.add(chunk);
+            reads.add(users.whereIn(FieldPath.documentId(), chunk).get());
+        }
+        Tasks.whenAllComplete(reads).addOnCompleteListener(AppExecutors.main(), done -> {
+            for (int i = 0; i < reads.size(); i++) {
+                Task<QuerySnapshot> t = reads.get(i);
+                if (!t.isSuccessful() || t.getResult() == null) {
+                    Log.w("UserNames", "chunk failed", t.getException());
+                    continue; // not cached, so the next lookup retries these ids
+                }
+                for (String id : chunks.get(i)) nameCache.put(id, id);
+                for (DocumentSnapshot d : t.getResult().getDocuments()) {
+                    String name = safe(d.getString("name"));
+                    if (!name.isEmpty()) nameCache.put(d.getId(), name);
+                }
+            }
+            for (String id : missing) {
+                String name = nameCache.get(id);
+                out.put(id, name == null ? id : name);
+            }
+            cb.onLoaded(out);
+        });
+    }
 }
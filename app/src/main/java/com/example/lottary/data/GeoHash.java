@@ -0,0 +1,131 @@
+package com.example.lottary.data;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pure-java geohash helpers used for proximity queries.
+ *
+ * Documents that carry numeric "latitude"/"longitude" fields also store a
+ * "geohash" string ({@link #putGeohash(Map)}). A radius search turns into a
+ * handful of prefix ranges over that field ({@link #queryBounds}); results
+ * are then refined with {@link #distanceMeters}.
+ */
+public class GeoHash {
+
+    /** Characters stored on documents; ~1 m cells, far finer than any query needs. */
+    public static final int STORED_PRECISION = 10;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_M = 6_371_000d;
+    private static final double METERS_PER_DEGREE_LAT = 111_320d;
+
+    private GeoHash() {}
+
+    /** Geohash of the point with {@code precision} base32 characters. */
+    @NonNull
+    public static String encode(double lat, double lng, int precision) {
+        double latMin = -90, latMax = 90, lngMin = -180, lngMax = 180;
+        StringBuilder sb = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0, ch = 0;
+        while (sb.length() < precision) {
+            if (evenBit) {
+                double mid = (lngMin + lngMax) / 2;
+                if (lng >= mid) { ch = (ch << 1) | 1; lngMin = mid; }
+                else            { ch = ch << 1;       lngMax = mid; }
+            } else {
+                double mid = (latMin + latMax) / 2;
+                if (lat >= mid) { ch = (ch << 1) | 1; latMin = mid; }
+                else            { ch = ch << 1;       latMax = mid; }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                sb.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Adds "geohash" to a document write when it has numeric latitude/longitude.
+     * 0/0 is the "no location shared" default in CreateProfileActivity and is skipped.
+     */
+    public static void putGeohash(@NonNull Map<String, Object> fields) {
+        Object la = fields.get("latitude");
+        Object lo = fields.get("longitude");
+        if (!(la instanceof Number) || !(lo instanceof Number)) return;
+        double lat = ((Number) la).doubleValue();
+        double lng = ((Number) lo).doubleValue();
+        if (lat == 0d && lng == 0d) return;
+        fields.put("geohash", encode(lat, lng, STORED_PRECISION));
+    }
+
+    /**
+     * Prefix ranges ({start, end} pairs, inclusive) whose union covers every
+     * point within {@code radiusM} of the centre.
+     * <p>
+     * Picks the longest prefix whose cells are at least as large as the
+     * radius, so the circle's bounding box touches at most 2x2 (rarely 3x3)
+     * cells; each touched cell becomes one range.
+     */
+    @NonNull
+    public static List<String[]> queryBounds(double lat, double lng, double radiusM) {
+        int precision = precisionFor(lat, radiusM);
+
+        double dLat = radiusM / METERS_PER_DEGREE_LAT;
+        double dLng = dLat / Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        double[] lats = {clampLat(lat - dLat), lat, clampLat(lat + dLat)};
+        double[] lngs = {wrapLng(lng - dLng), lng, wrapLng(lng + dLng)};
+
+        Set<String> cells = new LinkedHashSet<>();
+        for (double la : lats) {
+            for (double lo : lngs) cells.add(encode(la, lo, precision));
+        }
+
+        List<String[]> out = new ArrayList<>(cells.size());
+        for (String cell : cells) out.add(new String[]{cell, cell + "~"});
+        return out;
+    }
+
+    /** Great-circle distance in meters (haversine). */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_M * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    // Longest prefix whose cell height and width both still cover the radius
+    private static int precisionFor(double lat, double radiusM) {
+        double cosLat = Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        for (int p = STORED_PRECISION; p >= 1; p--) {
+            int bits = p * 5;
+            int lngBits = (bits + 1) / 2;
+            int latBits = bits / 2;
+            double cellH = 180d / (1L << latBits) * METERS_PER_DEGREE_LAT;
+            double cellW = 360d / (1L << lngBits) * METERS_PER_DEGREE_LAT * cosLat;
+            if (cellH >= radiusM && cellW >= radiusM) return p;
+        }
+        return 1;
+    }
+
+    private static double clampLat(double lat) {
+        return Math.max(-90d, Math.min(90d, lat));
+    }
+
+    private static double wrapLng(double lng) {
+        if (lng > 180d) return lng - 360d;
+        if (lng < -180d) return lng + 360d;
+        return lng;
+    }
+}
@@ -20,6 +20,10 @@ public class Image implements Serializable {
     private String url;
     private String title;
     private Timestamp createdAt;
+    /** Poster renditions ("thumb" / "medium" / "full" -> URL); null when only url is known. */
+    private HashMap<String, String> renditions;
+    /** Base64 WebP poster preview used as placeholder; null when unknown. */
+    private String preview;
 
     public Image() {}
 
@@ -28,11 +32,17 @@ public class Image implements Serializable {
     public String getUrl() { return url; }
     public String getTitle() { return title; }
     public Timestamp getCreatedAt() { return createdAt; }
+    public Map<String, String> getRenditions() { return renditions; }
+    public String getPreview() { return preview; }
 
     public void setId(String id) { this.id = id; }
     public void setUrl(String url) { this.url = url; }
     public void setTitle(String title) { this.title = title; }
     public void setCreatedAt(Timestamp createdAt) { this.createdAt = createdAt; }
+    public void setPreview(String preview) { this.preview = preview; }
+    public void setRenditions(Map<String, String> renditions) {
+        this.renditions = renditions == null ? null : new HashMap<>(renditions);
+    }
 
     // ---------------- Convenience constructors ----------------
     public Image(String id, String url, String title, Timestamp createdAt) {
@@ -53,10 +63,15 @@ public class Image implements Serializable {
     public long createdAtSeconds() { return createdAt == null ? 0L : createdAt.getSeconds(); }
 
     // ---------------- Copy helpers ----------------
-    public Image copy() { return new Image(id, url, title, createdAt); }
+    public Image copy() { return withId(id); }
 
     /** Returns a new copy with a different id */
-    public Image withId(String newId) { return new Image(newId, url, title, createdAt); }
+    public Image withId(String newId) {
+        Image img = new Image(newId, url, title, createdAt);
+        img.setRenditions(renditions);
+        img.setPreview(preview);
+        return img;
+    }
 
     // ---------------- Firestore interop ----------------
     /** Build Image from Firestore document (using doc ID as id) */
@@ -0,0 +1,130 @@
+package com.example.lottary.data;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.MemoryCategory;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+
+/**
+ * ImageMemoryManager
+ *
+ * Purpose:
+ * Sizes Glide's memory cache and bitmap pool for the device it runs on and
+ * gives memory back when the system asks for it.
+ *
+ * How it works:
+ * - {@link #calculator} picks screens-worth of cache / pool and the heap
+ *   fraction from the per-app memory class: small on low-RAM phones (where
+ *   the admin image grid used to get the process killed), larger on devices
+ *   with big heaps.
+ * - {@link #register} hooks the application's trim-memory callbacks:
+ *   UI hidden / background -> MemoryCategory.LOW plus Glide's own trim;
+ *   running critical / complete / low memory -> clear the memory cache.
+ *   The category returns to NORMAL when an activity starts again.
+ * - {@link #thumbnailFormat} is the decode format for opaque thumbnails:
+ *   ARGB_8888 on Android 8+ so Glide can use hardware bitmaps (pixels off
+ *   the Java heap), RGB_565 before that (half the bytes of ARGB).
+ *
+ * Outstanding Issues / Notes:
+ * - Registered from LotteryGlideModule, so it is active as soon as the
+ *   first image loads; there is no Application subclass in this app.
+ */
+public final class ImageMemoryManager implements ComponentCallbacks2 {
+
+    /** Memory class (MB) up to which a device is treated as small. */
+    private static final int SMALL_HEAP_MB = 192;
+    /** Memory class (MB) from which a device is treated as large. */
+    private static final int LARGE_HEAP_MB = 384;
+
+    private static boolean registered;
+
+    private final Context app;
+
+    private ImageMemoryManager(Context app) {
+        this.app = app;
+    }
+
+    /** Memory cache / bitmap pool sizing for this device. */
+    @NonNull
+    public static MemorySizeCalculator calculator(@NonNull Context c) {
+        ActivityManager am = (ActivityManager) c.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClass = am == null ? SMALL_HEAP_MB : am.getMemoryClass();
+        boolean lowRam = am != null && am.isLowRamDevice();
+
+        MemorySizeCalculator.Builder b = new MemorySizeCalculator.Builder(c);
+        if (lowRam || memoryClass <= SMALL_HEAP_MB) {
+            b.setMemoryCacheScreens(1).setBitmapPoolScreens(1)
+                    .setMaxSizeMultiplier(0.25f).setLowMemoryMaxSizeMultiplier(0.2f);
+        } else if (memoryClass < LARGE_HEAP_MB) {
+            b.setMemoryCacheScreens(2).setBitmapPoolScreens(3).setMaxSizeMultiplier(0.33f);
+        } else {
+            b.setMemoryCacheScreens(4).setBitmapPoolScreens(4).setMaxSizeMultiplier(0.4f);
+        }
+        return b.build();
+    }
+
+    /** Decode format for opaque posters / thumbnails. */
+    @NonNull
+    public static DecodeFormat thumbnailFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                ? DecodeFormat.PREFER_ARGB_8888
+                : DecodeFormat.PREFER_RGB_565;
+    }
+
+    /** Starts reacting to memory pressure; later calls are ignored. */
+    public static synchronized void register(@NonNull Context c) {
+        if (registered) return;
+        registered = true;
+        Context app = c.getApplicationContext();
+        ImageMemoryManager m = new ImageMemoryManager(app);
+        app.registerComponentCallbacks(m);
+        if (app instanceof Application) {
+            ((Application) app).registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+                @Override public void onActivityStarted(@NonNull Activity a) {
+                    Glide.get(a).setMemoryCategory(MemoryCategory.NORMAL);
+                }
+                @Override public void onActivityCreated(@NonNull Activity a, @Nullable Bundle b) {}
+                @Override public void onActivityResumed(@NonNull Activity a) {}
+                @Override public void onActivityPaused(@NonNull Activity a) {}
+                @Override public void onActivityStopped(@NonNull Activity a) {}
+                @Override public void onActivitySaveInstanceState(@NonNull Activity a, @NonNull Bundle b) {}
+                @Override public void onActivityDestroyed(@NonNull Activity a) {}
+            });
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        Glide glide = Glide.get(app);
+        if (level >= TRIM_MEMORY_COMPLETE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            glide.clearMemory();
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN || level == TRIM_MEMORY_RUNNING_LOW) {
+            glide.setMemoryCategory(MemoryCategory.LOW);
+            glide.trimMemory(level);
+        } else {
+            glide.trimMemory(level);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        Glide.get(app).clearMemory();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // Sizes are fixed per process
+    }
+}
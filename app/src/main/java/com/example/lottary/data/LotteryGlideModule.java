@@ -6,6 +6,8 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.GlideBuilder;
 import com.bumptech.glide.Registry;
 import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
 import com.bumptech.glide.load.engine.cache.LruResourceCache;
 import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
 import com.bumptech.glide.module.AppGlideModule;
@@ -22,12 +24,16 @@ import java.io.InputStream;
 @GlideModule
 public class LotteryGlideModule extends AppGlideModule {
 
+    private static final long DISK_CACHE_BYTES = 250L * 1024 * 1024;
+
     @Override
     public void applyOptions(Context context, GlideBuilder builder) {
-        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
-                .setMemoryCacheScreens(2)
-                .build();
+        // Cache and pool sized from the device memory class (see ImageMemoryManager)
+        MemorySizeCalculator calculator = ImageMemoryManager.calculator(context);
         builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+        // The app's only image disk cache (Picasso is gone), so it gets the whole budget
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_BYTES));
     }
 
     /**
@@ -38,8 +44,14 @@ public class LotteryGlideModule extends AppGlideModule {
      */
     @Override
     public void registerComponents(Context context, Glide glide, Registry registry) {
+        // Shrink / clear the caches on trim-memory callbacks
+        ImageMemoryManager.register(context);
+
         // Register FirebaseImageLoader to handle StorageReference
         registry.append(StorageReference.class, InputStream.class,
                 new FirebaseImageLoader.Factory());
+        // Poster download URLs: streamed directly, cached under a token-free key
+        registry.append(PosterUrl.class, InputStream.class,
+                new PosterUrlLoader.Factory());
     }
 }
@@ -0,0 +1,123 @@
+package com.example.lottary.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * MaintenanceLock
+ *
+ * Purpose:
+ * Shared flag / lease for maintenance jobs that admin devices start on their
+ * own (migrations, archival, poster GC), so a job runs on one device at a
+ * time and not again before its interval is up, however many admins there are.
+ *
+ * How it works:
+ * - One document per job in "maintenance": owner + leaseUntil while a run
+ *   holds it, lastRunAt after a finished run, done for one-off jobs.
+ * - {@link #acquire} is a transaction: it hands out a token only when the
+ *   job is not done, not leased by a live run and not run within
+ *   minIntervalMs. An expired lease (crashed run) can be taken over.
+ * - {@link #finish} / {@link #release} only act while the token still owns
+ *   the lease; jobs can also keep small state (cursors) in the same document.
+ *
+ * Outstanding Issues / Notes:
+ * - Times are device clocks; leases are generous so modest skew is harmless.
+ */
+public final class MaintenanceLock {
+
+    private static final String COLLECTION = "maintenance";
+
+    private MaintenanceLock() {}
+
+    @NonNull
+    public static DocumentReference doc(@NonNull String job) {
+        return FirebaseFirestore.getInstance().collection(COLLECTION).document(job);
+    }
+
+    /**
+     * Takes the lease on {@code job} for {@code leaseMs}; resolves with the owner
+     * token, or null when the job is done, running elsewhere or ran recently.
+     */
+    @NonNull
+    public static Task<String> acquire(@NonNull String job, long leaseMs, long minIntervalMs) {
+        DocumentReference ref = doc(job);
+        String token = UUID.randomUUID().toString();
+        return FirebaseFirestore.getInstance().runTransaction(tx -> {
+            DocumentSnapshot d = tx.get(ref);
+            long now = System.currentTimeMillis();
+            if (Boolean.TRUE.equals(d.getBoolean("done"))) return null;
+            if (millis(d.getTimestamp("leaseUntil")) > now) return null;
+            long last = millis(d.getTimestamp("lastRunAt"));
+            if (last > 0 && now - last < minIntervalMs) return null;
+
+            Map<String, Object> lease = new HashMap<>();
+            lease.put("owner", token);
+            lease.put("leaseUntil", new Timestamp(new Date(now + leaseMs)));
+            tx.set(ref, lease, SetOptions.merge());
+            return token;
+        });
+    }
+
+    /**
+     * Ends a run: records lastRunAt (and done for one-off jobs), merges
+     * {@code state} and frees the lease. Does nothing if the lease was lost.
+     */
+    @NonNull
+    public static Task<Void> finish(@NonNull String job, @NonNull String token, boolean done,
+                                    @Nullable Map<String, Object> state) {
+        DocumentReference ref = doc(job);
+        return FirebaseFirestore.getInstance().runTransaction(tx -> {
+            DocumentSnapshot d = tx.get(ref);
+            if (!token.equals(d.getString("owner"))) return null;
+            Map<String, Object> m = state == null ? new HashMap<>() : new HashMap<>(state);
+            m.put("lastRunAt", FieldValue.serverTimestamp());
+            if (done) m.put("done", true);
+            m.put("owner", FieldValue.delete());
+            m.put("leaseUntil", FieldValue.delete());
+            tx.set(ref, m, SetOptions.merge());
+            return null;
+        });
+    }
+
+    /** Frees the lease after a failed run without recording it as run. */
+    @NonNull
+    public static Task<Void> release(@NonNull String job, @NonNull String token) {
+        return release(job, token, null);
+    }
+
+    /**
+     * Frees the lease without recording a run, e.g. after a run that stopped
+     * part-way, merging {@code state} (its cursor) so the next run resumes.
+     */
+    @NonNull
+    public static Task<Void> release(@NonNull String job, @NonNull String token,
+                                     @Nullable Map<String, Object> state) {
+        DocumentReference ref = doc(job);
+        return FirebaseFirestore.getInstance().runTransaction(tx -> {
+            DocumentSnapshot d = tx.get(ref);
+            if (!token.equals(d.getString("owner"))) return null;
+            Map<String, Object> m = state == null ? new HashMap<>() : new HashMap<>(state);
+            m.put("owner", FieldValue.delete());
+            m.put("leaseUntil", FieldValue.delete());
+            tx.set(ref, m, SetOptions.merge());
+            return null;
+        });
+    }
+
+    private static long millis(@Nullable Timestamp t) {
+        return t == null ? 0L : t.toDate().getTime();
+    }
+}
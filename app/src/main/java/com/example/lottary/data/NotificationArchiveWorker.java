@@ -0,0 +1,60 @@
+package com.example.lottary.data;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily {@link NotificationArchiver} run, scheduled from the admin screens.
+ * The maximum age is passed as input data so it can be tuned per schedule.
+ * Every admin device schedules it; the archiver's shared lease lets only one
+ * of them do the work each day.
+ */
+public class NotificationArchiveWorker extends Worker {
+
+    private static final String WORK_NAME = "notification_archive";
+    public static final String KEY_MAX_AGE_DAYS = "max_age_days";
+
+    public NotificationArchiveWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /** Enqueues the daily compaction once; later calls keep the existing schedule. */
+    public static void schedule(@NonNull Context c, int maxAgeDays) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest req = new PeriodicWorkRequest.Builder(
+                NotificationArchiveWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder().putInt(KEY_MAX_AGE_DAYS, maxAgeDays).build())
+                .build();
+        WorkManager.getInstance(c.getApplicationContext())
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, req);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        int days = getInputData().getInt(KEY_MAX_AGE_DAYS, NotificationArchiver.DEFAULT_MAX_AGE_DAYS);
+        try {
+            Tasks.await(new NotificationArchiver().runOnce(days), 10, TimeUnit.MINUTES);
+            return Result.success();
+        } catch (Exception e) {
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.lottary.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NotificationArchiver
+ *
+ * Purpose:
+ * Keeps the hot "notifications" collection small by moving dead entries
+ * into compact per-user archive documents.
+ *
+ * What is archived:
+ * - Notifications whose sentAt is older than the configured age.
+ * - Informational ("info") notifications of events that started more than
+ *   {@link #ENDED_GRACE_MS} ago. Invitations ("selected") carry an action
+ *   and are left to the age rule.
+ *
+ * Runs:
+ * - {@link #runOnce} holds the shared maintenance/{@value #JOB} lease, so
+ *   only one admin device archives at a time and at most once per
+ *   {@link #MIN_INTERVAL_MS}.
+ * - Ended events are read a page at a time in startTime order from the
+ *   cursor kept in the same maintenance document, so a daily run only
+ *   looks at events that ended since the previous one.
+ *
+ * Archive layout:
+ * - users/{recipientId}/notificationArchive/{yyyy-MM} holds an "items"
+ *   array of compact entries (id, eventId, eventTitle, type, message,
+ *   organizerId, sentAt), one document per user and month.
+ * - Each page of up to {@link #PAGE} notifications is archived with one
+ *   WriteBatch: arrayUnion into the buckets, the deletes and a tombstone
+ *   per delete (NotificationSync#tombstone). A page is either fully moved
+ *   or untouched, so a crashed run can simply be started again.
+ * - Tombstones older than NotificationSync#TOMBSTONE_RETENTION_DAYS are
+ *   removed at the end of each run.
+ *
+ * Outstanding Issues / Notes:
+ * - Meant for admin devices (see NotificationArchiveWorker); security
+ *   rules must allow the deletes.
+ * - A bucket is a single document (1 MB cap), which is ample for one
+ *   user's month of messages in this app.
+ */
+public class NotificationArchiver {
+
+    public static final int DEFAULT_MAX_AGE_DAYS = 90;
+
+    /**
+     * Notifications per batch: PAGE deletes, PAGE tombstones and at most PAGE
+     * bucket writes stay under 500.
+     */
+    private static final int PAGE = 150;
+    /** Firestore caps whereIn at 30 values. */
+    private static final int IN_QUERY_LIMIT = 30;
+    /** Ended events read per page. */
+    private static final int EVENT_PAGE = 300;
+
+    /** Maintenance job guarding the run; its document also keeps the ended-events cursor. */
+    static final String JOB = "notificationArchive";
+    private static final String FIELD_CURSOR = "endedEventsCursor";
+    private static final long LEASE_MS = TimeUnit.MINUTES.toMillis(30);
+    static final long MIN_INTERVAL_MS = TimeUnit.HOURS.toMillis(20);
+    /** How long after an event's start its informational notifications stay in the inbox. */
+    public static final long ENDED_GRACE_MS = TimeUnit.DAYS.toMillis(7);
+    /** The only type archived early; it has no action attached. */
+    static final String INFO_TYPE = "info";
+
+    /** Outcome of one compaction. */
+    public static class Result {
+        public int moved;
+        /** startTime of the last ended event examined; where the next run picks up. */
+        @Nullable public Timestamp endedCursor;
+    }
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+
+    /**
+     * Runs {@link #compact} unless another device holds the lease or a run finished
+     * within {@link #MIN_INTERVAL_MS}; the ended-events cursor is read from and saved
+     * to the maintenance document. Resolves with the number of notifications moved.
+     */
+    @NonNull
+    public Task<Integer> runOnce(int maxAgeDays) {
+        return MaintenanceLock.acquire(JOB, LEASE_MS, MIN_INTERVAL_MS).continueWithTask(t -> {
+            String token = t.getResult();
+            if (token == null) return Tasks.forResult(0);
+            return MaintenanceLock.doc(JOB).get()
+                    .continueWithTask(d -> compact(maxAgeDays, true, d.getResult().getTimestamp(FIELD_CURSOR)))
+                    .continueWithTask(run -> {
+                        if (!run.isSuccessful()) {
+                            return MaintenanceLock.release(JOB, token)
+                                    .continueWithTask(x -> Tasks.<Integer>forException(run.getException()));
+                        }
+                        Result r = run.getResult();
+                        Map<String, Object> state = new HashMap<>();
+                        if (r.endedCursor != null) state.put(FIELD_CURSOR, r.endedCursor);
+                        return MaintenanceLock.finish(JOB, token, false, state).continueWith(x -> r.moved);
+                    });
+        });
+    }
+
+    /**
+     * Archives everything older than {@code maxAgeDays} and, if {@code endedEvents},
+     * the informational notifications of events that started more than
+     * {@link #ENDED_GRACE_MS} ago, looking only at events from {@code endedSince} on.
+     */
+    @NonNull
+    public Task<Result> compact(int maxAgeDays, boolean endedEvents, @Nullable Timestamp endedSince) {
+        long cutoffMs = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeDays);
+        Query old = db.collection("notifications")
+                .whereLessThan("sentAt", new Timestamp(new Date(cutoffMs)))
+                .orderBy("sentAt")
+                .limit(PAGE);
+
+        Result result = new Result();
+        result.endedCursor = endedSince;
+        Task<Integer> byAge = drain(old, 0);
+        Task<Integer> moved = !endedEvents ? byAge : byAge.continueWithTask(t -> {
+            int n = t.getResult();
+            return archiveEndedEvents(null, result).continueWith(x -> n + x.getResult());
+        });
+        return moved.continueWithTask(t -> {
+            result.moved = t.getResult();
+            return pruneTombstones().continueWith(x -> {
+                x.getResult();
+                return result;
+            });
+        });
+    }
+
+    /** Deletes tombstones past their retention, a page per batch. */
+    private Task<Void> pruneTombstones() {
+        long cutoffMs = System.currentTimeMillis()
+                - TimeUnit.DAYS.toMillis(NotificationSync.TOMBSTONE_RETENTION_DAYS);
+        Query q = db.collection(NotificationSync.TOMBSTONES)
+                .whereLessThan(NotificationSync.FIELD_UPDATED_AT, new Timestamp(new Date(cutoffMs)))
+                .limit(PAGE);
+        return q.get().continueWithTask(t -> {
+            List<DocumentSnapshot> docs = t.getResult().getDocuments();
+            if (docs.isEmpty()) return Tasks.forResult(null);
+            WriteBatch batch = db.batch();
+            for (DocumentSnapshot d : docs) batch.delete(d.getReference());
+            return batch.commit().continueWithTask(c -> {
+                c.getResult();
+                if (docs.size() < PAGE) return Tasks.forResult(null);
+                return pruneTombstones();
+            });
+        });
+    }
+
+    /**
+     * One page of events that started before the grace cutoff, from the cursor in
+     * {@code result} on; archives their informational notifications, moves the cursor
+     * and continues with the next page. Resolves with the number moved.
+     */
+    private Task<Integer> archiveEndedEvents(@Nullable DocumentSnapshot after, Result result) {
+        long cutoffMs = System.currentTimeMillis() - ENDED_GRACE_MS;
+        Query q = db.collection("events")
+                .whereLessThan("startTime", new Timestamp(new Date(cutoffMs)));
+        // Inclusive: events sharing the cursor's startTime are looked at again, which is harmless
+        if (result.endedCursor != null) q = q.whereGreaterThanOrEqualTo("startTime", result.endedCursor);
+        q = q.orderBy("startTime").limit(EVENT_PAGE);
+        if (after != null) q = q.startAfter(after);
+
+        return q.get().continueWithTask(t -> {
+            List<DocumentSnapshot> events = t.getResult().getDocuments();
+            if (events.isEmpty()) return Tasks.forResult(0);
+            List<String> ids = new ArrayList<>();
+            for (DocumentSnapshot d : events) ids.add(d.getId());
+
+            // One chunk of event ids at a time, each drained completely
+            Task<Integer> chain = Tasks.forResult(0);
+            for (int i = 0; i < ids.size(); i += IN_QUERY_LIMIT) {
+                Query n = db.collection("notifications")
+                        .whereIn("eventId", new ArrayList<>(
+                                ids.subList(i, Math.min(ids.size(), i + IN_QUERY_LIMIT))))
+                        .whereEqualTo("type", INFO_TYPE)
+                        .limit(PAGE);
+                chain = chain.continueWithTask(c -> drain(n, c.getResult()));
+            }
+
+            DocumentSnapshot last = events.get(events.size() - 1);
+            return chain.continueWithTask(c -> {
+                int moved = c.getResult();
+                // Only move the cursor past a page once all of it is archived
+                Timestamp start = last.getTimestamp("startTime");
+                if (start != null) result.endedCursor = start;
+                if (events.size() < EVENT_PAGE) return Tasks.forResult(moved);
+                return archiveEndedEvents(last, result).continueWith(x -> moved + x.getResult());
+            });
+        });
+    }
+
+    /**
+     * Archives the first page of {@code q} and repeats until the query is empty.
+     * Archived documents are deleted, so the same query always yields the next page.
+     */
+    private Task<Integer> drain(Query q, int movedSoFar) {
+        return q.get().continueWithTask(t -> {
+            QuerySnapshot snap = t.getResult();
+            if (snap == null || snap.isEmpty()) return Tasks.forResult(movedSoFar);
+            List<DocumentSnapshot> docs = snap.getDocuments();
+            return archivePage(docs).continueWithTask(c -> {
+                c.getResult(); // propagate a failed commit
+                int moved = movedSoFar + docs.size();
+                return docs.size() < PAGE ? Tasks.forResult(moved) : drain(q, moved);
+            });
+        });
+    }
+
+    private Task<Void> archivePage(List<DocumentSnapshot> docs) {
+        SimpleDateFormat month = new SimpleDateFormat("yyyy-MM", Locale.ROOT);
+        month.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        // bucket ref -> compact entries going into it
+        Map<DocumentReference, List<Map<String, Object>>> buckets = new LinkedHashMap<>();
+        WriteBatch batch = db.batch();
+        for (DocumentSnapshot d : docs) {
+            String rid = d.getString("recipientId");
+            if (rid == null || rid.isEmpty()) rid = "_none";
+            Timestamp sentAt = d.getTimestamp("sentAt");
+            if (sentAt == null) sentAt = d.getTimestamp("timestamp"); // older docs
+            String bucketId = sentAt == null ? "undated" : month.format(sentAt.toDate());
+
+            DocumentReference bucket = db.collection("users").document(rid)
+                    .collection("notificationArchive").document(bucketId);
+            List<Map<String, Object>> items = buckets.get(bucket);
+            if (items == null) {
+                items = new ArrayList<>();
+                buckets.put(bucket, items);
+            }
+            items.add(compactEntry(d, sentAt));
+            batch.delete(d.getReference());
+            // Lets devices' delta sync drop their local copy
+            NotificationSync.tombstone(batch, d);
+        }
+
+        for (Map.Entry<DocumentReference, List<Map<String, Object>>> e : buckets.entrySet()) {
+            Map<String, Object> up = new HashMap<>();
+            up.put("items", FieldValue.arrayUnion(e.getValue().toArray()));
+            up.put("updatedAt", Timestamp.now());
+            batch.set(e.getKey(), up, SetOptions.merge());
+        }
+        return batch.commit();
+    }
+
+    private static Map<String, Object> compactEntry(DocumentSnapshot d, Timestamp sentAt) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", d.getId());
+        putIfPresent(m, "eventId", d.getString("eventId"));
+        String title = d.getString("eventTitle");
+        putIfPresent(m, "eventTitle", title == null ? d.getString("title") : title);
+        putIfPresent(m, "type", d.getString("type"));
+        putIfPresent(m, "message", d.getString("message"));
+        putIfPresent(m, "organizerId", d.getString("organizerId"));
+        if (sentAt != null) m.put("sentAt", sentAt);
+        return m;
+    }
+
+    private static void putIfPresent(Map<String, Object> m, String key, String value) {
+        if (value != null && !value.isEmpty()) m.put(key, value);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.lottary.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * NotificationFanOut
+ *
+ * Purpose:
+ * Writes one "notifications" document per recipient for a single send,
+ * sized for waitlists in the thousands.
+ *
+ * How it works:
+ * - Recipients are split into chunks of {@link #CHUNK_SIZE}; each chunk is
+ *   one WriteBatch (Firestore caps a batch at 500 operations).
+ * - At most {@link #MAX_IN_FLIGHT} batches are committed at a time; the next
+ *   chunk starts when one finishes.
+ * - A failed chunk is retried with exponential backoff up to
+ *   {@link #MAX_ATTEMPTS} times; chunks that still fail are reported in the
+ *   resulting Task's exception, the rest of the send carries on.
+ * - Document ids are deterministic ({@link #docId}), so re-running the same
+ *   send rewrites instead of duplicating. Writes merge: fields the recipient
+ *   set since (read, actedAt) survive a resumed send, so builders leave read
+ *   out (a missing read means unread). Every document gets the
+ *   server-set updatedAt the inbox sync keys on (NotificationSync#stamp). A {@link Checkpoint} lets a
+ *   resumed send skip chunks that already committed.
+ *
+ * Outstanding Issues / Notes:
+ * - Callbacks and retries run on the main thread, like the Firestore
+ *   listeners that drive them.
+ */
+public class NotificationFanOut {
+
+    /** Recipients per WriteBatch; stays clear of the 500-operation limit. */
+    public static final int CHUNK_SIZE = 400;
+    /** Batches committed concurrently. */
+    public static final int MAX_IN_FLIGHT = 3;
+    /** Attempts per chunk before it is given up for this run. */
+    public static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 500;
+    private static final String P = "notification_fanout";
+
+    /** Builds the notification document for one recipient. */
+    public interface DocBuilder { Map<String, Object> build(@NonNull String recipientId); }
+
+    /** Reports recipients written so far; called on the main thread. */
+    public interface ProgressListener { void onProgress(int written, int total); }
+
+    /** Remembers which chunks of a send have committed, so a resumed run can skip them. */
+    public interface Checkpoint {
+        boolean isDone(int chunk);
+        void markDone(int chunk);
+    }
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final String sendId;
+    private final List<String> recipients;
+    private final DocBuilder builder;
+
+    private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+    private final List<Integer> failed = new ArrayList<>();
+    private TaskCompletionSource<Integer> result;
+    private Checkpoint checkpoint;
+    private ProgressListener progress;
+    private int inFlight = 0;
+    private int written = 0;
+
+    /**
+     * @param sendId     stable id of this send; the same id must be used to resume it
+     * @param recipients recipient ids; duplicates are dropped, order decides chunking
+     */
+    public NotificationFanOut(@NonNull String sendId,
+                              @NonNull List<String> recipients,
+                              @NonNull DocBuilder builder) {
+        this.sendId = sendId;
+        this.recipients = new ArrayList<>(new LinkedHashSet<>(recipients));
+        this.builder = builder;
+    }
+
+    /** Id of the notification document for one recipient of a send. */
+    @NonNull
+    public static String docId(@NonNull String sendId, @NonNull String recipientId) {
+        return (sendId + "_" + recipientId).replace('/', '_');
+    }
+
+    public int chunkCount() {
+        return (recipients.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Starts the fan-out. The Task resolves with the number of recipients
+     * covered (including checkpointed chunks), or fails if some chunks still failed after retries
+     * (those chunks are not checkpointed, so running again picks them up).
+     */
+    @NonNull
+    public Task<Integer> start(@Nullable Checkpoint checkpoint, @Nullable ProgressListener progress) {
+        if (result != null) return result.getTask();
+        this.result = new TaskCompletionSource<>();
+        this.checkpoint = checkpoint;
+        this.progress = progress;
+
+        for (int c = 0; c < chunkCount(); c++) {
+            if (checkpoint != null && checkpoint.isDone(c)) written += chunkSize(c);
+            else pending.add(c);
+        }
+        reportProgress();
+        pump();
+        return result.getTask();
+    }
+
+    private void pump() {
+        while (inFlight < MAX_IN_FLIGHT && !pending.isEmpty()) {
+            commit(pending.poll(), 1);
+        }
+        if (inFlight == 0 && pending.isEmpty()) finish();
+    }
+
+    private void commit(int chunk, int attempt) {
+        inFlight++;
+        CollectionReference notifs = db.collection("notifications");
+        WriteBatch batch = db.batch();
+        int from = chunk * CHUNK_SIZE;
+        int to = Math.min(recipients.size(), from + CHUNK_SIZE);
+        for (String rid : recipients.subList(from, to)) {
+            batch.set(notifs.document(docId(sendId, rid)),
+                    NotificationSync.stamp(new HashMap<>(builder.build(rid))), SetOptions.merge());
+        }
+
+        batch.commit().addOnCompleteListener(t -> {
+            inFlight--;
+            if (t.isSuccessful()) {
+                written += to - from;
+                if (checkpoint != null) checkpoint.markDone(chunk);
+                reportProgress();
+                pump();
+            } else if (attempt < MAX_ATTEMPTS) {
+                // Hold the slot during backoff so retries don't crowd out fresh chunks
+                inFlight++;
+                handler.postDelayed(() -> {
+                    inFlight--;
+                    commit(chunk, attempt + 1);
+                }, BASE_BACKOFF_MS << (attempt - 1));
+            } else {
+                failed.add(chunk);
+                pump();
+            }
+        });
+    }
+
+    private void finish() {
+        if (result.getTask().isComplete()) return;
+        if (failed.isEmpty()) {
+            result.setResult(written);
+        } else {
+            result.setException(new IllegalStateException(
+                    failed.size() + " of " + chunkCount() + " notification batches failed; "
+                            + written + " of " + recipients.size() + " recipients written"));
+        }
+    }
+
+    private int chunkSize(int chunk) {
+        return Math.min(CHUNK_SIZE, recipients.size() - chunk * CHUNK_SIZE);
+    }
+
+    private void reportProgress() {
+        if (progress != null) progress.onProgress(written, recipients.size());
+    }
+
+    // ---------- checkpoints ----------
+
+    /**
+     * Checkpoint kept in SharedPreferences under {@code key}. It survives the
+     * app being killed; call {@link #clearCheckpoints} once the send is done.
+     */
+    @NonNull
+    public static Checkpoint prefsCheckpoint(@NonNull Context c, @NonNull String key) {
+        SharedPreferences sp = c.getApplicationContext()
+                .getSharedPreferences(P, Context.MODE_PRIVATE);
+        Set<String> done = new HashSet<>(sp.getStringSet(key, new HashSet<>()));
+        return new Checkpoint() {
+            @Override public boolean isDone(int chunk) {
+                return done.contains(String.valueOf(chunk));
+            }
+            @Override public void markDone(int chunk) {
+                done.add(String.valueOf(chunk));
+                sp.edit().putStringSet(key, new HashSet<>(done)).apply();
+            }
+        };
+    }
+
+    /** Removes every checkpoint whose key starts with {@code prefix}, e.g. all rosters of one send. */
+    public static void clearCheckpoints(@NonNull Context c, @NonNull String prefix) {
+        SharedPreferences sp = c.getApplicationContext()
+                .getSharedPreferences(P, Context.MODE_PRIVATE);
+        SharedPreferences.Editor e = sp.edit();
+        for (String key : sp.getAll().keySet()) {
+            if (key.startsWith(prefix)) e.remove(key);
+        }
+        e.apply();
+    }
+}
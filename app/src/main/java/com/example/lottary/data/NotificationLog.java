@@ -1,15 +1,22 @@
 package com.example.lottary.data;
 
+import androidx.annotation.Nullable;
+
 import com.google.firebase.Timestamp;
 
+import java.util.Objects;
+
 /**
  * Model representing a single notification log entry.
  * Contains metadata about the message, recipient, and timestamp.
+ * Immutable; equals/hashCode cover every field so ListAdapter diffing
+ * can tell when a row really changed (e.g. a recipient name resolved).
  */
 public class NotificationLog {
 
     private final String id;
     private final String title;
+    private final String recipientId;
     private final String recipientName;
     private final String message;
     private final Timestamp timestamp;
@@ -19,8 +26,18 @@ public class NotificationLog {
                            String recipientName,
                            String message,
                            Timestamp timestamp) {
+        this(id, title, null, recipientName, message, timestamp);
+    }
+
+    public NotificationLog(String id,
+                           String title,
+                           String recipientId,
+                           String recipientName,
+                           String message,
+                           Timestamp timestamp) {
         this.id = id;
         this.title = title;
+        this.recipientId = recipientId;
         this.recipientName = recipientName;
         this.message = message;
         this.timestamp = timestamp;
@@ -29,6 +46,7 @@ public class NotificationLog {
     // ---- Basic getters ----
     public String getId() { return id; }
     public String getTitle() { return title; }
+    public String getRecipientId() { return recipientId; }
     public String getRecipientName() { return recipientName; }
     public String getMessage() { return message; }
     public Timestamp getTimestamp() { return timestamp; }
@@ -37,5 +55,27 @@ public class NotificationLog {
     public String getPrettyTime() {
         return timestamp == null ? "" : timestamp.toDate().toString();
     }
-}
 
+    /** Copy of this log with the recipient name filled in. */
+    public NotificationLog withRecipientName(@Nullable String name) {
+        return new NotificationLog(id, title, recipientId, name, message, timestamp);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NotificationLog)) return false;
+        NotificationLog that = (NotificationLog) o;
+        return Objects.equals(id, that.id)
+                && Objects.equals(title, that.title)
+                && Objects.equals(recipientId, that.recipientId)
+                && Objects.equals(recipientName, that.recipientName)
+                && Objects.equals(message, that.message)
+                && Objects.equals(timestamp, that.timestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, recipientId, recipientName, message, timestamp);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.lottary.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * NotificationStore
+ *
+ * Purpose:
+ * On-device copy of the user's "notifications" documents, so the inbox can
+ * render immediately and only documents changed since the last sync have to
+ * be downloaded ({@link NotificationSync}).
+ *
+ * Notes:
+ * - Plain SQLite; every method does disk I/O and must run off the main
+ *   thread (see {@link AppExecutors#background()}).
+ * - read/actedAt are local-first: a re-synced document never clears a
+ *   read flag or acted time that was already recorded here.
+ * - The sync mark (newest server updatedAt seen) is kept per recipient in
+ *   a small side table; rows of deleted documents are removed via
+ *   {@link #delete} / {@link #retainOnly}.
+ */
+public class NotificationStore extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "notifications.db";
+    private static final int DB_VERSION = 2;
+    private static final String T = "notifications";
+    private static final String T_SYNC = "sync_state";
+    private static final int MAX_EXCLUDED = 500;
+
+    private static NotificationStore INSTANCE;
+
+    public static synchronized NotificationStore get(@NonNull Context c) {
+        if (INSTANCE == null) INSTANCE = new NotificationStore(c.getApplicationContext());
+        return INSTANCE;
+    }
+
+    /** One stored notification row. */
+    public static class Entry {
+        public final String id;
+        public final String eventId;
+        public final String eventTitle;
+        public final String targetGroup;
+        public final String type;
+        public final String message;
+        public final String organizerId;
+        public final long sentAtMs;
+        public final boolean read;
+
+        Entry(String id, String eventId, String eventTitle, String targetGroup, String type,
+              String message, String organizerId, long sentAtMs, boolean read) {
+            this.id = id;
+            this.eventId = eventId;
+            this.eventTitle = eventTitle;
+            this.targetGroup = targetGroup;
+            this.type = type;
+            this.message = message;
+            this.organizerId = organizerId;
+            this.sentAtMs = sentAtMs;
+            this.read = read;
+        }
+    }
+
+    private NotificationStore(Context c) {
+        super(c, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T + " ("
+                + "id TEXT PRIMARY KEY, "
+                + "recipient_id TEXT NOT NULL, "
+                + "event_id TEXT, "
+                + "event_title TEXT, "
+                + "target_group TEXT, "
+                + "type TEXT, "
+                + "message TEXT, "
+                + "organizer_id TEXT, "
+                + "sent_at INTEGER NOT NULL DEFAULT 0, "
+                + "read INTEGER NOT NULL DEFAULT 0, "
+                + "acted_at INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_recipient_sent ON " + T + " (recipient_id, sent_at DESC)");
+        db.execSQL("CREATE TABLE " + T_SYNC + " ("
+                + "recipient_id TEXT PRIMARY KEY, "
+                + "mark INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // A cache: drop and let the next sync refill it
+        db.execSQL("DROP TABLE IF EXISTS " + T);
+        db.execSQL("DROP TABLE IF EXISTS " + T_SYNC);
+        onCreate(db);
+    }
+
+    // ---------- writes ----------
+
+    /**
+     * Inserts or refreshes the given documents for {@code uid} in one transaction.
+     * Remote read/actedAt only ever set the local flags, never clear them.
+     */
+    @WorkerThread
+    public void upsert(@NonNull String uid, @NonNull List<DocumentSnapshot> docs) {
+        if (docs.isEmpty()) return;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (DocumentSnapshot d : docs) {
+                ContentValues v = new ContentValues();
+                v.put("recipient_id", uid);
+                v.put("event_id", str(d.get("eventId")));
+                String title = str(d.get("eventTitle"));
+                v.put("event_title", title.isEmpty() ? str(d.get("title")) : title);
+                v.put("target_group", str(d.get("targetGroup")));
+                v.put("type", str(d.get("type")));
+                v.put("message", str(d.get("message")));
+                v.put("organizer_id", str(d.get("organizerId")));
+                v.put("sent_at", millis(d.getTimestamp("sentAt")));
+
+                String[] args = {d.getId()};
+                if (db.update(T, v, "id = ?", args) == 0) {
+                    v.put("id", d.getId());
+                    db.insert(T, null, v);
+                }
+                if (Boolean.TRUE.equals(d.getBoolean("read"))) {
+                    db.execSQL("UPDATE " + T + " SET read = 1 WHERE id = ?", args);
+                }
+                long acted = millis(d.getTimestamp("actedAt"));
+                if (acted > 0) {
+                    db.execSQL("UPDATE " + T + " SET acted_at = MAX(acted_at, ?) WHERE id = ?",
+                            new Object[]{acted, d.getId()});
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Removes the rows of notifications that were deleted on the server. */
+    @WorkerThread
+    public void delete(@NonNull List<String> ids) {
+        if (ids.isEmpty()) return;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (String id : ids) db.delete(T, "id = ?", new String[]{id});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Removes rows of {@code uid} whose id is not in {@code present} (after a full pull). */
+    @WorkerThread
+    public void retainOnly(@NonNull String uid, @NonNull Set<String> present) {
+        List<String> stale = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query(T, new String[]{"id"}, "recipient_id = ?",
+                new String[]{uid}, null, null, null)) {
+            while (c.moveToNext()) {
+                String id = c.getString(0);
+                if (!present.contains(id)) stale.add(id);
+            }
+        }
+        delete(stale);
+    }
+
+    /** Moves the sync mark of {@code uid} forward to {@code markMs}; never backwards. */
+    @WorkerThread
+    public void setSyncMark(@NonNull String uid, long markMs) {
+        SQLiteDatabase db = getWritableDatabase();
+        // No UPSERT syntax on the SQLite of older devices
+        db.execSQL("INSERT OR IGNORE INTO " + T_SYNC + " (recipient_id, mark) VALUES (?, 0)",
+                new Object[]{uid});
+        db.execSQL("UPDATE " + T_SYNC + " SET mark = MAX(mark, ?) WHERE recipient_id = ?",
+                new Object[]{markMs, uid});
+    }
+
+    /** Records locally that the user read / acted on a notification. */
+    @WorkerThread
+    public void markRead(@NonNull String id, long actedAtMs) {
+        ContentValues v = new ContentValues();
+        v.put("read", 1);
+        v.put("acted_at", actedAtMs);
+        getWritableDatabase().update(T, v, "id = ?", new String[]{id});
+    }
+
+    /**
+     * Marks every unread notification of {@code uid} as read and returns their ids,
+     * so the caller can send the matching receipts.
+     */
+    @WorkerThread
+    @NonNull
+    public List<String> markAllRead(@NonNull String uid, long actedAtMs) {
+        SQLiteDatabase db = getWritableDatabase();
+        List<String> ids = new ArrayList<>();
+        db.beginTransaction();
+        try {
+            try (Cursor c = db.query(T, new String[]{"id"}, "recipient_id = ? AND read = 0",
+                    new String[]{uid}, null, null, null)) {
+                while (c.moveToNext()) ids.add(c.getString(0));
+            }
+            ContentValues v = new ContentValues();
+            v.put("read", 1);
+            v.put("acted_at", actedAtMs);
+            db.update(T, v, "recipient_id = ? AND read = 0", new String[]{uid});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return ids;
+    }
+
+    // ---------- reads ----------
+
+    /**
+     * Newest {@code limit} notifications of {@code uid}, skipping those from
+     * {@code mutedOrganizers} so a page is always full of visible rows.
+     */
+    @WorkerThread
+    @NonNull
+    public List<Entry> newest(@NonNull String uid, int limit, @NonNull Set<String> mutedOrganizers) {
+        StringBuilder where = new StringBuilder("recipient_id = ?");
+        List<String> args = new ArrayList<>();
+        args.add(uid);
+        // Stay well under SQLite's bound-parameter limit; callers filter in memory as well
+        if (!mutedOrganizers.isEmpty() && mutedOrganizers.size() <= MAX_EXCLUDED) {
+            where.append(" AND organizer_id NOT IN (");
+            int i = 0;
+            for (String org : mutedOrganizers) {
+                where.append(i++ == 0 ? "?" : ", ?");
+                args.add(org);
+            }
+            where.append(")");
+        }
+
+        List<Entry> out = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query(T,
+                new String[]{"id", "event_id", "event_title", "target_group", "type",
+                        "message", "organizer_id", "sent_at", "read"},
+                where.toString(), args.toArray(new String[0]),
+                null, null, "sent_at DESC", String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                out.add(new Entry(c.getString(0), c.getString(1), c.getString(2), c.getString(3),
+                        c.getString(4), c.getString(5), c.getString(6), c.getLong(7),
+                        c.getInt(8) != 0));
+            }
+        }
+        return out;
+    }
+
+    /** Newest server updatedAt (ms) synced for {@code uid}; 0 if none yet. */
+    @WorkerThread
+    public long syncMark(@NonNull String uid) {
+        try (Cursor c = getReadableDatabase().query(T_SYNC, new String[]{"mark"},
+                "recipient_id = ?", new String[]{uid}, null, null, null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0L;
+        }
+    }
+
+    private static long millis(Timestamp ts) {
+        return ts == null ? 0L : ts.toDate().getTime();
+    }
+
+    private static String str(Object o) {
+        return o == null ? "" : o.toString();
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.lottary.data;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delta sync of "notifications" into {@link NotificationStore}.
+ * <p>
+ * Every write to a notification stamps {@value #FIELD_UPDATED_AT} with the server time
+ * ({@link #stamp}), and the sync reads only documents with {@code updatedAt >= mark - OVERLAP},
+ * where the mark is the newest updatedAt already synced. sentAt is set by clients (a resumed
+ * draw writes its original draw time), so it cannot serve as the mark. The overlap re-reads a
+ * few minutes below the mark so commits that land out of order are not skipped; re-reading is
+ * harmless because writes are upserts.
+ * <p>
+ * Deletes (NotificationArchiver) leave a tombstone in {@value #TOMBSTONES} keyed by the
+ * notification id; the delta sync reads the user's new tombstones and drops those rows.
+ * Tombstones are kept {@link #TOMBSTONE_RETENTION_DAYS} days; a store that has not synced
+ * for longer, or has no mark yet, does a full pull instead and keeps only the rows it saw.
+ * <p>
+ * Until the one-off backfill has stamped legacy documents, a user whose documents carry no
+ * updatedAt yet gets the full pull on every sync.
+ */
+public final class NotificationSync {
+
+    /** Server-set time of the last write to a notification; the sync's high-water field. */
+    public static final String FIELD_UPDATED_AT = "updatedAt";
+    /** One document per deleted notification: recipientId + updatedAt. */
+    public static final String TOMBSTONES = "notificationTombstones";
+    /** Tombstones older than this are removed by the archiver. */
+    public static final int TOMBSTONE_RETENTION_DAYS = 60;
+
+    /** Documents per catch-up page. */
+    private static final int SYNC_PAGE = 200;
+    /** How far below the mark each delta sync starts reading again. */
+    private static final long OVERLAP_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private NotificationSync() {}
+
+    public interface ChangeListener { void onStoreChanged(); }
+
+    /** Adds the server-set {@value #FIELD_UPDATED_AT} to a notification write. */
+    @NonNull
+    public static Map<String, Object> stamp(@NonNull Map<String, Object> doc) {
+        doc.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        return doc;
+    }
+
+    /** Queues the tombstone for a notification deleted in {@code batch}. */
+    public static void tombstone(@NonNull WriteBatch batch, @NonNull DocumentSnapshot notification) {
+        Map<String, Object> t = new HashMap<>();
+        String rid = notification.getString("recipientId");
+        t.put("recipientId", rid == null ? "" : rid);
+        t.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        DocumentReference ref = FirebaseFirestore.getInstance()
+                .collection(TOMBSTONES).document(notification.getId());
+        batch.set(ref, t);
+    }
+
+    private static Query changedSince(@NonNull String collection, @NonNull String uid, long markMs) {
+        return FirebaseFirestore.getInstance().collection(collection)
+                .whereEqualTo("recipientId", uid)
+                .whereGreaterThanOrEqualTo(FIELD_UPDATED_AT,
+                        new Timestamp(new Date(Math.max(0L, markMs - OVERLAP_MS))))
+                .orderBy(FIELD_UPDATED_AT, Query.Direction.ASCENDING);
+    }
+
+    private static Query all(@NonNull String uid) {
+        return FirebaseFirestore.getInstance().collection("notifications")
+                .whereEqualTo("recipientId", uid)
+                .orderBy("sentAt", Query.Direction.ASCENDING);
+    }
+
+    /**
+     * Brings the store up to date: a delta sync from the mark, or a full pull when there is
+     * no usable mark. Resolves with the number of documents written.
+     */
+    @NonNull
+    public static Task<Integer> syncNow(@NonNull Context c, @NonNull String uid) {
+        NotificationStore store = NotificationStore.get(c);
+        return Tasks.call(AppExecutors.background(), () -> store.syncMark(uid))
+                .continueWithTask(t -> {
+                    long mark = t.getResult();
+                    long oldest = System.currentTimeMillis()
+                            - TimeUnit.DAYS.toMillis(TOMBSTONE_RETENTION_DAYS);
+                    if (mark <= oldest) {
+                        return pullAll(store, uid, null, new HashSet<>(), 0L, 0);
+                    }
+                    return pullTombstones(store, uid, mark, null, mark)
+                            .continueWithTask(x -> pullChanged(store, uid, mark, null, x.getResult(), 0));
+                });
+    }
+
+    /** Full pull in sentAt order; afterwards rows the server no longer has are dropped. */
+    private static Task<Integer> pullAll(NotificationStore store, String uid,
+                                         @Nullable DocumentSnapshot after, Set<String> seen,
+                                         long newMark, int written) {
+        Query q = all(uid).limit(SYNC_PAGE);
+        if (after != null) q = q.startAfter(after);
+        return q.get().continueWithTask(AppExecutors.background(), t -> {
+            List<DocumentSnapshot> docs = t.getResult().getDocuments();
+            store.upsert(uid, docs);
+            long mark = Math.max(newMark, maxUpdatedAt(docs));
+            for (DocumentSnapshot d : docs) seen.add(d.getId());
+            int total = written + docs.size();
+            if (docs.size() == SYNC_PAGE) {
+                return pullAll(store, uid, docs.get(docs.size() - 1), seen, mark, total);
+            }
+            store.retainOnly(uid, seen);
+            store.setSyncMark(uid, mark);
+            return Tasks.forResult(total);
+        });
+    }
+
+    /** Drops rows whose tombstones appeared since {@code markMs}; resolves with the new mark. */
+    private static Task<Long> pullTombstones(NotificationStore store, String uid, long markMs,
+                                             @Nullable DocumentSnapshot after, long newMark) {
+        Query q = changedSince(TOMBSTONES, uid, markMs).limit(SYNC_PAGE);
+        if (after != null) q = q.startAfter(after);
+        return q.get().continueWithTask(AppExecutors.background(), t -> {
+            List<DocumentSnapshot> docs = t.getResult().getDocuments();
+            List<String> ids = new ArrayList<>(docs.size());
+            for (DocumentSnapshot d : docs) ids.add(d.getId());
+            store.delete(ids);
+            long mark = Math.max(newMark, maxUpdatedAt(docs));
+            if (docs.size() < SYNC_PAGE) return Tasks.forResult(mark);
+            return pullTombstones(store, uid, markMs, docs.get(docs.size() - 1), mark);
+        });
+    }
+
+    /** Upserts documents changed since {@code markMs}, a page at a time, then moves the mark. */
+    private static Task<Integer> pullChanged(NotificationStore store, String uid, long markMs,
+                                             @Nullable DocumentSnapshot after, long newMark,
+                                             int written) {
+        Query q = changedSince("notifications", uid, markMs).limit(SYNC_PAGE);
+        if (after != null) q = q.startAfter(after);
+        return q.get().continueWithTask(AppExecutors.background(), t -> {
+            List<DocumentSnapshot> docs = t.getResult().getDocuments();
+            store.upsert(uid, docs);
+            long mark = Math.max(newMark, maxUpdatedAt(docs));
+            int total = written + docs.size();
+            if (docs.size() == SYNC_PAGE) {
+                return pullChanged(store, uid, markMs, docs.get(docs.size() - 1), mark, total);
+            }
+            store.setSyncMark(uid, mark);
+            return Tasks.forResult(total);
+        });
+    }
+
+    private static long maxUpdatedAt(List<DocumentSnapshot> docs) {
+        long max = 0L;
+        for (DocumentSnapshot d : docs) {
+            Timestamp ts = d.getTimestamp(FIELD_UPDATED_AT);
+            if (ts != null) max = Math.max(max, ts.toDate().getTime());
+        }
+        return max;
+    }
+
+    /**
+     * Keeps the store current while a screen is open: listens only to documents changed from
+     * the store's mark on, writes each snapshot to the store (dropping documents that were
+     * deleted), then notifies on the main thread. Call after {@link #syncNow} so the
+     * listener's first snapshot is small.
+     */
+    @NonNull
+    public static ListenerRegistration listen(@NonNull Context c, @NonNull String uid,
+                                              @NonNull ChangeListener listener) {
+        NotificationStore store = NotificationStore.get(c);
+        final ListenerRegistration[] inner = new ListenerRegistration[1];
+        final boolean[] removed = new boolean[1];
+
+        Tasks.call(AppExecutors.background(), () -> store.syncMark(uid))
+                .addOnSuccessListener(AppExecutors.main(), mark -> {
+                    if (removed[0]) return;
+                    inner[0] = changedSince("notifications", uid, mark).addSnapshotListener((snap, err) -> {
+                        if (err != null || snap == null || snap.getDocumentChanges().isEmpty()) return;
+                        List<DocumentSnapshot> docs = new ArrayList<>();
+                        List<String> gone = new ArrayList<>();
+                        for (DocumentChange ch : snap.getDocumentChanges()) {
+                            DocumentSnapshot d = ch.getDocument();
+                            if (ch.getType() != DocumentChange.Type.REMOVED) {
+                                docs.add(d);
+                            } else if (!d.getMetadata().hasPendingWrites()) {
+                                // updatedAt only grows, so leaving the query means the doc was
+                                // deleted; a local write with a pending server time only drops
+                                // out until the server answers
+                                gone.add(d.getId());
+                            }
+                        }
+                        AppExecutors.background().execute(() -> {
+                            store.upsert(uid, docs);
+                            store.delete(gone);
+                            AppExecutors.main().execute(listener::onStoreChanged);
+                        });
+                    });
+                });
+
+        // Main-thread only, like the Firestore listener it wraps
+        return () -> {
+            removed[0] = true;
+            if (inner[0] != null) inner[0].remove();
+        };
+    }
+}
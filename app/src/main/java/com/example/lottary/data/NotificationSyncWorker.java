@@ -0,0 +1,58 @@
+package com.example.lottary.data;
+
+import android.content.Context;
+import android.provider.Settings;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic background {@link NotificationSync#syncNow} so the local inbox is
+ * already current when the user opens it.
+ */
+public class NotificationSyncWorker extends Worker {
+
+    private static final String WORK_NAME = "notification_sync";
+    private static final long INTERVAL_MINUTES = 30;
+
+    public NotificationSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /** Enqueues the periodic sync once; later calls keep the existing schedule. */
+    public static void schedule(@NonNull Context c) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest req = new PeriodicWorkRequest.Builder(
+                NotificationSyncWorker.class, INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(c.getApplicationContext())
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, req);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context c = getApplicationContext();
+        String uid = Settings.Secure.getString(c.getContentResolver(), Settings.Secure.ANDROID_ID);
+        if (uid == null || uid.isEmpty()) uid = "device_demo";
+        try {
+            Tasks.await(NotificationSync.syncNow(c, uid), 60, TimeUnit.SECONDS);
+            return Result.success();
+        } catch (Exception e) {
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.example.lottary.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.ListResult;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PosterGc
+ *
+ * Purpose:
+ * Finds poster files in Storage that no event or image document points at
+ * any more and deletes them. Posters are orphaned by uploads that finish
+ * after CreateEventActivity has gone, by failed old-poster deletes in
+ * EditEventActivity, by deleted events, and by content-addressed files
+ * that the client never deletes (see PosterUploader#isShared).
+ *
+ * How it works (mark and sweep):
+ * - Mark: pages through "events" (posterUrl + posterRenditions) and
+ *   "images" (url) by document id and collects the Storage path of every
+ *   referenced file.
+ * - Sweep: lists {@link PosterUploader#FOLDER} page by page; every file
+ *   that is not marked is a candidate. Candidates younger than the grace
+ *   period are kept, so an upload whose event update has not landed yet
+ *   is never taken.
+ * - Deletes go out {@link #DELETE_BATCH} at a time with a pause between
+ *   batches. Every delete re-checks its file first (see Re-checks) and is
+ *   skipped if the file has been claimed since the run started.
+ * - With dryRun nothing is deleted; the {@link Report} lists what would be.
+ *   {@link #deleteReported} later deletes exactly those paths, re-checked
+ *   against the dry run's start.
+ *
+ * Re-checks (uploads reuse content-addressed files, see PosterUploader):
+ * - For a content-addressed file, a transaction reads its poster_blobs
+ *   entry: if lastUsedAt is at or after the run start the file is in use
+ *   again and kept; otherwise the entry is deleted, so a later upload
+ *   cannot reuse it (its lastUsedAt update fails and it uploads afresh).
+ * - Right before the Storage delete the file's metadata is read again; a
+ *   file created after the run start was re-put by such an upload and is
+ *   kept.
+ *
+ * Runs:
+ * - Deleting runs hold the shared maintenance/{@value #JOB} lease, so only
+ *   one device sweeps at a time; the weekly worker also skips a run when
+ *   another device swept within the week ({@link #runScheduled}).
+ * - A scheduled run must end inside WorkManager's 10-minute Worker limit:
+ *   it stops listing new pages after {@link #SCHEDULED_BUDGET_MS}, saves
+ *   the next page token as {@value #FIELD_CURSOR} and frees the lease
+ *   without counting as a run, so the worker's retry continues from there.
+ *   Marks are always rebuilt in full; only the sweep resumes.
+ *
+ * Outstanding Issues / Notes:
+ * - Meant for admin devices (see PosterGcWorker); security rules must
+ *   allow the deletes.
+ * - The "images" folder is not swept: the admin image fallback treats
+ *   that folder itself as the source of truth when the collection is empty.
+ * - Times compare server timestamps with the device clock, with
+ *   {@link #CLOCK_SLACK_MS} of slack in favour of keeping files. A re-put
+ *   landing between the final metadata read and the delete is still lost;
+ *   that window is one round trip.
+ */
+public class PosterGc {
+
+    private static final String TAG = "PosterGc";
+
+    public static final long DEFAULT_GRACE_MS = TimeUnit.DAYS.toMillis(1);
+
+    /** Maintenance job holding the sweep lease. */
+    static final String JOB = "posterGc";
+    /** Lease of a run started from the admin screen; it has no time budget. */
+    private static final long LEASE_MS = TimeUnit.HOURS.toMillis(2);
+    /** Scheduled sweeps are skipped if any device swept within this interval. */
+    private static final long SCHEDULED_INTERVAL_MS = TimeUnit.DAYS.toMillis(6);
+    /** Time after which a scheduled run lists no further pages. */
+    static final long SCHEDULED_BUDGET_MS = TimeUnit.MINUTES.toMillis(6);
+    /** Lease of a scheduled run; outlives its budget plus the last page. */
+    private static final long SCHEDULED_LEASE_MS = TimeUnit.MINUTES.toMillis(15);
+    /** Page token the next scheduled run resumes the sweep from. */
+    static final String FIELD_CURSOR = "sweepPageToken";
+    /** Device clock vs server time allowance; errs towards keeping files. */
+    static final long CLOCK_SLACK_MS = TimeUnit.MINUTES.toMillis(10);
+
+    /** Firestore documents read per mark page. */
+    private static final int MARK_PAGE = 300;
+    /** Storage files listed per sweep page. */
+    private static final int LIST_PAGE = 200;
+    /** Metadata lookups in flight at once. */
+    private static final int MAX_IN_FLIGHT = 6;
+    /** Deletes sent together, and the pause after each batch. */
+    private static final int DELETE_BATCH = 20;
+    private static final long DELETE_PAUSE_MS = 1000;
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final FirebaseStorage storage = FirebaseStorage.getInstance();
+
+    /** Outcome of one run. */
+    public static class Report {
+        public final boolean dryRun;
+        /** Device time the run started; later claims of a file keep it. */
+        public final long startedAtMs;
+        public int scanned;
+        public int referenced;
+        public int young;
+        public final List<String> orphans = new ArrayList<>();
+        public long orphanBytes;
+        public int deleted;
+        /** Orphans kept because an upload claimed them after the run started. */
+        public int reclaimed;
+        public int failed;
+        /** Listing page to resume from when the run stopped early; null once the folder is done. */
+        @Nullable public String resumeToken;
+
+        Report(boolean dryRun, long startedAtMs) {
+            this.dryRun = dryRun;
+            this.startedAtMs = startedAtMs;
+        }
+
+        /** Short human-readable summary, used by the admin dialog. */
+        @NonNull
+        public String summary() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Files scanned: ").append(scanned)
+                    .append("\nReferenced: ").append(referenced)
+                    .append("\nToo new to remove: ").append(young)
+                    .append("\nOrphaned: ").append(orphans.size())
+                    .append(String.format(Locale.ROOT, " (%.1f MB)", orphanBytes / (1024f * 1024f)));
+            if (dryRun) {
+                sb.append("\n\nDry run: nothing was deleted.");
+            } else {
+                sb.append("\n\nDeleted: ").append(deleted);
+                if (reclaimed > 0) sb.append(", back in use: ").append(reclaimed);
+                if (failed > 0) sb.append(", failed: ").append(failed);
+            }
+            if (resumeToken != null) sb.append("\nStopped part-way; the next run continues.");
+            return sb.toString();
+        }
+    }
+
+    /** Orphan candidate with the metadata needed to judge it. */
+    private static final class Candidate {
+        final StorageReference ref;
+        final long createdMs;
+        final long sizeBytes;
+
+        Candidate(StorageReference ref, long createdMs, long sizeBytes) {
+            this.ref = ref;
+            this.createdMs = createdMs;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+
+    /**
+     * Weekly entry point for {@link PosterGcWorker}: a deleting run, unless another
+     * device holds the lease or swept within {@link #SCHEDULED_INTERVAL_MS}. The sweep
+     * starts at the saved cursor and stops after {@link #SCHEDULED_BUDGET_MS}; a report
+     * with a resumeToken means the folder is not done yet. Resolves with null when skipped.
+     */
+    @NonNull
+    public Task<Report> runScheduled(long graceMs) {
+        return MaintenanceLock.acquire(JOB, SCHEDULED_LEASE_MS, SCHEDULED_INTERVAL_MS).continueWithTask(t -> {
+            String token = t.getResult();
+            if (token == null) return Tasks.<Report>forResult(null);
+            long deadlineMs = System.currentTimeMillis() + SCHEDULED_BUDGET_MS;
+            return MaintenanceLock.doc(JOB).get()
+                    .continueWithTask(d -> collect(false, graceMs,
+                            d.getResult().getString(FIELD_CURSOR), deadlineMs))
+                    .continueWithTask(run -> {
+                        if (!run.isSuccessful()) {
+                            return MaintenanceLock.release(JOB, token)
+                                    .continueWithTask(x -> Tasks.<Report>forException(run.getException()));
+                        }
+                        Report r = run.getResult();
+                        Map<String, Object> state = new HashMap<>();
+                        if (r.resumeToken != null) {
+                            // Not a finished run: the retry may start again right away
+                            state.put(FIELD_CURSOR, r.resumeToken);
+                            return MaintenanceLock.release(JOB, token, state).continueWith(x -> r);
+                        }
+                        state.put(FIELD_CURSOR, FieldValue.delete());
+                        return MaintenanceLock.finish(JOB, token, false, state).continueWith(x -> r);
+                    });
+        });
+    }
+
+    /**
+     * Runs one collection. Files younger than {@code graceMs} are never removed;
+     * with {@code dryRun} only the report is produced. A deleting run needs the
+     * shared lease and resolves with null while another device is sweeping.
+     */
+    @NonNull
+    public Task<Report> run(boolean dryRun, long graceMs) {
+        if (dryRun) return collect(true, graceMs, null, Long.MAX_VALUE);
+        return withLease(() -> collect(false, graceMs, null, Long.MAX_VALUE));
+    }
+
+    /**
+     * Deletes exactly the orphans listed by a dry run, each re-checked against
+     * the dry run's start. Resolves with null while another device is sweeping.
+     */
+    @NonNull
+    public Task<Report> deleteReported(@NonNull Report dryRun) {
+        return withLease(() -> {
+            Report report = new Report(false, dryRun.startedAtMs);
+            List<Candidate> orphans = new ArrayList<>();
+            for (String path : dryRun.orphans) {
+                report.orphans.add(path);
+                orphans.add(new Candidate(storage.getReference().child(path), 0L, 0L));
+            }
+            report.orphanBytes = dryRun.orphanBytes;
+            return deleteInBatches(orphans, 0, report).continueWith(t -> {
+                t.getResult();
+                Log.i(TAG, report.summary());
+                return report;
+            });
+        });
+    }
+
+    private interface Body { Task<Report> start(); }
+
+    /** Runs {@code body} under the lease for an admin-started run; null while leased elsewhere. */
+    private static Task<Report> withLease(Body body) {
+        return MaintenanceLock.acquire(JOB, LEASE_MS, 0L).continueWithTask(t -> {
+            String token = t.getResult();
+            if (token == null) return Tasks.<Report>forResult(null);
+            return body.start().continueWithTask(run -> {
+                if (!run.isSuccessful()) {
+                    return MaintenanceLock.release(JOB, token)
+                            .continueWithTask(x -> Tasks.<Report>forException(run.getException()));
+                }
+                return MaintenanceLock.finish(JOB, token, false, null).continueWith(x -> run.getResult());
+            });
+        });
+    }
+
+    /**
+     * Marks everything, then sweeps from {@code fromPage} (null: the first page) until
+     * the folder ends or {@code deadlineMs} passes at a page boundary.
+     */
+    private Task<Report> collect(boolean dryRun, long graceMs, @Nullable String fromPage,
+                                 long deadlineMs) {
+        long startedAtMs = System.currentTimeMillis();
+        Report report = new Report(dryRun, startedAtMs);
+        Set<String> marked = new HashSet<>();
+        long cutoffMs = startedAtMs - graceMs;
+
+        return markAll(db.collection("events"), null, marked)
+                .continueWithTask(t -> {
+                    t.getResult(); // a failed mark must never lead to a sweep
+                    return markAll(db.collection("images"), null, marked);
+                })
+                .continueWithTask(t -> {
+                    t.getResult();
+                    StorageReference dir = storage.getReference().child(PosterUploader.FOLDER);
+                    return sweepPage(dir, fromPage, marked, cutoffMs, deadlineMs, report);
+                })
+                .continueWith(t -> {
+                    t.getResult();
+                    Log.i(TAG, report.summary());
+                    return report;
+                });
+    }
+
+    // ---------- mark ----------
+
+    private Task<Void> markAll(Query base, @Nullable DocumentSnapshot after, Set<String> marked) {
+        Query q = base.orderBy(FieldPath.documentId()).limit(MARK_PAGE);
+        if (after != null) q = q.startAfter(after);
+        return q.get().continueWithTask(t -> {
+            QuerySnapshot snap = t.getResult();
+            List<DocumentSnapshot> docs = snap.getDocuments();
+            for (DocumentSnapshot d : docs) {
+                mark(d.get("posterUrl"), marked);
+                mark(d.get("url"), marked);
+                Object renditions = d.get(PosterUploader.FIELD_RENDITIONS);
+                if (renditions instanceof Map<?, ?>) {
+                    for (Object u : ((Map<?, ?>) renditions).values()) mark(u, marked);
+                }
+            }
+            if (docs.size() < MARK_PAGE) return Tasks.forResult(null);
+            return markAll(base, docs.get(docs.size() - 1), marked);
+        });
+    }
+
+    private void mark(@Nullable Object url, Set<String> marked) {
+        if (!(url instanceof String) || ((String) url).isEmpty()) return;
+        try {
+            marked.add(storage.getReferenceFromUrl((String) url).getPath());
+        } catch (Exception ignored) {
+            // Not a Storage URL, nothing to keep
+        }
+    }
+
+    // ---------- sweep ----------
+
+    /**
+     * Sweeps one listing page, then the next, until the folder is exhausted or the
+     * deadline passes; then the next page's token is left in the report.
+     */
+    private Task<Void> sweepPage(StorageReference dir, @Nullable String pageToken,
+                                 Set<String> marked, long cutoffMs, long deadlineMs, Report report) {
+        Task<ListResult> page = pageToken == null
+                ? dir.list(LIST_PAGE)
+                : dir.list(LIST_PAGE, pageToken);
+        return page.continueWithTask(t -> {
+            ListResult list = t.getResult();
+            List<StorageReference> unmarked = new ArrayList<>();
+            for (StorageReference item : list.getItems()) {
+                report.scanned++;
+                if (marked.contains(item.getPath())) report.referenced++;
+                else unmarked.add(item);
+            }
+            return describeAll(unmarked).continueWithTask(d -> {
+                List<Candidate> orphans = new ArrayList<>();
+                for (Candidate c : d.getResult()) {
+                    // Unknown creation time counts as young; better kept than wrongly removed
+                    if (c.createdMs <= 0 || c.createdMs > cutoffMs) {
+                        report.young++;
+                        continue;
+                    }
+                    orphans.add(c);
+                    report.orphans.add(c.ref.getPath());
+                    report.orphanBytes += c.sizeBytes;
+                }
+                Task<Void> swept = report.dryRun
+                        ? Tasks.forResult(null)
+                        : deleteInBatches(orphans, 0, report);
+                String next = list.getPageToken();
+                if (next == null) return swept;
+                return swept.continueWithTask(x -> {
+                    if (System.currentTimeMillis() >= deadlineMs) {
+                        report.resumeToken = next;
+                        return Tasks.<Void>forResult(null);
+                    }
+                    return sweepPage(dir, next, marked, cutoffMs, deadlineMs, report);
+                });
+            });
+        });
+    }
+
+    /** Reads metadata for {@code refs}, {@link #MAX_IN_FLIGHT} at a time. */
+    private Task<List<Candidate>> describeAll(List<StorageReference> refs) {
+        List<Candidate> out = Collections.synchronizedList(new ArrayList<>());
+        if (refs.isEmpty()) return Tasks.forResult(out);
+        AtomicInteger next = new AtomicInteger();
+        List<Task<Void>> lanes = new ArrayList<>();
+        for (int i = 0; i < Math.min(MAX_IN_FLIGHT, refs.size()); i++) {
+            lanes.add(describeLane(refs, next, out));
+        }
+        return Tasks.whenAllComplete(lanes).continueWith(done -> new ArrayList<>(out));
+    }
+
+    private Task<Void> describeLane(List<StorageReference> refs, AtomicInteger next, List<Candidate> out) {
+        int i = next.getAndIncrement();
+        if (i >= refs.size()) return Tasks.forResult(null);
+        StorageReference ref = refs.get(i);
+        return ref.getMetadata().continueWithTask(t -> {
+            StorageMetadata m = t.isSuccessful() ? t.getResult() : null;
+            out.add(new Candidate(ref,
+                    m == null ? 0L : m.getCreationTimeMillis(),
+                    m == null ? 0L : m.getSizeBytes()));
+            return describeLane(refs, next, out);
+        });
+    }
+
+    /** Deletes {@code orphans} from {@code from} on, one paused batch at a time. */
+    private Task<Void> deleteInBatches(List<Candidate> orphans, int from, Report report) {
+        if (from >= orphans.size()) return Tasks.forResult(null);
+        int to = Math.min(orphans.size(), from + DELETE_BATCH);
+        List<Task<Void>> deletes = new ArrayList<>();
+        for (Candidate c : orphans.subList(from, to)) deletes.add(delete(c.ref, report));
+        return Tasks.whenAllComplete(deletes)
+                .continueWithTask(t -> to < orphans.size() ? pause(DELETE_PAUSE_MS) : Tasks.forResult(null))
+                .continueWithTask(t -> deleteInBatches(orphans, to, report));
+    }
+
+    /**
+     * Deletes one orphan after re-checking it: its index entry must not have been
+     * used since the run started (the entry is dropped in the same transaction),
+     * and the file itself must not have been re-put since.
+     */
+    private Task<Void> delete(StorageReference ref, Report report) {
+        long since = report.startedAtMs;
+        String key = blobKey(ref.getName());
+        Task<Boolean> unclaimed = key == null
+                ? Tasks.forResult(true)
+                : unindexIfUnused(db.collection(PosterUploader.BLOB_INDEX).document(key), since);
+        return unclaimed
+                .continueWithTask(t -> {
+                    // Keep the file if its index entry could not be checked
+                    if (!t.getResult()) return Tasks.forResult(false);
+                    return ref.getMetadata().continueWith(m ->
+                            !claimedSince(m.getResult().getCreationTimeMillis(), since));
+                })
+                .continueWithTask(t -> {
+                    if (!t.getResult()) {
+                        report.reclaimed++;
+                        return Tasks.forResult((Void) null);
+                    }
+                    return ref.delete().addOnSuccessListener(x -> report.deleted++);
+                })
+                .addOnFailureListener(e -> {
+                    report.failed++;
+                    Log.w(TAG, "delete failed: " + ref.getPath(), e);
+                });
+    }
+
+    /** Drops the index entry unless an upload used it since {@code sinceMs}; true if dropped or absent. */
+    private Task<Boolean> unindexIfUnused(DocumentReference entry, long sinceMs) {
+        return db.runTransaction(tx -> {
+            DocumentSnapshot d = tx.get(entry);
+            if (!d.exists()) return true;
+            Timestamp used = d.getTimestamp(PosterUploader.FIELD_LAST_USED_AT);
+            if (claimedSince(used == null ? 0L : used.toDate().getTime(), sinceMs)) return false;
+            tx.delete(entry);
+            return true;
+        });
+    }
+
+    /** Whether a server time {@code atMs} falls at or after a run that started at {@code sinceMs}. */
+    static boolean claimedSince(long atMs, long sinceMs) {
+        return atMs > 0 && atMs >= sinceMs - CLOCK_SLACK_MS;
+    }
+
+    /** Index key of a content-addressed file name, or null for other names. */
+    @Nullable
+    static String blobKey(@NonNull String name) {
+        if (!PosterUploader.isSharedName(name)) return null;
+        int cut = name.indexOf('_', name.indexOf('_') + 1);
+        int dot = name.lastIndexOf('.');
+        return name.substring(0, cut > 0 ? cut : dot);
+    }
+
+    private static Task<Void> pause(long ms) {
+        TaskCompletionSource<Void> done = new TaskCompletionSource<>();
+        MAIN.postDelayed(() -> done.setResult(null), ms);
+        return done.getTask();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.lottary.data;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weekly {@link PosterGc} sweep of orphaned poster files, scheduled from the
+ * admin screens. Runs only on unmetered networks with a healthy battery.
+ * Every admin device schedules it; the shared lease in PosterGc lets one of
+ * them sweep per week and the others skip.
+ * <p>
+ * WorkManager stops a Worker after 10 minutes, so each run sweeps for at most
+ * PosterGc.SCHEDULED_BUDGET_MS and is awaited for less than the limit. A run
+ * that stopped part-way returns retry; the retry resumes from the saved cursor.
+ */
+public class PosterGcWorker extends Worker {
+
+    private static final String WORK_NAME = "poster_gc";
+    /** Below WorkManager's 10-minute Worker limit, above the sweep budget. */
+    private static final long AWAIT_MS = TimeUnit.MINUTES.toMillis(8);
+
+    public PosterGcWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /** Enqueues the weekly sweep once; later calls keep the existing schedule. */
+    public static void schedule(@NonNull Context c) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest req = new PeriodicWorkRequest.Builder(
+                PosterGcWorker.class, 7, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(c.getApplicationContext())
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, req);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            PosterGc.Report report = Tasks.await(
+                    new PosterGc().runScheduled(PosterGc.DEFAULT_GRACE_MS), AWAIT_MS, TimeUnit.MILLISECONDS);
+            // Null (skipped: swept elsewhere or running) counts as done too
+            return report != null && report.resumeToken != null ? Result.retry() : Result.success();
+        } catch (Exception e) {
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.lottary.data;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.Base64;
+import android.util.LruCache;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PosterImages
+ *
+ * Purpose:
+ * The single image-loading entry point of the app. Every screen goes
+ * through Glide (LotteryGlideModule) with the same model type, so there
+ * is one memory cache, one disk cache and one bitmap pool, and a poster
+ * cached by one screen is a hit on every other.
+ *
+ * How it works:
+ * - {@link #pickUrl} returns the smallest stored rendition (see
+ *   {@link PosterUploader.Rendition}) whose long edge covers the target,
+ *   falling back to posterUrl for posters uploaded before renditions.
+ * - Square center-cropped thumbnails ({@link #thumbnail}) need the short edge
+ *   to cover the target, and the poster's aspect ratio is not stored; the
+ *   long-edge target is scaled by {@link #CROP_ASPECT} (see {@link #cropTargetPx}).
+ * - {@link #request} loads it as a {@link PosterUrl} (no StorageReference
+ *   per bind) and decodes straight to the target size (override) in the
+ *   opaque-thumbnail format chosen by {@link ImageMemoryManager}.
+ * - {@link #load} is the full-size variant for detail / preview screens.
+ * - {@link #preview} turns the event's inline posterPreview into a
+ *   placeholder drawable; it is painted from data already on the card, so
+ *   a row shows the poster's colours before any request completes.
+ *
+ * Outstanding Issues / Notes:
+ * - Callers still add placeholder / scale type and call into().
+ * - Decoded previews are tiny (16px), so a small LRU of them is kept
+ *   instead of decoding the base64 on every bind.
+ */
+public final class PosterImages {
+
+    private static final LruCache<String, Bitmap> PREVIEWS = new LruCache<>(128);
+
+    /**
+     * Long:short ratio assumed for a center-cropped poster: 16:9 also covers
+     * portrait 2:3 posters; only wider images come out slightly soft.
+     */
+    static final float CROP_ASPECT = 16f / 9f;
+
+    private PosterImages() {}
+
+    /** Reads a posterRenditions field value; empty for missing or malformed data. */
+    @NonNull
+    public static Map<String, String> renditions(@Nullable Object raw) {
+        Map<String, String> out = new HashMap<>();
+        if (raw instanceof Map<?, ?>) {
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) raw).entrySet()) {
+                if (e.getKey() instanceof String && e.getValue() instanceof String
+                        && !((String) e.getValue()).isEmpty()) {
+                    out.put((String) e.getKey(), (String) e.getValue());
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Smallest rendition whose long edge is at least {@code targetPx}; the largest
+     * stored one if none is; {@code posterUrl} if the poster has no renditions.
+     */
+    @NonNull
+    public static String pickUrl(@Nullable String posterUrl, @Nullable Map<String, String> renditions,
+                                 int targetPx) {
+        String fallback = posterUrl == null ? "" : posterUrl;
+        if (renditions == null || renditions.isEmpty()) return fallback;
+
+        String largest = null;
+        for (PosterUploader.Rendition r : PosterUploader.Rendition.values()) {
+            String url = renditions.get(r.key);
+            if (url == null || url.isEmpty()) continue;
+            if (r.maxEdge >= targetPx) return url;
+            largest = url;
+        }
+        return largest != null ? largest : fallback;
+    }
+
+    /**
+     * Long-edge target for a square center crop of {@code sizePx}: the rendition's
+     * short edge, at {@link #CROP_ASPECT}, must still cover the square.
+     */
+    static int cropTargetPx(int sizePx) {
+        return (int) Math.ceil(sizePx * CROP_ASPECT);
+    }
+
+    /**
+     * Glide request for the best rendition, decoded at exactly
+     * {@code widthPx} x {@code heightPx}.
+     */
+    @NonNull
+    public static GlideRequest<Drawable> request(@NonNull View host,
+                                                 @Nullable String posterUrl,
+                                                 @Nullable Map<String, String> renditions,
+                                                 int widthPx, int heightPx) {
+        return request(GlideApp.with(host), posterUrl, renditions, widthPx, heightPx);
+    }
+
+    @NonNull
+    public static GlideRequest<Drawable> request(@NonNull GlideRequests glide,
+                                                 @Nullable String posterUrl,
+                                                 @Nullable Map<String, String> renditions,
+                                                 int widthPx, int heightPx) {
+        return request(glide, posterUrl, renditions, widthPx, heightPx, Math.max(widthPx, heightPx));
+    }
+
+    private static GlideRequest<Drawable> request(GlideRequests glide, @Nullable String posterUrl,
+                                                  @Nullable Map<String, String> renditions,
+                                                  int widthPx, int heightPx, int longEdgePx) {
+        String url = pickUrl(posterUrl, renditions, longEdgePx);
+        GlideRequest<Drawable> req = glide
+                .load(PosterUrl.model(url))
+                .format(ImageMemoryManager.thumbnailFormat());
+        // Unknown size: let Glide wait for layout as before
+        return widthPx > 0 && heightPx > 0 ? req.override(widthPx, heightPx) : req;
+    }
+
+    /**
+     * Square center-cropped thumbnail of {@code sizePx}. Binds and
+     * {@link PosterPreloader} both use this, so a preloaded poster is
+     * exactly the cache entry the bind asks for.
+     */
+    @NonNull
+    public static GlideRequest<Drawable> thumbnail(@NonNull GlideRequests glide,
+                                                   @Nullable String posterUrl,
+                                                   @Nullable Map<String, String> renditions,
+                                                   int sizePx) {
+        return request(glide, posterUrl, renditions, sizePx, sizePx, cropTargetPx(sizePx)).centerCrop();
+    }
+
+    @NonNull
+    public static GlideRequest<Drawable> thumbnail(@NonNull View host,
+                                                   @Nullable String posterUrl,
+                                                   @Nullable Map<String, String> renditions,
+                                                   int sizePx) {
+        return thumbnail(GlideApp.with(host), posterUrl, renditions, sizePx);
+    }
+
+    /**
+     * Placeholder drawable for a base64 posterPreview value, stretched and
+     * filtered by the view into a blur; null when there is no usable preview.
+     */
+    @Nullable
+    public static Drawable preview(@NonNull Resources res, @Nullable String base64) {
+        if (base64 == null || base64.isEmpty()) return null;
+        Bitmap bmp = PREVIEWS.get(base64);
+        if (bmp == null) {
+            try {
+                byte[] bytes = Base64.decode(base64, Base64.NO_WRAP);
+                bmp = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            if (bmp == null) return null;
+            PREVIEWS.put(base64, bmp);
+        }
+        BitmapDrawable d = new BitmapDrawable(res, bmp);
+        d.setFilterBitmap(true);
+        return d;
+    }
+
+    /** Glide request for one image URL at full quality, sized by the target view. */
+    @NonNull
+    public static GlideRequest<Drawable> load(@NonNull View host, @Nullable String url) {
+        return GlideApp.with(host).load(PosterUrl.model(url));
+    }
+}
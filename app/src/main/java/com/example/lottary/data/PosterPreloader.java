@@ -0,0 +1,100 @@
+package com.example.lottary.data;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * PosterPreloader
+ *
+ * Purpose:
+ * Starts fetching and decoding posters a few rows ahead of a scrolling
+ * list, so fast flings no longer show empty placeholders.
+ *
+ * How it works:
+ * - Wraps Glide's RecyclerViewPreloader: it watches the scroll direction
+ *   and preloads the next {@code maxPreload} items ahead of the visible
+ *   ones (behind them when scrolling up).
+ * - Requests are built with {@link PosterImages#thumbnail}, the same call
+ *   the adapters bind with, at the same size; the preload lands in exactly
+ *   the cache entry the bind reads.
+ * - The preloader keeps a fixed ring of maxPreload targets; reusing a
+ *   target cancels its old request, so work for rows that were flung past
+ *   is dropped instead of piling up.
+ */
+public final class PosterPreloader {
+
+    /** Reads the poster of one list item. */
+    public interface Posters<T> {
+        @Nullable String url(@NonNull T item);
+        @Nullable Map<String, String> renditions(@NonNull T item);
+    }
+
+    /** Default number of rows fetched ahead of the visible ones. */
+    public static final int DEFAULT_ROWS_AHEAD = 6;
+
+    public static final Posters<Event> EVENTS = new Posters<Event>() {
+        @Override public String url(@NonNull Event e) { return e.getImageUrl(); }
+        @Override public Map<String, String> renditions(@NonNull Event e) { return e.getPosterRenditions(); }
+    };
+
+    public static final Posters<Image> IMAGES = new Posters<Image>() {
+        @Override public String url(@NonNull Image i) { return i.getUrl(); }
+        @Override public Map<String, String> renditions(@NonNull Image i) { return i.getRenditions(); }
+    };
+
+    private PosterPreloader() {}
+
+    /**
+     * Preloads thumbnails of {@code sizePx} (read lazily, 0 = not known yet)
+     * for up to {@code maxPreload} items ahead of the scroll position.
+     */
+    public static <T> void attach(@NonNull RecyclerView rv,
+                                  @NonNull ListAdapter<T, ?> adapter,
+                                  @NonNull Posters<T> posters,
+                                  @NonNull IntSupplier sizePx,
+                                  int maxPreload) {
+        GlideRequests glide = GlideApp.with(rv);
+
+        ListPreloader.PreloadModelProvider<T> models = new ListPreloader.PreloadModelProvider<T>() {
+            @NonNull
+            @Override
+            public List<T> getPreloadItems(int position) {
+                List<T> items = adapter.getCurrentList();
+                if (position < 0 || position >= items.size()) return Collections.emptyList();
+                T item = items.get(position);
+                String url = posters.url(item);
+                return url == null || url.isEmpty()
+                        ? Collections.<T>emptyList()
+                        : Collections.singletonList(item);
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<Drawable> getPreloadRequestBuilder(@NonNull T item) {
+                int size = sizePx.getAsInt();
+                if (size <= 0) return null;
+                return PosterImages.thumbnail(glide, posters.url(item), posters.renditions(item), size);
+            }
+        };
+
+        ListPreloader.PreloadSizeProvider<T> sizes = (item, adapterPosition, perItemPosition) -> {
+            int size = sizePx.getAsInt();
+            return size > 0 ? new int[]{size, size} : null;
+        };
+
+        rv.addOnScrollListener(new RecyclerViewPreloader<>(glide, models, sizes, maxPreload));
+    }
+}
@@ -0,0 +1,494 @@
+package com.example.lottary.data;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * PosterUploader
+ *
+ * Purpose:
+ * Turns a picked poster (often a 6–12 MB camera photo) into small WebP
+ * renditions before anything is uploaded, so neither the upload nor any
+ * later download has to move the original.
+ *
+ * How it works:
+ * - Off the main thread (AppExecutors.background) the picked file is
+ *   streamed once through SHA-256 while its bounds are read. The hash names
+ *   the content: poster_blobs/{key} records the renditions already stored
+ *   for it, and a re-upload of the same image (recurring events) reuses
+ *   them without encoding or uploading anything.
+ * - A reuse first stamps the entry's lastUsedAt (server time), which tells a
+ *   running PosterGc the files are wanted again, then checks that every
+ *   stored file still resolves. If the entry is gone or a file is missing,
+ *   the poster is encoded and uploaded as if the content were new.
+ * - Otherwise it decodes with the largest power-of-two inSampleSize that still covers
+ *   {@link Rendition#FULL}, applies the EXIF orientation and scales to the
+ *   full size in one Matrix pass.
+ * - Medium and thumb are scaled down from the full bitmap; every rendition
+ *   is WebP encoded at {@link #WEBP_QUALITY}.
+ * - The three files are uploaded in parallel with putBytes to
+ *   event_posters/{key}[_medium|_thumb].webp, then the index entry is written.
+ * - A {@link #PREVIEW_EDGE}px preview is scaled from the thumb and stored
+ *   inline (base64 WebP, a few hundred bytes), so lists can paint a blurred
+ *   placeholder from the event document before any download.
+ *
+ * Event fields (see {@link Result#toEventUpdate()}):
+ * - posterUrl          : full rendition, so every existing reader keeps working
+ * - posterRenditions   : { "thumb": url, "medium": url, "full": url }
+ * - posterPreview      : base64 of the tiny preview (see PosterImages#preview)
+ *
+ * Outstanding Issues / Notes:
+ * - Files are immutable (content-addressed names), so they carry a long
+ *   Cache-Control max-age.
+ * - A content-addressed file may back several events, so the client never
+ *   deletes one (see {@link #isShared}); {@link PosterGc} sweeps the
+ *   unreferenced ones.
+ *   Older {eventId}_{ts} files are still deleted directly.
+ * - Transparency is kept only as far as lossy WebP allows; posters are
+ *   treated as opaque.
+ */
+public class PosterUploader {
+
+    private static final String TAG = "PosterUploader";
+
+    public static final String FIELD_RENDITIONS = "posterRenditions";
+    public static final String FIELD_PREVIEW = "posterPreview";
+    /** Blob index: server time of the last upload that used the entry. */
+    public static final String FIELD_LAST_USED_AT = "lastUsedAt";
+
+    /** Long edge of the inline preview in px. */
+    static final int PREVIEW_EDGE = 16;
+    private static final int PREVIEW_QUALITY = 50;
+
+    static final int WEBP_QUALITY = 80;
+
+    /** Storage folder of every poster file. */
+    public static final String FOLDER = "event_posters";
+    /** Firestore collection: one document per stored content key. */
+    public static final String BLOB_INDEX = "poster_blobs";
+    /**
+     * Bumped whenever the renditions change (sizes, quality, format), so new
+     * uploads get new keys instead of reusing files encoded the old way.
+     */
+    static final int ENCODING_VERSION = 1;
+    private static final Pattern SHARED_NAME =
+            Pattern.compile("p\\d+_[0-9a-f]{64}(_medium|_thumb)?\\.webp");
+    private static final String CACHE_CONTROL = "public, max-age=31536000";
+
+    /** Stored sizes; maxEdge is the longest side in pixels. */
+    public enum Rendition {
+        THUMB("thumb", "_thumb", 320),
+        MEDIUM("medium", "_medium", 960),
+        FULL("full", "", 1920);
+
+        public final String key;
+        final String suffix;
+        public final int maxEdge;
+
+        Rendition(String key, String suffix, int maxEdge) {
+            this.key = key;
+            this.suffix = suffix;
+            this.maxEdge = maxEdge;
+        }
+    }
+
+    /** Download URLs of one uploaded poster. */
+    public static class Result {
+        private final Map<Rendition, String> urls;
+        private final String preview;
+
+        Result(Map<Rendition, String> urls, String preview) {
+            this.urls = urls;
+            this.preview = preview;
+        }
+
+        @NonNull
+        public String url(@NonNull Rendition r) {
+            String u = urls.get(r);
+            return u == null ? "" : u;
+        }
+
+        /** Fields to merge into the event document. */
+        @NonNull
+        public Map<String, Object> toEventUpdate() {
+            Map<String, Object> renditions = new HashMap<>();
+            for (Map.Entry<Rendition, String> e : urls.entrySet()) {
+                renditions.put(e.getKey().key, e.getValue());
+            }
+            Map<String, Object> update = new HashMap<>();
+            update.put("posterUrl", url(Rendition.FULL));
+            update.put(FIELD_RENDITIONS, renditions);
+            update.put(FIELD_PREVIEW, preview);
+            return update;
+        }
+
+        /** Entry written to the blob index for this content. */
+        Map<String, Object> toIndex(String firstEventId) {
+            Map<String, Object> m = toEventUpdate();
+            m.remove("posterUrl");
+            m.put("encoding", ENCODING_VERSION);
+            m.put("firstEventId", firstEventId);
+            m.put("createdAt", FieldValue.serverTimestamp());
+            m.put(FIELD_LAST_USED_AT, FieldValue.serverTimestamp());
+            return m;
+        }
+    }
+
+    private PosterUploader() {}
+
+    /**
+     * Hashes {@code source}; when the index already knows that content the stored
+     * renditions are reused, otherwise they are encoded and uploaded once.
+     */
+    @NonNull
+    public static Task<Result> upload(@NonNull Context c, @NonNull Uri source, @NonNull String eventId) {
+        ContentResolver cr = c.getApplicationContext().getContentResolver();
+
+        return Tasks.call(AppExecutors.background(), () -> probe(cr, source))
+                .continueWithTask(t -> {
+                    Probe probe = t.getResult();
+                    DocumentReference index = FirebaseFirestore.getInstance()
+                            .collection(BLOB_INDEX).document(probe.key);
+                    return index.get().continueWithTask(known -> {
+                        Result stored = known.isSuccessful() ? fromIndex(known.getResult()) : null;
+                        if (stored == null) return uploadNew(cr, source, probe, index, eventId);
+                        return reuse(index, stored).continueWithTask(reused -> {
+                            if (reused.isSuccessful()) return Tasks.forResult(stored);
+                            Log.w(TAG, "stored renditions unusable, uploading again", reused.getException());
+                            return uploadNew(cr, source, probe, index, eventId);
+                        });
+                    });
+                });
+    }
+
+    /**
+     * Claims an index hit: stamps lastUsedAt (fails if the GC has removed the
+     * entry meanwhile), then checks every stored file still resolves.
+     */
+    private static Task<Void> reuse(DocumentReference index, Result stored) {
+        return index.update(FIELD_LAST_USED_AT, FieldValue.serverTimestamp())
+                .continueWithTask(t -> {
+                    if (!t.isSuccessful()) throw t.getException();
+                    FirebaseStorage storage = FirebaseStorage.getInstance();
+                    List<Task<StorageMetadata>> checks = new ArrayList<>();
+                    for (Rendition r : Rendition.values()) {
+                        checks.add(storage.getReferenceFromUrl(stored.url(r)).getMetadata());
+                    }
+                    return Tasks.whenAll(checks);
+                });
+    }
+
+    private static Task<Result> uploadNew(ContentResolver cr, Uri source, Probe probe,
+                                          DocumentReference index, String eventId) {
+        return encodeAndUpload(cr, source, probe)
+                .continueWithTask(up -> {
+                    Result r = up.getResult();
+                    return index.set(r.toIndex(eventId)).continueWith(w -> {
+                        // The files are in place; a missing entry only costs a re-upload
+                        if (!w.isSuccessful()) Log.w(TAG, "index write failed", w.getException());
+                        return r;
+                    });
+                });
+    }
+
+    private static Task<Result> encodeAndUpload(ContentResolver cr, Uri source, Probe probe) {
+        return Tasks.call(AppExecutors.background(), () -> encode(cr, source, probe))
+                .continueWithTask(t -> {
+                    Encoded encoded = t.getResult();
+                    Map<Rendition, byte[]> files = encoded.files;
+                    StorageReference dir = FirebaseStorage.getInstance()
+                            .getReference().child(FOLDER);
+                    StorageMetadata meta = new StorageMetadata.Builder()
+                            .setContentType("image/webp")
+                            .setCacheControl(CACHE_CONTROL)
+                            .build();
+
+                    List<Rendition> order = new ArrayList<>(files.keySet());
+                    List<Task<Uri>> uploads = new ArrayList<>();
+                    for (Rendition r : order) {
+                        StorageReference ref = dir.child(probe.key + r.suffix + ".webp");
+                        uploads.add(ref.putBytes(files.get(r), meta)
+                                .continueWithTask(u -> {
+                                    if (!u.isSuccessful()) throw u.getException();
+                                    return ref.getDownloadUrl();
+                                }));
+                    }
+                    return Tasks.whenAllSuccess(uploads).continueWith(done -> {
+                        List<Object> uris = done.getResult();
+                        Map<Rendition, String> urls = new EnumMap<>(Rendition.class);
+                        for (int i = 0; i < order.size(); i++) {
+                            urls.put(order.get(i), uris.get(i).toString());
+                        }
+                        return new Result(urls, encoded.preview);
+                    });
+                });
+    }
+
+    /** Result recorded for an index entry; null unless every rendition is listed. */
+    @Nullable
+    private static Result fromIndex(@Nullable DocumentSnapshot d) {
+        if (d == null || !d.exists()) return null;
+        Map<String, String> stored = PosterImages.renditions(d.get(FIELD_RENDITIONS));
+        Map<Rendition, String> urls = new EnumMap<>(Rendition.class);
+        for (Rendition r : Rendition.values()) {
+            String u = stored.get(r.key);
+            if (u == null) return null;
+            urls.put(r, u);
+        }
+        String preview = d.getString(FIELD_PREVIEW);
+        return new Result(urls, preview == null ? "" : preview);
+    }
+
+    /**
+     * Whether {@code url} is a content-addressed poster file. Those can be
+     * shared by several events and are never deleted here; the poster GC
+     * removes them once nothing references them.
+     */
+    public static boolean isShared(@Nullable String url) {
+        if (url == null || url.isEmpty()) return false;
+        try {
+            return isSharedName(FirebaseStorage.getInstance().getReferenceFromUrl(url).getName());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Whether a Storage file name is content-addressed ("p{v}_{sha256}[suffix].webp"). */
+    static boolean isSharedName(@NonNull String name) {
+        return SHARED_NAME.matcher(name).matches();
+    }
+
+    /**
+     * Deletes every stored rendition of a poster, given the event's posterUrl and
+     * posterRenditions values. Content-addressed files are skipped (see
+     * {@link #isShared}). Failures are logged and ignored.
+     */
+    public static void deleteAll(@Nullable String posterUrl, @Nullable Object renditions) {
+        List<String> urls = new ArrayList<>();
+        if (posterUrl != null && !posterUrl.isEmpty()) urls.add(posterUrl);
+        if (renditions instanceof Map<?, ?>) {
+            for (Object u : ((Map<?, ?>) renditions).values()) {
+                if (u instanceof String && !((String) u).isEmpty() && !urls.contains(u)) {
+                    urls.add((String) u);
+                }
+            }
+        }
+        for (String u : urls) {
+            if (isShared(u)) continue;
+            try {
+                FirebaseStorage.getInstance().getReferenceFromUrl(u).delete()
+                        .addOnFailureListener(e -> Log.w(TAG, "delete failed (ignored): " + u, e));
+            } catch (Exception e) {
+                Log.w(TAG, "Bad storage url (ignored): " + u, e);
+            }
+        }
+    }
+
+    /** Fields that clear a poster from an event document. */
+    @NonNull
+    public static Map<String, Object> clearedEventFields() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("posterUrl", "");
+        m.put(FIELD_RENDITIONS, FieldValue.delete());
+        m.put(FIELD_PREVIEW, FieldValue.delete());
+        return m;
+    }
+
+    // ---------- decode / encode ----------
+
+    /** Content key and bounds of the picked file, read in one pass. */
+    private static final class Probe {
+        final String key;
+        final int width;
+        final int height;
+
+        Probe(String key, int width, int height) {
+            this.key = key;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Streams {@code source} once: the bounds are decoded from the head while
+     * every byte goes through SHA-256. The key is "p{ENCODING_VERSION}_{hex}".
+     */
+    @WorkerThread
+    private static Probe probe(ContentResolver cr, Uri source) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = new DigestInputStream(open(cr, source), sha) {
+            // No mark/reset, or re-read bytes would be hashed twice
+            @Override public boolean markSupported() { return false; }
+
+            // The decoder skips header segments (APPn/EXIF); read them so they are hashed too
+            @Override public long skip(long n) throws IOException {
+                byte[] scratch = new byte[(int) Math.min(n, 8 * 1024)];
+                long left = n;
+                while (left > 0) {
+                    int r = read(scratch, 0, (int) Math.min(left, scratch.length));
+                    if (r == -1) break;
+                    left -= r;
+                }
+                return n - left;
+            }
+        }) {
+            BitmapFactory.decodeStream(in, null, bounds);
+            byte[] buf = new byte[16 * 1024];
+            while (in.read(buf) != -1) {
+                // drain the rest into the digest
+            }
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not a decodable image: " + source);
+        }
+        StringBuilder hex = new StringBuilder("p").append(ENCODING_VERSION).append('_');
+        for (byte b : sha.digest()) hex.append(String.format(Locale.ROOT, "%02x", b));
+        return new Probe(hex.toString(), bounds.outWidth, bounds.outHeight);
+    }
+
+    /** Encoded renditions plus the inline preview. */
+    private static final class Encoded {
+        final Map<Rendition, byte[]> files;
+        final String preview;
+
+        Encoded(Map<Rendition, byte[]> files, String preview) {
+            this.files = files;
+            this.preview = preview;
+        }
+    }
+
+    @WorkerThread
+    private static Encoded encode(ContentResolver cr, Uri source, Probe probe) throws IOException {
+        int orientation = ExifInterface.ORIENTATION_NORMAL;
+        try (InputStream in = open(cr, source)) {
+            orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            Log.w(TAG, "No EXIF, assuming upright", e);
+        }
+
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = sampleSize(Math.max(probe.width, probe.height), Rendition.FULL.maxEdge);
+        Bitmap decoded;
+        try (InputStream in = open(cr, source)) {
+            decoded = BitmapFactory.decodeStream(in, null, opts);
+        }
+        if (decoded == null) throw new IOException("Decode failed: " + source);
+
+        Bitmap full = orientAndScale(decoded, orientation, Rendition.FULL.maxEdge);
+        if (full != decoded) decoded.recycle();
+
+        Map<Rendition, byte[]> out = new EnumMap<>(Rendition.class);
+        out.put(Rendition.FULL, webp(full));
+        Bitmap medium = scaleDown(full, Rendition.MEDIUM.maxEdge);
+        out.put(Rendition.MEDIUM, webp(medium));
+        Bitmap thumb = scaleDown(medium, Rendition.THUMB.maxEdge);
+        out.put(Rendition.THUMB, webp(thumb));
+        Bitmap tiny = scaleDown(thumb, PREVIEW_EDGE);
+        String preview = Base64.encodeToString(webp(tiny, PREVIEW_QUALITY), Base64.NO_WRAP);
+
+        if (tiny != thumb) tiny.recycle();
+        if (thumb != medium) thumb.recycle();
+        if (medium != full) medium.recycle();
+        full.recycle();
+        return new Encoded(out, preview);
+    }
+
+    private static InputStream open(ContentResolver cr, Uri source) throws IOException {
+        InputStream in = cr.openInputStream(source);
+        if (in == null) throw new IOException("Cannot open " + source);
+        return in;
+    }
+
+    /** Largest power of two that still leaves the long edge at or above {@code target}. */
+    static int sampleSize(int longEdge, int target) {
+        int sample = 1;
+        while (longEdge / (sample * 2) >= target) sample *= 2;
+        return sample;
+    }
+
+    private static Bitmap orientAndScale(Bitmap src, int orientation, int maxEdge) {
+        Matrix m = new Matrix();
+        float scale = Math.min(1f, maxEdge / (float) Math.max(src.getWidth(), src.getHeight()));
+        m.postScale(scale, scale);
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL: m.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_180:      m.postRotate(180); break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:   m.postScale(1, -1); break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:       m.postRotate(90); m.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_90:       m.postRotate(90); break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:      m.postRotate(-90); m.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_270:      m.postRotate(-90); break;
+            default: break;
+        }
+        if (m.isIdentity()) return src;
+        return Bitmap.createBitmap(src, 0, 0, src.getWidth(), src.getHeight(), m, true);
+    }
+
+    private static Bitmap scaleDown(Bitmap src, int maxEdge) {
+        int longEdge = Math.max(src.getWidth(), src.getHeight());
+        if (longEdge <= maxEdge) return src;
+        float scale = maxEdge / (float) longEdge;
+        return Bitmap.createScaledBitmap(src,
+                Math.max(1, Math.round(src.getWidth() * scale)),
+                Math.max(1, Math.round(src.getHeight() * scale)),
+                true);
+    }
+
+    private static byte[] webp(Bitmap b) {
+        return webp(b, WEBP_QUALITY);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static byte[] webp(Bitmap b, int quality) {
+        Bitmap.CompressFormat format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        b.compress(format, quality, out);
+        return out.toByteArray();
+    }
+}
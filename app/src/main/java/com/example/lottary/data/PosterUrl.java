@@ -0,0 +1,69 @@
+package com.example.lottary.data;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.storage.FirebaseStorage;
+
+/**
+ * Glide model for a poster download URL (see {@link PosterUrlLoader}).
+ *
+ * Firebase Storage download URLs carry an access token in the query
+ * string; the token can be revoked and re-issued for the same file, so
+ * the cache key is the URL without its query. The path alone is a safe
+ * key because a path never changes content: new posters are named by the
+ * encoder version and the SHA-256 of the source (PosterUploader), so a
+ * file that PosterGc removed and a later upload put back under the same
+ * name holds the same bytes; older posters have unique timestamped names.
+ */
+public final class PosterUrl {
+
+    private static final String STORAGE_HOST = "firebasestorage.googleapis.com";
+
+    private final String url;
+    private final String cacheKey;
+
+    private PosterUrl(@NonNull String url) {
+        this.url = url;
+        Uri u = Uri.parse(url);
+        this.cacheKey = STORAGE_HOST.equals(u.getHost())
+                ? u.buildUpon().clearQuery().build().toString()
+                : url;
+    }
+
+    /**
+     * The Glide model for a stored poster URL: a {@link PosterUrl} for http(s)
+     * download URLs, a StorageReference for gs:// URLs (still resolved through
+     * FirebaseImageLoader), null for a blank URL.
+     */
+    @Nullable
+    public static Object model(@Nullable String url) {
+        if (url == null || url.isEmpty()) return null;
+        if (url.startsWith("gs://")) return FirebaseStorage.getInstance().getReferenceFromUrl(url);
+        return new PosterUrl(url);
+    }
+
+    @NonNull
+    public String url() { return url; }
+
+    @NonNull
+    public String cacheKey() { return cacheKey; }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PosterUrl && cacheKey.equals(((PosterUrl) o).cacheKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return cacheKey.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return cacheKey;
+    }
+}
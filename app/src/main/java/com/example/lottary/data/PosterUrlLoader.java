@@ -0,0 +1,53 @@
+package com.example.lottary.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.HttpUrlFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.InputStream;
+
+/**
+ * Loads a {@link PosterUrl} by streaming its download URL over HTTP.
+ *
+ * Unlike FirebaseImageLoader there is no StorageReference to build and no
+ * metadata request per load: the download URL already grants access. The
+ * disk-cache key is {@link PosterUrl#cacheKey()}, so a cached poster is
+ * served with no network call on every later bind.
+ */
+public class PosterUrlLoader implements ModelLoader<PosterUrl, InputStream> {
+
+    private static final int TIMEOUT_MS = 15_000;
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull PosterUrl model, int width, int height,
+                                               @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(model.cacheKey()),
+                new HttpUrlFetcher(new GlideUrl(model.url()), TIMEOUT_MS));
+    }
+
+    @Override
+    public boolean handles(@NonNull PosterUrl model) {
+        return true;
+    }
+
+    public static class Factory implements ModelLoaderFactory<PosterUrl, InputStream> {
+        @NonNull
+        @Override
+        public ModelLoader<PosterUrl, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new PosterUrlLoader();
+        }
+
+        @Override
+        public void teardown() {
+            // Nothing to release
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.lottary.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReceiptWriter
+ *
+ * Purpose:
+ * Coalesces read/acted receipts so the inbox sends one WriteBatch per
+ * short window instead of one set(merge) round trip per tap.
+ *
+ * How it works:
+ * - Receipts are queued per document path; repeated marks of the same
+ *   notification collapse into one write.
+ * - The queue flushes {@link #FLUSH_WINDOW_MS} after the first pending
+ *   receipt, or right away via {@link #flush()} (bulk "mark all read",
+ *   screen going to the background).
+ * - Large queues are split into batches of {@link #BATCH_LIMIT}. A failed
+ *   batch is re-queued and retried on the next window.
+ * - Receipts on personal notifications are updates, so a notification that
+ *   was archived or deleted meanwhile is not re-created as a stub. Such a
+ *   receipt fails the whole batch with NOT_FOUND; the batch is then replayed
+ *   one write at a time and the receipts whose target is gone are dropped.
+ *   Broadcast receipts are their own documents and are created (set merge).
+ *
+ * Outstanding Issues / Notes:
+ * - Main-thread only. Receipts still queued when the process dies are
+ *   lost; the local NotificationStore keeps the read state regardless.
+ */
+public class ReceiptWriter {
+
+    private static ReceiptWriter INSTANCE;
+
+    public static ReceiptWriter get() {
+        if (INSTANCE == null) INSTANCE = new ReceiptWriter();
+        return INSTANCE;
+    }
+
+    /** How long receipts are collected before a flush. */
+    static final long FLUSH_WINDOW_MS = 1000;
+    /** Writes per batch; under Firestore's 500-operation limit. */
+    static final int BATCH_LIMIT = 450;
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, Receipt> pending = new LinkedHashMap<>();
+    private final Runnable flushTask = this::flush;
+    private boolean scheduled;
+
+    private ReceiptWriter() {}
+
+    /** Fields to write to one document; {@code create} for receipts that are documents of their own. */
+    private static final class Receipt {
+        final Map<String, Object> fields;
+        final boolean create;
+
+        Receipt(Map<String, Object> fields, boolean create) {
+            this.fields = fields;
+            this.create = create;
+        }
+    }
+
+    /** Queues read + actedAt for one personal notification. */
+    public void markRead(@NonNull String notificationId, @NonNull Timestamp at) {
+        Map<String, Object> up = receipt(at);
+        // A changed notification must reach the user's other devices' delta sync
+        NotificationSync.stamp(up);
+        enqueue(db.collection("notifications").document(notificationId), new Receipt(up, false));
+    }
+
+    /** Queues the per-user receipt for a broadcast. */
+    public void markBroadcastRead(@NonNull String broadcastId, @NonNull String uid, @NonNull Timestamp at) {
+        enqueue(db.collection("broadcasts").document(broadcastId)
+                .collection("receipts").document(uid), new Receipt(receipt(at), true));
+    }
+
+    /** Queues receipts for many notifications and flushes them immediately. */
+    public void markAllRead(@NonNull List<String> notificationIds, @NonNull Timestamp at) {
+        for (String id : notificationIds) markRead(id, at);
+        flush();
+    }
+
+    private static Map<String, Object> receipt(Timestamp at) {
+        Map<String, Object> up = new HashMap<>();
+        up.put("read", true);
+        up.put("actedAt", at);
+        return up;
+    }
+
+    private void enqueue(DocumentReference ref, Receipt r) {
+        pending.put(ref.getPath(), r);
+        if (!scheduled) {
+            scheduled = true;
+            handler.postDelayed(flushTask, FLUSH_WINDOW_MS);
+        }
+    }
+
+    private void write(WriteBatch batch, Map.Entry<String, Receipt> e) {
+        DocumentReference ref = db.document(e.getKey());
+        Receipt r = e.getValue();
+        if (r.create) batch.set(ref, r.fields, SetOptions.merge());
+        else batch.update(ref, r.fields);
+    }
+
+    /** Commits everything queued so far. */
+    public void flush() {
+        handler.removeCallbacks(flushTask);
+        scheduled = false;
+        if (pending.isEmpty()) return;
+
+        List<Map.Entry<String, Receipt>> all = new ArrayList<>(pending.entrySet());
+        pending.clear();
+        for (int i = 0; i < all.size(); i += BATCH_LIMIT) {
+            List<Map.Entry<String, Receipt>> chunk =
+                    all.subList(i, Math.min(all.size(), i + BATCH_LIMIT));
+            WriteBatch batch = db.batch();
+            for (Map.Entry<String, Receipt> e : chunk) write(batch, e);
+            batch.commit().addOnFailureListener(err -> {
+                if (isNotFound(err)) {
+                    // Some target is gone; find out which one by writing singly
+                    for (Map.Entry<String, Receipt> e : chunk) commitSingle(e);
+                } else {
+                    requeue(chunk);
+                }
+            });
+        }
+    }
+
+    private void commitSingle(Map.Entry<String, Receipt> e) {
+        WriteBatch batch = db.batch();
+        write(batch, e);
+        batch.commit().addOnFailureListener(err -> {
+            if (!isNotFound(err)) requeue(Collections.singletonList(e));
+        });
+    }
+
+    /** Puts receipts back unless a newer receipt for the same doc is queued. */
+    private void requeue(List<Map.Entry<String, Receipt>> entries) {
+        for (Map.Entry<String, Receipt> e : entries) {
+            if (!pending.containsKey(e.getKey())) pending.put(e.getKey(), e.getValue());
+        }
+        if (!scheduled) {
+            scheduled = true;
+            handler.postDelayed(flushTask, FLUSH_WINDOW_MS * 5);
+        }
+    }
+
+    private static boolean isNotFound(Exception e) {
+        return e instanceof FirebaseFirestoreException
+                && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.NOT_FOUND;
+    }
+}
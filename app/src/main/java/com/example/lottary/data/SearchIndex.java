@@ -0,0 +1,253 @@
+package com.example.lottary.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * SearchIndex
+ *
+ * Purpose:
+ * Incremental in-memory inverted index used by list screens for keyword
+ * search, so a keystroke costs roughly the number of matches instead of a
+ * lower-case/contains scan over the whole list.
+ *
+ * How it works:
+ * - Each item gets an int slot; its text is split into lower-cased
+ *   letter/digit tokens and the slot is set in one BitSet per token.
+ * - Tokens live in a sorted map, so a query token matches every indexed
+ *   token it is a prefix of ("conc" finds "concert").
+ * - Multi-word queries intersect the per-token results (AND).
+ * - {@link #update(Collection)} takes a full listener snapshot and applies
+ *   it as a delta: unchanged items are skipped, changed ones re-tokenized,
+ *   missing ones dropped. {@link #put(Object)} / {@link #remove(String)}
+ *   apply single-item deltas.
+ *
+ * Outstanding Issues / Notes:
+ * - Not thread-safe; intended for use on the main thread like the screens
+ *   that own it.
+ * - Matches on word prefixes, not arbitrary substrings.
+ */
+public class SearchIndex<T> {
+
+    /** Extracts a string (id or searchable text) from an item. */
+    public interface Field<T> { String of(T item); }
+
+    private static final class Entry<T> {
+        T item;
+        String text;
+        String[] tokens;
+        int order;
+    }
+
+    private final Field<T> idField;
+    private final Field<T> textField;
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final List<Entry<T>> slots = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private final TreeMap<String, BitSet> postings = new TreeMap<>();
+    private final BitSet live = new BitSet();
+
+    private int nextOrder = 0;
+
+    public SearchIndex(@NonNull Field<T> idField, @NonNull Field<T> textField) {
+        this.idField = idField;
+        this.textField = textField;
+    }
+
+    // ---------- updates ----------
+
+    /**
+     * Replaces the indexed content with {@code items}, touching only the
+     * entries that were added, changed or removed. Items keep the snapshot's
+     * order for {@link #search(String)} results.
+     */
+    public void update(@NonNull Collection<? extends T> items) {
+        Set<String> seen = new HashSet<>();
+        int order = 0;
+        for (T item : items) {
+            String id = idField.of(item);
+            if (id == null || !seen.add(id)) continue;
+            putAt(id, item, order++);
+        }
+        nextOrder = order;
+
+        Iterator<Map.Entry<String, Integer>> it = slotById.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> kv = it.next();
+            if (!seen.contains(kv.getKey())) {
+                release(kv.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /** Adds or refreshes one item; new items are ordered after existing ones. */
+    public void put(@NonNull T item) {
+        String id = idField.of(item);
+        if (id == null) return;
+        Integer slot = slotById.get(id);
+        putAt(id, item, slot == null ? nextOrder++ : slots.get(slot).order);
+    }
+
+    /** Drops the item with the given id, if indexed. */
+    public void remove(@Nullable String id) {
+        if (id == null) return;
+        Integer slot = slotById.remove(id);
+        if (slot != null) release(slot);
+    }
+
+    public void clear() {
+        slotById.clear();
+        slots.clear();
+        freeSlots.clear();
+        postings.clear();
+        live.clear();
+        nextOrder = 0;
+    }
+
+    public int size() { return slotById.size(); }
+
+    // ---------- queries ----------
+
+    /**
+     * Returns the slots matching every token of {@code query} as a bitset,
+     * or null when the query has no tokens (i.e. everything matches).
+     */
+    @Nullable
+    public BitSet matchSlots(@Nullable String query) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0) return null;
+
+        BitSet result = null;
+        for (String term : terms) {
+            BitSet hits = new BitSet();
+            for (BitSet b : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                hits.or(b);
+            }
+            if (result == null) result = hits;
+            else result.and(hits);
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    /** Matching items in snapshot order; every item when the query is blank. */
+    @NonNull
+    public List<T> search(@Nullable String query) {
+        BitSet hits = matchSlots(query);
+        if (hits == null) hits = live;
+
+        List<Entry<T>> matched = new ArrayList<>(hits.cardinality());
+        for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+            matched.add(slots.get(i));
+        }
+        Collections.sort(matched, (a, b) -> Integer.compare(a.order, b.order));
+
+        List<T> out = new ArrayList<>(matched.size());
+        for (Entry<T> e : matched) out.add(e.item);
+        return out;
+    }
+
+    /** Ids of the matching items in snapshot order. */
+    @NonNull
+    public List<String> searchIds(@Nullable String query) {
+        List<T> items = search(query);
+        List<String> ids = new ArrayList<>(items.size());
+        for (T item : items) ids.add(idField.of(item));
+        return ids;
+    }
+
+    // ---------- internals ----------
+
+    private void putAt(String id, T item, int order) {
+        String text = textField.of(item);
+        if (text == null) text = "";
+
+        Integer slot = slotById.get(id);
+        Entry<T> e;
+        if (slot != null) {
+            e = slots.get(slot);
+            if (!text.equals(e.text)) {
+                unpost(slot, e.tokens);
+                e.text = text;
+                e.tokens = tokenize(text);
+                post(slot, e.tokens);
+            }
+        } else {
+            slot = freeSlots.isEmpty() ? slots.size() : freeSlots.pop();
+            e = new Entry<>();
+            e.text = text;
+            e.tokens = tokenize(text);
+            if (slot == slots.size()) slots.add(e);
+            else slots.set(slot, e);
+            slotById.put(id, slot);
+            live.set(slot);
+            post(slot, e.tokens);
+        }
+        e.item = item;
+        e.order = order;
+    }
+
+    private void release(int slot) {
+        Entry<T> e = slots.get(slot);
+        unpost(slot, e.tokens);
+        slots.set(slot, null);
+        live.clear(slot);
+        freeSlots.push(slot);
+    }
+
+    private void post(int slot, String[] tokens) {
+        for (String t : tokens) {
+            BitSet b = postings.get(t);
+            if (b == null) {
+                b = new BitSet();
+                postings.put(t, b);
+            }
+            b.set(slot);
+        }
+    }
+
+    private void unpost(int slot, String[] tokens) {
+        for (String t : tokens) {
+            BitSet b = postings.get(t);
+            if (b == null) continue;
+            b.clear(slot);
+            if (b.isEmpty()) postings.remove(t);
+        }
+    }
+
+    /** Lower-cased, de-duplicated letter/digit runs of {@code s}. */
+    @NonNull
+    static String[] tokenize(@Nullable String s) {
+        if (s == null || s.isEmpty()) return new String[0];
+        String lower = s.toLowerCase(Locale.ROOT);
+        Set<String> out = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                out.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return out.toArray(new String[0]);
+    }
+}
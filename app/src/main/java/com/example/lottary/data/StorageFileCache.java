@@ -0,0 +1,174 @@
+package com.example.lottary.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * StorageFileCache
+ *
+ * Purpose:
+ * On-device record of Firebase Storage files that have already been
+ * resolved (download URL plus metadata times), so listing a folder again
+ * only costs the list pages, not one getDownloadUrl / getMetadata round
+ * trip per file.
+ *
+ * Notes:
+ * - Plain SQLite keyed by the full Storage path; every method does disk
+ *   I/O and must run off the main thread (see {@link AppExecutors#background()}).
+ * - Storage names in this app are never overwritten in place, so a cached
+ *   row stays valid until the file disappears; {@link #retainOnly} drops
+ *   rows for files a complete listing no longer returned.
+ */
+public class StorageFileCache extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "storage_files.db";
+    private static final int DB_VERSION = 1;
+    private static final String T = "files";
+    /** Stays well under SQLite's bound-parameter limit. */
+    private static final int MAX_ARGS = 500;
+
+    private static StorageFileCache INSTANCE;
+
+    public static synchronized StorageFileCache get(@NonNull Context c) {
+        if (INSTANCE == null) INSTANCE = new StorageFileCache(c.getApplicationContext());
+        return INSTANCE;
+    }
+
+    /** One resolved Storage file. */
+    public static class Entry {
+        public final String path;
+        public final String folder;
+        public final String name;
+        public final String url;
+        public final long createdMs;
+        public final long updatedMs;
+        public final long sizeBytes;
+
+        public Entry(String path, String folder, String name, String url,
+                     long createdMs, long updatedMs, long sizeBytes) {
+            this.path = path;
+            this.folder = folder;
+            this.name = name;
+            this.url = url;
+            this.createdMs = createdMs;
+            this.updatedMs = updatedMs;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+
+    private StorageFileCache(Context c) {
+        super(c, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T + " ("
+                + "path TEXT PRIMARY KEY, "
+                + "folder TEXT NOT NULL, "
+                + "name TEXT NOT NULL, "
+                + "url TEXT NOT NULL, "
+                + "created_at INTEGER NOT NULL DEFAULT 0, "
+                + "updated_at INTEGER NOT NULL DEFAULT 0, "
+                + "size INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_folder ON " + T + " (folder)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // A cache: drop and let the next listing refill it
+        db.execSQL("DROP TABLE IF EXISTS " + T);
+        onCreate(db);
+    }
+
+    // ---------- writes ----------
+
+    /** Inserts or replaces the given entries in one transaction. */
+    @WorkerThread
+    public void put(@NonNull Collection<Entry> entries) {
+        if (entries.isEmpty()) return;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Entry e : entries) {
+                ContentValues v = new ContentValues();
+                v.put("path", e.path);
+                v.put("folder", e.folder);
+                v.put("name", e.name);
+                v.put("url", e.url);
+                v.put("created_at", e.createdMs);
+                v.put("updated_at", e.updatedMs);
+                v.put("size", e.sizeBytes);
+                db.insertWithOnConflict(T, null, v, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Removes rows of {@code folder} whose path is not in {@code present}. */
+    @WorkerThread
+    public void retainOnly(@NonNull String folder, @NonNull Set<String> present) {
+        SQLiteDatabase db = getWritableDatabase();
+        List<String> stale = new ArrayList<>();
+        try (Cursor c = db.query(T, new String[]{"path"}, "folder = ?",
+                new String[]{folder}, null, null, null)) {
+            while (c.moveToNext()) {
+                String path = c.getString(0);
+                if (!present.contains(path)) stale.add(path);
+            }
+        }
+        if (stale.isEmpty()) return;
+        db.beginTransaction();
+        try {
+            for (String path : stale) db.delete(T, "path = ?", new String[]{path});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Removes the row of one file, e.g. after it was deleted. */
+    @WorkerThread
+    public void remove(@NonNull String path) {
+        getWritableDatabase().delete(T, "path = ?", new String[]{path});
+    }
+
+    // ---------- reads ----------
+
+    /** Cached entries for those of {@code paths} that have one, keyed by path. */
+    @WorkerThread
+    @NonNull
+    public Map<String, Entry> lookup(@NonNull List<String> paths) {
+        Map<String, Entry> out = new HashMap<>();
+        SQLiteDatabase db = getReadableDatabase();
+        for (int from = 0; from < paths.size(); from += MAX_ARGS) {
+            List<String> chunk = paths.subList(from, Math.min(paths.size(), from + MAX_ARGS));
+            StringBuilder in = new StringBuilder();
+            for (int i = 0; i < chunk.size(); i++) in.append(i == 0 ? "?" : ", ?");
+            try (Cursor c = db.query(T,
+                    new String[]{"path", "folder", "name", "url", "created_at", "updated_at", "size"},
+                    "path IN (" + in + ")", chunk.toArray(new String[0]), null, null, null)) {
+                while (c.moveToNext()) {
+                    Entry e = new Entry(c.getString(0), c.getString(1), c.getString(2),
+                            c.getString(3), c.getLong(4), c.getLong(5), c.getLong(6));
+                    out.put(e.path, e);
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.lottary.data;
+
+/**
+ * Model holding the coordinates an entrant shared when creating their profile.
+ * Only users with numeric latitude/longitude fields produce one.
+ */
+public class UserLocation {
+
+    private final String userId;
+    private final String name;
+    private final double latitude;
+    private final double longitude;
+
+    public UserLocation(String userId, String name, double latitude, double longitude) {
+        this.userId = userId;
+        this.name = name == null ? "" : name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    // ---- Basic getters ----
+    public String getUserId() { return userId; }
+    public String getName() { return name; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+}
@@ -5,6 +5,7 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.util.Log;
 import android.widget.Button;
 import android.widget.EditText;
 
@@ -17,7 +18,12 @@ import com.example.lottary.R;
 import com.example.lottary.data.AdminRepository;
 import com.example.lottary.data.Event;
 import com.example.lottary.data.FirestoreEventRepository;
+import com.example.lottary.data.FirestoreNotificationRepository;
 import com.example.lottary.data.FirestoreUserRepository;
+import com.example.lottary.data.NotificationArchiveWorker;
+import com.example.lottary.data.NotificationArchiver;
+import com.example.lottary.data.PosterGcWorker;
+import com.example.lottary.data.PosterPreloader;
 import com.example.lottary.ui.admin.adapters.AdminEventsAdapter;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
@@ -29,6 +35,8 @@ import java.util.List;
  * Admin screen for managing all events.
  * Supports searching, filtering, real-time Firestore updates,
  * and bottom-navigation between admin modules.
+ * As the admin entry point it also schedules the daily notification compaction job
+ * and the weekly poster garbage collection, and starts the one-off notification field backfill.
  */
 public class AdminEventsActivity extends AppCompatActivity {
 
@@ -54,6 +62,14 @@ public class AdminEventsActivity extends AppCompatActivity {
 
         repo = AdminRepository.get();
 
+        // Admin devices run the daily archival of old notifications
+        NotificationArchiveWorker.schedule(this, NotificationArchiver.DEFAULT_MAX_AGE_DAYS);
+        // ... and the weekly sweep of orphaned poster files
+        PosterGcWorker.schedule(this);
+        // One-off: give legacy notifications the sentAt / updatedAt the paged queries and sync need
+        FirestoreNotificationRepository.get().backfillOnce()
+                .addOnFailureListener(e -> Log.w("AdminEvents", "notification backfill failed", e));
+
         RecyclerView rv = findViewById(R.id.admin_events_list);
         rv.setLayoutManager(new LinearLayoutManager(this));
         adapter = new AdminEventsAdapter((Event e) ->
@@ -66,6 +82,10 @@ public class AdminEventsActivity extends AppCompatActivity {
                     .show());
 
         rv.setAdapter(adapter);
+        // Fetch posters a few cards ahead of a fling
+        int posterPx = getResources().getDimensionPixelSize(R.dimen.event_card_poster);
+        PosterPreloader.attach(rv, adapter, PosterPreloader.EVENTS,
+                () -> posterPx, PosterPreloader.DEFAULT_ROWS_AHEAD);
 
         etSearch  = findViewById(R.id.search_events);
         btnSearch = findViewById(R.id.btn_search);
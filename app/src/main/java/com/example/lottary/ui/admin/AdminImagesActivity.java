@@ -1,7 +1,9 @@
 /**
  * Admin screen for managing all uploaded images.
- * Uses AdminRepository images (built from events.posterUrl),
- * supports real-time updates, searching, sorting.
+ * Uses AdminRepository images (built from events.posterUrl, plus the
+ * standalone uploads from FirestoreImageRepository#listenLatest, whose
+ * Storage fallback is cached on disk), supports real-time updates,
+ * searching, sorting.
  *
  * Tap an item to open ImageDetailActivity, where the admin
  * can preview and delete the image. Long-press delete is
@@ -36,12 +38,14 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottary.R;
 import com.example.lottary.data.AdminRepository;
+import com.example.lottary.data.FirestoreImageRepository;
 import com.example.lottary.data.Image;
+import com.example.lottary.data.PosterPreloader;
+import com.example.lottary.data.PosterUploader;
 import com.example.lottary.ui.admin.adapters.ImageGridAdapter;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.storage.FirebaseStorage;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -54,12 +58,14 @@ public class AdminImagesActivity extends AppCompatActivity {
     private Button btnSearch, btnSort;
     private ProgressBar progress;
 
+    // Images matching the query, as filtered by AdminRepository's title index
     private final List<Image> all = new ArrayList<>();
     private final List<Image> current = new ArrayList<>();
     private ImageGridAdapter adapter;
     private String query = "";
 
     private AdminRepository adminRepo;
+    private FirestoreImageRepository.ListenerHandle uploads;
 
     private enum SortMode {
         TIME_DESC,
@@ -105,6 +111,9 @@ public class AdminImagesActivity extends AppCompatActivity {
         // adapter.setOnItemLongClick(this::showDeleteDialog);
 
         rv.setAdapter(adapter);
+        // Fetch thumbnails a few grid rows ahead (3 cells per row), at the measured cell size
+        PosterPreloader.attach(rv, adapter, PosterPreloader.IMAGES,
+                adapter::getCellPx, PosterPreloader.DEFAULT_ROWS_AHEAD * 3);
 
         // Initial skeleton while waiting for data
         showSkeleton(8);
@@ -131,8 +140,7 @@ public class AdminImagesActivity extends AppCompatActivity {
             @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
             @Override
             public void afterTextChanged(Editable s) {
-                query = s.toString().trim();
-                render();
+                doSearch();
             }
         });
 
@@ -156,15 +164,16 @@ public class AdminImagesActivity extends AppCompatActivity {
                     .show();
         });
 
-        // Use AdminRepository images (rebuilt from events.posterUrl)
+        // Use AdminRepository images (rebuilt from events.posterUrl), already
+        // filtered by the repository's title index for the current query
         adminRepo = AdminRepository.get();
+        adminRepo.searchImages(etSearch.getText().toString().trim());
         adminRepo.images().observe(this, images -> {
             progress.setVisibility(View.GONE);
             all.clear();
             if (images != null) {
                 all.addAll(images);
             }
-            query = etSearch.getText().toString().trim();
             render();
         });
     }
@@ -175,6 +184,14 @@ public class AdminImagesActivity extends AppCompatActivity {
         progress.setVisibility(View.VISIBLE);
         // Start listening for events; repository will rebuild images list.
         adminRepo.startAdminEventsRealtime();
+        // Standalone uploads; the context lets the Storage fallback use its file cache
+        uploads = FirestoreImageRepository.get().listenLatest(this, (images, error) -> {
+            if (error != null) {
+                Log.w("AdminImages", "uploaded images failed", error);
+                return;
+            }
+            adminRepo.setUploadedImages(images);
+        });
     }
 
     @Override
@@ -182,29 +199,22 @@ public class AdminImagesActivity extends AppCompatActivity {
         super.onStop();
         // Stop Firestore listener when leaving this screen.
         adminRepo.stopAdminEventsRealtime();
+        if (uploads != null) {
+            uploads.remove();
+            uploads = null;
+        }
     }
 
-    // Unified search trigger
+    // Unified search trigger: the repository filters and posts new images
     private void doSearch() {
         query = etSearch.getText().toString().trim();
-        render();
+        adminRepo.searchImages(query);
     }
 
-    // Build current list from "all" using query + sortMode
+    // Build current list from the filtered "all" using sortMode
     private void render() {
         current.clear();
-
-        if (TextUtils.isEmpty(query)) {
-            current.addAll(all);
-        } else {
-            String q = query.toLowerCase();
-            for (Image img : all) {
-                String t = img.getTitle() == null ? "" : img.getTitle();
-                if (t.toLowerCase().contains(q)) {
-                    current.add(img);
-                }
-            }
-        }
+        current.addAll(all);
 
         if (sortMode == SortMode.TIME_DESC) {
             sortByLatest(current);
@@ -338,24 +348,17 @@ public class AdminImagesActivity extends AppCompatActivity {
         String eventId = img.getId();
         String url = img.getUrl();
 
-        // Try to delete Storage file; ignore failures.
+        // Try to delete the Storage files; shared (content-addressed) ones are kept,
+        // failures are ignored.
         if (!TextUtils.isEmpty(url)) {
-            try {
-                FirebaseStorage.getInstance()
-                        .getReferenceFromUrl(url)
-                        .delete()
-                        .addOnFailureListener(e ->
-                                Log.w("AdminImages", "Storage delete failed (ignored)", e));
-            } catch (Exception e) {
-                Log.w("AdminImages", "Bad storage url (ignored): " + url, e);
-            }
+            PosterUploader.deleteAll(url, img.getRenditions());
         }
 
-        // Clear posterUrl field in the corresponding event document.
+        // Clear posterUrl (and the rendition map) in the corresponding event document.
         FirebaseFirestore.getInstance()
                 .collection("events")
                 .document(eventId)
-                .update("posterUrl", "")
+                .update(PosterUploader.clearedEventFields())
                 .addOnSuccessListener(unused -> {
                     removeImageLocally(eventId);
                     Toast.makeText(this, "Image removed", Toast.LENGTH_SHORT).show();
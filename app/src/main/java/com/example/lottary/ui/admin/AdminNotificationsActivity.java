@@ -1,42 +1,209 @@
 /**
- * Admin screen for viewing system notification messages.
- * Displays a simple list backed by an ArrayAdapter.
+ * Admin screen for exploring the notification log of the whole system.
+ * Filters by event, organizer, type and sent date; results are read a page
+ * at a time (more on scroll) with indexed, cursor-paged queries and rendered
+ * through a diffing ListAdapter. Recipient names are resolved per page in
+ * batched lookups rather than one read per row.
  */
 package com.example.lottary.ui.admin;
 
 import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
 import android.widget.ArrayAdapter;
-import android.widget.ListView;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottary.R;
-import com.example.lottary.data.AdminRepository;
+import com.example.lottary.data.FirestoreNotificationRepository;
+import com.example.lottary.data.FirestoreUserRepository;
+import com.example.lottary.data.NotificationLog;
+import com.example.lottary.ui.admin.adapters.NotificationLogsAdapter;
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.firebase.firestore.DocumentSnapshot;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class AdminNotificationsActivity extends AppCompatActivity {
 
-    private final AdminRepository repo = AdminRepository.get();
-    private ArrayAdapter<String> adapter;
+    /** Spinner labels and the "type" values they filter on ("" = any); only types that are written. */
+    private static final String[] TYPE_LABELS = {"Any type", "Selected", "Info"};
+    private static final String[] TYPE_VALUES = {"", "selected", "info"};
+
+    private static final String TAG = "AdminNotifications";
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    private final FirestoreNotificationRepository repo = FirestoreNotificationRepository.get();
+    private final FirestoreUserRepository users = FirestoreUserRepository.get();
+
+    private NotificationLogsAdapter adapter;
+    private EditText etEventId, etOrganizerId, etFrom, etTo;
+    private Spinner spType;
+    private TextView tvEmpty;
+
+    // Paging state; logs accumulate across pages of the current filter
+    private FirestoreNotificationRepository.LogFilter filter = new FirestoreNotificationRepository.LogFilter();
+    private final List<NotificationLog> logs = new ArrayList<>();
+    private DocumentSnapshot cursor;
+    private boolean hasMore = true;
+    private boolean loadingMore;
+    /** Bumped on every new search so pages of an older filter are dropped. */
+    private int generation;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_admin_notifications);
 
-        ListView list = findViewById(R.id.admin_notifications_list);
+        MaterialToolbar top = findViewById(R.id.top_app_bar);
+        top.setNavigationOnClickListener(v -> finish());
+
+        etEventId = findViewById(R.id.filter_event_id);
+        etOrganizerId = findViewById(R.id.filter_organizer_id);
+        etFrom = findViewById(R.id.filter_from);
+        etTo = findViewById(R.id.filter_to);
+        tvEmpty = findViewById(R.id.admin_notifications_empty);
+
+        spType = findViewById(R.id.filter_type);
+        ArrayAdapter<String> types = new ArrayAdapter<>(
+                this, android.R.layout.simple_spinner_item, TYPE_LABELS);
+        types.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spType.setAdapter(types);
+
+        adapter = new NotificationLogsAdapter();
+        RecyclerView rv = findViewById(R.id.admin_notifications_list);
+        rv.setLayoutManager(new LinearLayoutManager(this));
+        rv.setAdapter(adapter);
+        rv.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView r, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) r.getLayoutManager();
+                if (dy > 0 && lm != null
+                        && lm.findLastVisibleItemPosition() >= logs.size() - LOAD_MORE_THRESHOLD) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        Button apply = findViewById(R.id.btn_apply_filter);
+        apply.setOnClickListener((View v) -> applyFilter());
+
+        // Unfiltered: newest notifications system-wide
+        restart(filter);
+    }
 
-        // Basic string adapter for notifications
-        adapter = new ArrayAdapter<>(
-                this,
-                android.R.layout.simple_list_item_1,
-                new ArrayList<>()
-        );
+    // ---------- filtering ----------
+
+    private void applyFilter() {
+        FirestoreNotificationRepository.LogFilter f = new FirestoreNotificationRepository.LogFilter();
+        f.eventId = etEventId.getText().toString().trim();
+        f.organizerId = etOrganizerId.getText().toString().trim();
+        f.type = TYPE_VALUES[Math.max(0, spType.getSelectedItemPosition())];
+        try {
+            f.fromMs = parseDay(etFrom.getText().toString());
+            long to = parseDay(etTo.getText().toString());
+            // "To" is inclusive: stop at the start of the following day
+            f.toMs = to == 0 ? 0 : to + TimeUnit.DAYS.toMillis(1);
+        } catch (ParseException e) {
+            Toast.makeText(this, "Dates must be yyyy-MM-dd", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (f.fromMs > 0 && f.toMs > 0 && f.fromMs >= f.toMs) {
+            Toast.makeText(this, "\"From\" must be before \"To\"", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        restart(f);
+    }
+
+    /** Start of the given local day in ms; 0 for a blank field. */
+    private static long parseDay(String s) throws ParseException {
+        s = s.trim();
+        if (s.isEmpty()) return 0;
+        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        fmt.setLenient(false);
+        return fmt.parse(s).getTime();
+    }
+
+    // ---------- paging ----------
+
+    private void restart(FirestoreNotificationRepository.LogFilter f) {
+        filter = f;
+        generation++;
+        logs.clear();
+        cursor = null;
+        hasMore = true;
+        loadingMore = false;
+        tvEmpty.setText(R.string.admin_notifications_empty);
+        tvEmpty.setVisibility(View.GONE);
+        adapter.submitList(new ArrayList<>());
+        loadNextPage();
+    }
+
+    // Fetch the page after the cursor, resolve its recipients, then submit the accumulated list
+    private void loadNextPage() {
+        if (!hasMore || loadingMore) return;
+        loadingMore = true;
+        final int gen = generation;
+        repo.queryLogs(filter, cursor, FirestoreNotificationRepository.PAGE_SIZE,
+                (page, last, more) -> {
+                    if (gen != generation) return;
+                    if (last != null) cursor = last;
+                    resolveNames(page, gen, more);
+                },
+                e -> {
+                    if (gen != generation || isFinishing()) return;
+                    Log.w(TAG, "queryLogs failed", e);
+                    loadingMore = false;
+                    hasMore = false;
+                    // Usually a missing composite index; its message holds the link to create it
+                    tvEmpty.setText(getString(R.string.admin_notifications_error, e.getMessage()));
+                    tvEmpty.setVisibility(View.VISIBLE);
+                });
+    }
 
-        list.setAdapter(adapter);
+    /**
+     * Fills in recipient names for one page with a single batched lookup
+     * (cached ids cost nothing), then appends the page.
+     */
+    private void resolveNames(List<NotificationLog> page, int gen, boolean more) {
+        Set<String> ids = new HashSet<>();
+        for (NotificationLog log : page) {
+            String name = log.getRecipientName();
+            if ((name == null || name.isEmpty()) && log.getRecipientId() != null) {
+                ids.add(log.getRecipientId());
+            }
+        }
 
-        // If needed later: observe Firestore notification logs here
-        // repo.notifications().observe(this, logs -> { ... });
+        users.getUserNames(ids, names -> {
+            if (gen != generation || isFinishing()) return;
+            for (NotificationLog log : page) {
+                String name = log.getRecipientName();
+                if (name == null || name.isEmpty()) {
+                    String resolved = names.get(log.getRecipientId());
+                    logs.add(log.withRecipientName(resolved == null ? "Unknown" : resolved));
+                } else {
+                    logs.add(log);
+                }
+            }
+            loadingMore = false;
+            hasMore = more;
+            adapter.submitList(new ArrayList<>(logs));
+            tvEmpty.setVisibility(logs.isEmpty() ? View.VISIBLE : View.GONE);
+        });
     }
 }
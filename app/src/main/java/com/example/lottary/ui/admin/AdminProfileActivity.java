@@ -11,15 +11,19 @@ import android.provider.Settings;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.lottary.R;
 import com.example.lottary.data.FirestoreUserRepository;
+import com.example.lottary.data.PosterGc;
 import com.example.lottary.data.User;
 import com.example.lottary.ui.browse.BrowseActivity;
+import com.google.android.gms.tasks.Task;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 
 public class AdminProfileActivity extends AppCompatActivity {
 
@@ -69,6 +73,15 @@ public class AdminProfileActivity extends AppCompatActivity {
             finish();
         });
 
+        // System-wide notification log explorer
+        Button btnLogs = findViewById(R.id.btnNotificationLogs);
+        btnLogs.setOnClickListener((View v) ->
+                startActivity(new Intent(this, AdminNotificationsActivity.class)));
+
+        // Orphaned poster cleanup: dry run first, delete on confirmation
+        Button btnPosterGc = findViewById(R.id.btnPosterGc);
+        btnPosterGc.setOnClickListener((View v) -> scanPosters());
+
         // Bottom navigation
         BottomNavigationView nav = findViewById(R.id.bottomNavAdmin);
         nav.setSelectedItemId(R.id.nav_admin_profile);
@@ -104,4 +117,46 @@ public class AdminProfileActivity extends AppCompatActivity {
             return false;
         });
     }
+
+    /**
+     * Dry run of the poster GC; its report offers to delete exactly the listed
+     * orphans (re-checked, see {@link PosterGc#deleteReported}).
+     */
+    private void scanPosters() {
+        Toast.makeText(this, "Scanning posters…", Toast.LENGTH_SHORT).show();
+        showPosterGc(new PosterGc().run(true, PosterGc.DEFAULT_GRACE_MS));
+    }
+
+    private void deleteReportedPosters(PosterGc.Report dryRun) {
+        Toast.makeText(this, "Removing orphaned posters…", Toast.LENGTH_SHORT).show();
+        showPosterGc(new PosterGc().deleteReported(dryRun));
+    }
+
+    /** Shows a GC report; null means another device holds the cleanup lease. */
+    private void showPosterGc(Task<PosterGc.Report> run) {
+        Button btn = findViewById(R.id.btnPosterGc);
+        btn.setEnabled(false);
+        run.addOnSuccessListener(this, report -> {
+                    btn.setEnabled(true);
+                    MaterialAlertDialogBuilder dialog =
+                            new MaterialAlertDialogBuilder(this, R.style.LotteryDialog_Admin)
+                                    .setTitle("Poster cleanup")
+                                    .setMessage(report == null
+                                            ? "Another cleanup is running. Try again later."
+                                            : report.summary());
+                    if (report != null && report.dryRun && !report.orphans.isEmpty()) {
+                        dialog.setNeutralButton(R.string.cancel, null)
+                                .setPositiveButton(R.string.delete,
+                                        (d, w) -> deleteReportedPosters(report));
+                    } else {
+                        dialog.setPositiveButton(android.R.string.ok, null);
+                    }
+                    dialog.show();
+                })
+                .addOnFailureListener(this, e -> {
+                    btn.setEnabled(true);
+                    Toast.makeText(this, "Poster cleanup failed: " + e.getMessage(),
+                            Toast.LENGTH_LONG).show();
+                });
+    }
 }
@@ -2,19 +2,25 @@
  * Admin screen for browsing, searching, and managing all registered users.
  * Supports realtime Firestore updates, search filtering, viewing logs,
  * deleting accounts, and switching between admin sections via bottom navigation.
+ * Search is debounced and runs as an indexed, paged Firestore query, so it
+ * reaches every user rather than only the realtime "recent" list.
  */
 package com.example.lottary.ui.admin;
 
 import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -22,10 +28,13 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottary.R;
 import com.example.lottary.data.FirestoreUserRepository;
+import com.example.lottary.data.SearchIndex;
 import com.example.lottary.data.User;
 import com.example.lottary.ui.admin.adapters.AdminUsersAdapter;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -40,6 +49,27 @@ public class AdminUsersActivity extends AppCompatActivity {
     private Button searchBtn;
 
     private List<User> fullList = new ArrayList<>();
+    // Name/email index over fullList, used for instant results while the server query is pending
+    private final SearchIndex<User> recentIndex =
+            new SearchIndex<>(User::getId, u -> u.getName() + " " + u.getEmail());
+
+    // Debounce window between the last keystroke and the search query
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    // Start loading the next page when this many rows remain below the fold
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::applySearch;
+
+    @Nullable private ListenerRegistration recentReg;
+
+    // Paged search state
+    private String activeKeyword = "";
+    private final List<User> searchResults = new ArrayList<>();
+    @Nullable private DocumentSnapshot searchCursor;
+    private boolean searchLoading = false;
+    // Bumped on every new search so late pages from an old keyword are dropped
+    private int searchGeneration = 0;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -81,25 +111,60 @@ public class AdminUsersActivity extends AppCompatActivity {
 
         rv.setAdapter(adapter);
 
-        // Realtime newest users list
-        repo.listenRecentCreated(users -> {
+        // Realtime newest users list (shown while the search box is empty)
+        recentReg = repo.listenRecentCreated(users -> {
             fullList = users;
-            adapter.submitList(new ArrayList<>(fullList));
+            recentIndex.update(fullList);
+            if (activeKeyword.isEmpty()) adapter.submitList(new ArrayList<>(fullList));
+        });
+
+        // Load further search pages as the admin scrolls
+        rv.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+                LinearLayoutManager lm = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (lm == null) return;
+                if (lm.findLastVisibleItemPosition() >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadNextSearchPage();
+                }
+            }
         });
 
         // Manual search button
-        searchBtn.setOnClickListener(v -> applySearch());
+        searchBtn.setOnClickListener(v -> {
+            handler.removeCallbacks(searchRunnable);
+            applySearch();
+        });
 
-        // Live search while typing
+        // Live search while typing (debounced)
         searchBar.addTextChangedListener(new TextWatcher() {
             @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
-            @Override public void onTextChanged(CharSequence s, int start, int before, int count) { applySearch(); }
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {
+                showLocalMatches(s.toString());
+                handler.removeCallbacks(searchRunnable);
+                handler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+            }
             @Override public void afterTextChanged(Editable s) {}
         });
 
+        // Users created before nameLower/emailLower existed are invisible to search
+        // until backfilled; the repository runs this once across all admin devices
+        repo.backfillSearchKeysOnce()
+                .addOnFailureListener(e -> Log.w("AdminUsers", "search key backfill failed", e));
         setupBottomNav();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(searchRunnable);
+        if (recentReg != null) {
+            recentReg.remove();
+            recentReg = null;
+        }
+    }
+
     // Bottom navigation for switching admin sections
     private void setupBottomNav() {
         BottomNavigationView nav = findViewById(R.id.bottom_nav);
@@ -138,22 +203,48 @@ public class AdminUsersActivity extends AppCompatActivity {
         });
     }
 
-    // Apply simple name-based search filter
+    // Filter the already-loaded recent users right away; the server page replaces it after the debounce
+    private void showLocalMatches(String text) {
+        if (FirestoreUserRepository.searchKey(text).isEmpty()) {
+            adapter.submitList(new ArrayList<>(fullList));
+            return;
+        }
+        adapter.submitList(recentIndex.search(text));
+    }
+
+    // Start a new indexed search for the current keyword
     private void applySearch() {
-        String keyword = searchBar.getText().toString().trim().toLowerCase();
+        String keyword = FirestoreUserRepository.searchKey(searchBar.getText().toString());
+        activeKeyword = keyword;
+        searchGeneration++;
+        searchResults.clear();
+        searchCursor = null;
+        searchLoading = false;
 
         if (keyword.isEmpty()) {
             adapter.submitList(new ArrayList<>(fullList));
             return;
         }
 
-        List<User> filtered = new ArrayList<>();
-        for (User u : fullList) {
-            if (u.getName().toLowerCase().contains(keyword)) {
-                filtered.add(u);
-            }
-        }
+        loadSearchPage();
+    }
+
+    // Fetch the page after the current cursor, if any remain
+    private void loadNextSearchPage() {
+        if (activeKeyword.isEmpty() || searchLoading || searchCursor == null) return;
+        loadSearchPage();
+    }
 
-        adapter.submitList(filtered);
+    private void loadSearchPage() {
+        final int generation = searchGeneration;
+        searchLoading = true;
+        repo.searchUsers(activeKeyword, searchCursor, FirestoreUserRepository.SEARCH_PAGE_SIZE,
+                (items, last) -> {
+                    if (generation != searchGeneration || isDestroyed()) return;
+                    searchLoading = false;
+                    searchCursor = last;
+                    searchResults.addAll(items);
+                    adapter.submitList(new ArrayList<>(searchResults));
+                });
     }
 }
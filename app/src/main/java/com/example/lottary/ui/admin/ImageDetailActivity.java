@@ -8,7 +8,8 @@
  * - Lets the admin delete the image from the `images` collection.
  * - When deleting, also finds all `events` whose `posterUrl` equals this
  *   image's URL and clears their `posterUrl` field (so no event still points
- *   to a non-existent poster).
+ *   to a non-existent poster). Files of standalone uploads (the "images"
+ *   Storage folder) are deleted as well.
  *
  * This activity only handles UI and Firestore side-effects for a single image.
  * It reports back to the calling Activity via RESULT_DELETED so the caller
@@ -19,6 +20,7 @@ package com.example.lottary.ui.admin;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.ImageButton;
 import android.widget.ImageView;
@@ -28,8 +30,10 @@ import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.bumptech.glide.Glide;
 import com.example.lottary.R;
+import com.example.lottary.data.FirestoreImageRepository;
+import com.example.lottary.data.PosterImages;
+import com.example.lottary.data.PosterUploader;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.firestore.DocumentReference;
@@ -37,9 +41,6 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.WriteBatch;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class ImageDetailActivity extends AppCompatActivity {
 
     // --------- Intent extras ---------
@@ -87,8 +88,7 @@ public class ImageDetailActivity extends AppCompatActivity {
         // ----- Preview image -----
         // Display the actual image content in the large preview area.
         ImageView iv = findViewById(R.id.ivPreview);
-        Glide.with(this)
-                .load(imageUrl == null || imageUrl.isEmpty() ? null : imageUrl)
+        PosterImages.load(iv, imageUrl)
                 .placeholder(R.drawable.placeholder_square)
                 .error(R.drawable.placeholder_square)
                 .into(iv);
@@ -153,10 +153,8 @@ public class ImageDetailActivity extends AppCompatActivity {
                     for (DocumentSnapshot doc : snap.getDocuments()) {
                         DocumentReference ref = doc.getReference();
 
-                        Map<String, Object> updates = new HashMap<>();
-                        updates.put("posterUrl", "");  // or null if you prefer
-
-                        batch.update(ref, updates);
+                        // posterUrl = "" and the rendition map removed
+                        batch.update(ref, PosterUploader.clearedEventFields());
                     }
 
                     // Step 3: delete the image document from the images collection.
@@ -167,6 +165,13 @@ public class ImageDetailActivity extends AppCompatActivity {
                     // Step 4: commit the batch (all updates + image delete).
                     batch.commit()
                             .addOnSuccessListener(unused -> {
+                                // A standalone upload's file goes too, with its cache row
+                                if (imageUrl != null && !imageUrl.isEmpty()) {
+                                    FirestoreImageRepository.get().deleteUploadedFile(this, imageUrl, err -> {
+                                        if (err != null) Log.w("ImageDetail", "file delete failed", err);
+                                    });
+                                }
+
                                 // Notify the user and the caller that deletion succeeded.
                                 Toast.makeText(this,
                                         R.string.image_deleted,
@@ -17,8 +17,8 @@ import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.bumptech.glide.Glide;
 import com.example.lottary.R;
+import com.example.lottary.data.PosterImages;
 import com.google.android.material.button.MaterialButton;
 
 // Firebase
@@ -81,7 +81,7 @@ public class ImageViewerActivity extends AppCompatActivity {
         tv.setText(imageTitle == null ? "" : imageTitle);
 
         // Load full-size preview
-        Glide.with(this).load(imageUrl)
+        PosterImages.load(iv, imageUrl)
                 .placeholder(android.R.drawable.ic_menu_report_image)
                 .into(iv);
 
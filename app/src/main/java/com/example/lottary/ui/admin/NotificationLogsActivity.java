@@ -1,25 +1,39 @@
 /**
  * Admin screen showing all notification logs for a specific user.
- * Loads logs from Firestore and supports navigation to other admin sections.
+ * Loads logs from Firestore a page at a time (more on scroll) and supports
+ * navigation to other admin sections.
  */
 package com.example.lottary.ui.admin;
 
 import android.content.Intent;
 import android.os.Bundle;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottary.R;
 import com.example.lottary.data.FirestoreNotificationRepository;
+import com.example.lottary.data.NotificationLog;
 import com.example.lottary.ui.admin.adapters.NotificationLogsAdapter;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class NotificationLogsActivity extends AppCompatActivity {
 
     private NotificationLogsAdapter adapter;
     private FirestoreNotificationRepository repo;
+    private String deviceID;
+
+    // Paging state; logs accumulate across pages
+    private final List<NotificationLog> logs = new ArrayList<>();
+    private DocumentSnapshot cursor;
+    private boolean hasMore = true;
+    private boolean loadingMore;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -27,7 +41,7 @@ public class NotificationLogsActivity extends AppCompatActivity {
         setContentView(R.layout.activity_notification_logs);
 
         // Retrieve user device ID
-        String deviceID = getIntent().getStringExtra("deviceID");
+        deviceID = getIntent().getStringExtra("deviceID");
 
         repo = FirestoreNotificationRepository.get();
         adapter = new NotificationLogsAdapter();
@@ -36,13 +50,36 @@ public class NotificationLogsActivity extends AppCompatActivity {
         RecyclerView rv = findViewById(R.id.recycler_logs);
         rv.setLayoutManager(new LinearLayoutManager(this));
         rv.setAdapter(adapter);
+        rv.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView r, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) r.getLayoutManager();
+                if (dy > 0 && lm != null && lm.findLastVisibleItemPosition() >= logs.size() - 5) {
+                    loadNextPage();
+                }
+            }
+        });
 
         // Load logs from Firestore
-        repo.getLogsForUser(deviceID, logs -> adapter.submitList(logs));
+        loadNextPage();
 
         setupBottomNav();
     }
 
+    // Fetch the page after the cursor and submit the accumulated list
+    private void loadNextPage() {
+        if (!hasMore || loadingMore) return;
+        loadingMore = true;
+        repo.getLogsForUser(deviceID, cursor, FirestoreNotificationRepository.PAGE_SIZE,
+                (page, last, more) -> {
+                    loadingMore = false;
+                    hasMore = more;
+                    if (last != null) cursor = last;
+                    logs.addAll(page);
+                    adapter.submitList(new ArrayList<>(logs));
+                });
+    }
+
     // Bottom navigation for admin sections
     private void setupBottomNav() {
         BottomNavigationView bottomNav = findViewById(R.id.bottom_nav);
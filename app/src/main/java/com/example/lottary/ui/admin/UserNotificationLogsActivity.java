@@ -18,6 +18,7 @@ import com.example.lottary.data.FirestoreNotificationRepository;
 import com.example.lottary.data.NotificationLog;
 import com.example.lottary.ui.admin.adapters.UserNotificationLogsAdapter;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.List;
 
@@ -27,7 +28,8 @@ import java.util.List;
  * <p>This activity is opened from {@link AdminUsersActivity} when
  * the admin taps the "view logs" button on a user row. It displays
  * all documents from the {@code notifications} collection whose
- * {@code recipientId} matches the selected user's device id.</p>
+ * {@code recipientId} matches the selected user's device id, newest
+ * first, one page at a time as the admin scrolls.</p>
  *
  * <p>The UI reuses the existing admin bottom navigation bar, but
  * the logical "section" is considered to be the Users tab.</p>
@@ -46,6 +48,14 @@ public class UserNotificationLogsActivity extends AppCompatActivity {
     private String userId;
     private String userName;
 
+    /** Load the next page when this close to the end of the list. */
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    private DocumentSnapshot cursor;
+    private boolean hasMore = true;
+    private boolean loadingMore;
+    private boolean archiveLoaded;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -103,6 +113,17 @@ public class UserNotificationLogsActivity extends AppCompatActivity {
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         adapter = new UserNotificationLogsAdapter();
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) return;
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                if (lm != null && lm.findLastVisibleItemPosition()
+                        >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadLogsForUser();
+                }
+            }
+        });
     }
 
     /**
@@ -161,15 +182,48 @@ public class UserNotificationLogsActivity extends AppCompatActivity {
     }
 
     /**
-     * Reads notifications for the selected user from Firestore via
-     * {@link FirestoreNotificationRepository} and submits them to the adapter.
+     * Reads the next page of notifications for the selected user from Firestore via
+     * {@link FirestoreNotificationRepository} and appends it to the adapter.
      */
     private void loadLogsForUser() {
+        if (!hasMore) {
+            loadArchive();
+            return;
+        }
+        if (loadingMore) return;
+        loadingMore = true;
+        final boolean first = cursor == null;
+        FirestoreNotificationRepository.get().getLogsForUser(
+                userId, cursor, FirestoreNotificationRepository.PAGE_SIZE,
+                new FirestoreNotificationRepository.LogsPageListener() {
+                    @Override
+                    public void onPage(@NonNull List<NotificationLog> list,
+                                       DocumentSnapshot last, boolean more) {
+                        loadingMore = false;
+                        hasMore = more;
+                        if (last != null) cursor = last;
+                        if (first) adapter.setItems(list);
+                        else adapter.appendItems(list);
+                        // Short history: go straight on to the archive
+                        if (!more && list.size() < FirestoreNotificationRepository.PAGE_SIZE) {
+                            loadArchive();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Once the live log is exhausted, appends the archived history (moved out of
+     * the notifications collection by the compaction job) below it.
+     */
+    private void loadArchive() {
+        if (archiveLoaded || loadingMore) return;
+        archiveLoaded = true;
         FirestoreNotificationRepository.get()
-                .getLogsForUser(userId, new FirestoreNotificationRepository.LogsListener() {
+                .getArchivedLogsForUser(userId, new FirestoreNotificationRepository.LogsListener() {
                     @Override
                     public void onChanged(List<NotificationLog> list) {
-                        adapter.setItems(list);
+                        adapter.appendItems(list);
                     }
                 });
     }
@@ -14,12 +14,9 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.lottary.R;
 import com.example.lottary.data.Event;
-import com.example.lottary.data.GlideApp;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
+import com.example.lottary.data.PosterImages;
 
 /**
  * Adapter used by the Admin Events screen to render a list of Event objects.
@@ -133,12 +130,10 @@ public class AdminEventsAdapter extends ListAdapter<Event, AdminEventsAdapter.Vi
             // Set poster if one is available
             String posterUrl = e.getImageUrl();
             if (!posterUrl.isEmpty()) {
-                // Reference to event poster in Cloud Storage
-                StorageReference storageReference = FirebaseStorage.getInstance().getReferenceFromUrl(posterUrl);
-                // Download directly from StorageReference using Glide
-                // (See MyAppGlideModule for Loader registration)
-                GlideApp.with(itemView.getContext())
-                        .load(storageReference)
+                // Smallest stored rendition that covers the 86dp thumbnail, decoded at that size
+                int size = eventImage.getResources().getDimensionPixelSize(R.dimen.event_card_poster);
+                PosterImages.thumbnail(eventImage, posterUrl, e.getPosterRenditions(), size)
+                        .placeholder(PosterImages.preview(eventImage.getResources(), e.getPosterPreview()))
                         .into(eventImage);
                 eventImage.setScaleType(ImageView.ScaleType.CENTER_CROP);
             } else eventImage.setScaleType(ImageView.ScaleType.CENTER_INSIDE);
@@ -162,8 +157,7 @@ public class AdminEventsAdapter extends ListAdapter<Event, AdminEventsAdapter.Vi
 
             ImageView preview = dialog.findViewById(R.id.preview_image);
 
-            Glide.with(itemView.getContext())
-                    .load(url)
+            PosterImages.load(preview, url)
                     .into(preview);
 
             dialog.getWindow().setBackgroundDrawableResource(android.R.color.transparent);
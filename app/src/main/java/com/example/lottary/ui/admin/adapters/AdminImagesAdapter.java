@@ -12,7 +12,7 @@ import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottary.R;
-import com.squareup.picasso.Picasso;
+import com.example.lottary.data.PosterImages;
 
 /**
  * RecyclerView adapter used on the Admin Images screen.
@@ -107,7 +107,8 @@ public class AdminImagesAdapter extends ListAdapter<String, AdminImagesAdapter.V
          * @param url the image URL to display
          */
         void bind(String url) {
-            Picasso.get().load(url).fit().centerCrop().into(img);
+            // Same Glide stack and cache keys as every other poster screen; sized at layout
+            PosterImages.request(img, url, null, 0, 0).centerCrop().into(img);
 
             img.setOnClickListener(v -> imageClick.onClick(url));
 
@@ -1,5 +1,6 @@
 package com.example.lottary.ui.admin.adapters;
 
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,12 +10,14 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.lottary.R;
+import com.example.lottary.data.GlideRequest;
 import com.example.lottary.data.Image;
+import com.example.lottary.data.PosterImages;
 
 /**
  * RecyclerView adapter used for presenting images in a uniform grid layout.
@@ -46,6 +49,8 @@ public class ImageGridAdapter extends ListAdapter<Image, ImageGridAdapter.VH> {
 
     private final OnItemClick click;
     @Nullable private OnItemLongClick longClick;
+    /** Cell edge in px, measured when the first holder is created. */
+    private int cellPx;
 
     /**
      * Creates a new ImageGridAdapter with the required click callback.
@@ -101,17 +106,37 @@ public class ImageGridAdapter extends ListAdapter<Image, ImageGridAdapter.VH> {
     public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View v = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_image_grid, parent, false);
+        if (cellPx == 0) cellPx = cellSize(parent);
         return new VH(v);
     }
 
+    /** Cell edge in px used for decoding; 0 until the first holder exists. */
+    public int getCellPx() {
+        return cellPx;
+    }
+
+    /** Square cell edge in px: the grid's width split across its spans. */
+    private static int cellSize(ViewGroup parent) {
+        int span = 1;
+        if (parent instanceof RecyclerView
+                && ((RecyclerView) parent).getLayoutManager() instanceof GridLayoutManager) {
+            span = ((GridLayoutManager) ((RecyclerView) parent).getLayoutManager()).getSpanCount();
+        }
+        int width = parent.getWidth() > 0
+                ? parent.getWidth()
+                : parent.getResources().getDisplayMetrics().widthPixels;
+        return Math.max(1, width / span);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull VH h, int position) {
         Image img = getItem(position);
 
-        Glide.with(h.image.getContext())
-                .load(img.getUrl() == null || img.getUrl().isEmpty() ? null : img.getUrl())
-                .placeholder(R.drawable.placeholder_square)
-                .centerCrop()
+        // Smallest stored rendition that covers the cell, decoded at cell size
+        // Inline preview from the event while it loads, the generic square otherwise
+        Drawable preview = PosterImages.preview(h.image.getResources(), img.getPreview());
+        GlideRequest<Drawable> req = PosterImages.thumbnail(h.image, img.getUrl(), img.getRenditions(), cellPx);
+        (preview != null ? req.placeholder(preview) : req.placeholder(R.drawable.placeholder_square))
                 .into(h.image);
 
         if (img.getTitle() != null && !img.getTitle().isEmpty()) {
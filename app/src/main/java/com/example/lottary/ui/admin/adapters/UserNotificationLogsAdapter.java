@@ -7,6 +7,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottary.R;
@@ -26,15 +28,34 @@ import java.util.List;
  *     <li>Message body preview</li>
  *     <li>A status icon (currently a generic info icon)</li>
  * </ul>
+ *
+ * <p>Updates go through {@link ListAdapter}, so appending a page or
+ * replacing the list only rebinds the rows that actually changed.
  */
 public class UserNotificationLogsAdapter
-        extends RecyclerView.Adapter<UserNotificationLogsAdapter.ViewHolder> {
+        extends ListAdapter<NotificationLog, UserNotificationLogsAdapter.ViewHolder> {
+
+    private static final DiffUtil.ItemCallback<NotificationLog> DIFF =
+            new DiffUtil.ItemCallback<NotificationLog>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull NotificationLog oldItem, @NonNull NotificationLog newItem) {
+                    return oldItem.getId().equals(newItem.getId());
+                }
 
-    /** Backing list; never {@code null}. */
+                @Override
+                public boolean areContentsTheSame(@NonNull NotificationLog oldItem, @NonNull NotificationLog newItem) {
+                    return oldItem.equals(newItem);
+                }
+            };
+
+    /**
+     * Everything submitted so far; never {@code null}. Kept separately because
+     * {@link #getCurrentList()} lags behind until the async diff finishes.
+     */
     private final List<NotificationLog> items = new ArrayList<>();
 
     public UserNotificationLogsAdapter() {
-        // No special init required.
+        super(DIFF);
     }
 
     /**
@@ -47,7 +68,18 @@ public class UserNotificationLogsAdapter
         if (newItems != null) {
             items.addAll(newItems);
         }
-        notifyDataSetChanged();
+        submitList(new ArrayList<>(items));
+    }
+
+    /**
+     * Appends the next page of logs below the current ones.
+     *
+     * @param more list of {@link NotificationLog} to append
+     */
+    public void appendItems(List<NotificationLog> more) {
+        if (more == null || more.isEmpty()) return;
+        items.addAll(more);
+        submitList(new ArrayList<>(items));
     }
 
     /**
@@ -85,7 +117,7 @@ public class UserNotificationLogsAdapter
             @NonNull UserNotificationLogsAdapter.ViewHolder holder,
             int position
     ) {
-        NotificationLog log = items.get(position);
+        NotificationLog log = getItem(position);
 
         // Title: usually the event title ("Coding Workshop").
         String title = log.getTitle();
@@ -108,9 +140,4 @@ public class UserNotificationLogsAdapter
         // Simple status icon; could later be customized by log type.
         holder.statusIcon.setImageResource(R.drawable.ic_info_black_24dp);
     }
-
-    @Override
-    public int getItemCount() {
-        return items.size();
-    }
 }
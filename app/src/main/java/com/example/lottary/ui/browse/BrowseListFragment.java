@@ -17,15 +17,21 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.lottary.R;
 import com.example.lottary.data.Event;
 import com.example.lottary.data.FirestoreEventRepository;
+import com.example.lottary.data.FirestoreUserRepository;
+import com.example.lottary.data.PosterPreloader;
+import com.example.lottary.data.SearchIndex;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -33,8 +39,11 @@ import java.util.Set;
  *
  * Role / Purpose:
  * - Displays a scrollable list of events for the Browse tab using a RecyclerView.
- * - Subscribes to Firestore for "recently created" events and keeps an in-memory list {@code all}.
- * - Applies keyword and structured filters (open only / geolocation / date range / types) on the UI thread.
+ * - Subscribes to Firestore for "recently created" events and keeps them in a {@link SearchIndex}.
+ * - Applies keyword and structured filters (open only / geolocation / date range / types) on the UI thread;
+ *   the keyword narrows the list through the index before the structured filters run.
+ * - With the "near me" option on, swaps the listener for a one-shot geohash proximity query
+ *   around the user's saved profile location; results arrive nearest first.
  * - Forwards item interactions (open details / join waitlist) to the appropriate destinations.
  *
  * Lifecycle:
@@ -54,12 +63,17 @@ public class BrowseListFragment extends Fragment implements BrowseEventsAdapter.
     /** Active Firestore subscription; must be removed in onDestroyView() to avoid leaks. */
     private ListenerRegistration reg;
 
-    /** Unfiltered in-memory snapshot from Firestore. */
-    private final List<Event> all = new ArrayList<>();
+    /** Unfiltered in-memory snapshot from Firestore, indexed by title/city/venue words. */
+    private final SearchIndex<Event> index = new SearchIndex<>(
+            Event::getId, e -> e.getTitle() + " " + e.getCity() + " " + e.getVenue());
     /** Current free-text query (lowercased/trimmed before use). */
     private String query = "";
     /** Current structured filter options provided by the filter sheet. */
     private FilterOptions options = new FilterOptions();
+    /** Distance in meters per event id while the nearby query is the source; empty otherwise. */
+    private final Map<String, Double> distances = new HashMap<>();
+    /** Bumped whenever the data source changes so late nearby results are ignored. */
+    private int sourceGeneration = 0;
 
     @Nullable
     @Override
@@ -79,29 +93,79 @@ public class BrowseListFragment extends Fragment implements BrowseEventsAdapter.
         recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
         adapter = new BrowseEventsAdapter(this);
         recyclerView.setAdapter(adapter);
+        // Fetch posters a few cards ahead of a fling
+        int posterPx = getResources().getDimensionPixelSize(R.dimen.event_card_poster);
+        PosterPreloader.attach(recyclerView, adapter, PosterPreloader.EVENTS,
+                () -> posterPx, PosterPreloader.DEFAULT_ROWS_AHEAD);
 
-        // Subscribe to Firestore for recently created events.
-        // The callback replaces the in-memory list and reapplies filters so the UI stays in sync.
-        reg = FirestoreEventRepository.get().listenRecentCreated(items -> {
-            all.clear();
-            all.addAll(items);
-            applyCurrentFilters();
-        });
+        attachSource();
     }
 
-    @Override
-    public void onDestroyView() {
-        super.onDestroyView();
-        // Detach Firestore listener and release view references to prevent memory leaks.
+    /**
+     * Load events from the source matching the current options: the realtime "recently created"
+     * listener, or a nearby query when {@link FilterOptions#getNearbyKm()} is set.
+     */
+    private void attachSource() {
+        detachSource();
+        final int generation = sourceGeneration;
+        final int nearbyKm = options == null ? 0 : options.getNearbyKm();
+
+        if (nearbyKm <= 0) {
+            // Subscribe to Firestore for recently created events.
+            // The callback applies the snapshot to the index and reapplies filters so the UI stays in sync.
+            reg = FirestoreEventRepository.get().listenRecentCreated(items -> {
+                index.update(items);
+                applyCurrentFilters();
+            });
+            return;
+        }
+
+        // Centre the search on the location saved with the user's profile.
+        FirestoreUserRepository.get().hasUser(deviceId()).get()
+                .addOnSuccessListener(doc -> {
+                    if (generation != sourceGeneration || adapter == null) return;
+                    Object la = doc == null ? null : doc.get("latitude");
+                    Object lo = doc == null ? null : doc.get("longitude");
+                    if (!(la instanceof Number) || !(lo instanceof Number)
+                            || (((Number) la).doubleValue() == 0d && ((Number) lo).doubleValue() == 0d)) {
+                        toast("Share your location in your profile to see nearby events.");
+                        index.clear();
+                        applyCurrentFilters();
+                        return;
+                    }
+                    FirestoreEventRepository.get().queryNearby(
+                            ((Number) la).doubleValue(), ((Number) lo).doubleValue(),
+                            nearbyKm * 1000d,
+                            (items, distanceMeters) -> {
+                                if (generation != sourceGeneration || adapter == null) return;
+                                distances.clear();
+                                distances.putAll(distanceMeters);
+                                index.update(items);
+                                applyCurrentFilters();
+                            });
+                })
+                .addOnFailureListener(e -> toast("Could not load your location."));
+    }
+
+    private void detachSource() {
+        sourceGeneration++;
+        distances.clear();
         if (reg != null) {
             reg.remove();
             reg = null;
         }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // Detach Firestore listener and release view references to prevent memory leaks.
+        detachSource();
         recyclerView = null;
         adapter = null;
     }
 
-    /** Apply a new free-text query; re-filters the in-memory list. */
+    /** Apply a new free-text query; re-filters the in-memory index. */
     public void applyFilter(@NonNull String q) {
         query = q.trim();
         applyCurrentFilters();
@@ -109,28 +173,27 @@ public class BrowseListFragment extends Fragment implements BrowseEventsAdapter.
 
     /** Apply new structured options (open/geo/date/types); re-filters the in-memory list. */
     public void applyOptions(@NonNull FilterOptions opts) {
+        int previousKm = options == null ? 0 : options.getNearbyKm();
         options = opts;
-        applyCurrentFilters();
+        if (opts.getNearbyKm() != previousKm && adapter != null) {
+            attachSource();
+        } else {
+            applyCurrentFilters();
+        }
     }
 
     /**
-     * Recompute the filtered result from {@link #all} using the current {@link #query} and
+     * Recompute the filtered result from {@link #index} using the current {@link #query} and
      * {@link #options}, then submit the resulting list to the adapter.
      */
     private void applyCurrentFilters() {
         if (adapter == null) return;
 
-        final String q = query.toLowerCase(Locale.ROOT);
         final FilterOptions fo = options == null ? new FilterOptions() : options;
 
         List<Event> out = new ArrayList<>();
-        for (Event e : all) {
-            // Keyword search (title/city/venue).
-            if (!q.isEmpty()) {
-                String blob = (e.getTitle() + " " + e.getCity() + " " + e.getVenue())
-                        .toLowerCase(Locale.ROOT);
-                if (!blob.contains(q)) continue;
-            }
+        // Keyword search (title/city/venue words) via the index; blank query yields everything.
+        for (Event e : index.search(query)) {
             // "Open only" filter: exclude full events.
             if (fo.isOpenOnly() && e.isFull()) continue;
 
@@ -149,10 +212,20 @@ public class BrowseListFragment extends Fragment implements BrowseEventsAdapter.
 
             out.add(e);
         }
+        // Nearby results: nearest first (the index keeps no order of its own).
+        if (!distances.isEmpty()) {
+            Collections.sort(out, (a, b) -> Double.compare(distanceOf(a), distanceOf(b)));
+        }
         // Submit the filtered snapshot to the adapter.
         adapter.submit(out);
     }
 
+    /** Distance of a nearby result; events without one sort last. */
+    private double distanceOf(Event e) {
+        Double d = distances.get(e.getId());
+        return d == null ? Double.MAX_VALUE : d;
+    }
+
     /**
      * Returns true if the event matches any of the selected types.
      * Strategy:
@@ -204,11 +277,7 @@ public class BrowseListFragment extends Fragment implements BrowseEventsAdapter.
     @Override
     public void onJoinClick(@NonNull Event e) {
         // Use a device-unique id as a stand-in "user id".
-        String uid = Settings.Secure.getString(
-                requireContext().getContentResolver(),
-                Settings.Secure.ANDROID_ID
-        );
-        if (uid == null || uid.isEmpty()) uid = "device_demo";
+        String uid = deviceId();
 
         // Write to Firestore and show feedback via Toast callbacks.
         FirebaseFirestore db = FirebaseFirestore.getInstance();
@@ -224,6 +293,16 @@ public class BrowseListFragment extends Fragment implements BrowseEventsAdapter.
         });
     }
 
+    /** Device ANDROID_ID used as the user id, with the usual demo fallback. */
+    @NonNull
+    private String deviceId() {
+        String uid = Settings.Secure.getString(
+                requireContext().getContentResolver(),
+                Settings.Secure.ANDROID_ID
+        );
+        return (uid == null || uid.isEmpty()) ? "device_demo" : uid;
+    }
+
     /** Safe Toast helper (no-op if the fragment is detached). */
     private void toast(String msg) {
         if (getContext() != null) {
@@ -19,10 +19,10 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.bumptech.glide.Glide;
 import com.example.lottary.R;
 import com.example.lottary.data.FirestoreEventRepository;
-import com.example.lottary.data.GlideApp;
+import com.example.lottary.data.PosterImages;
+import com.example.lottary.data.PosterUploader;
 import com.example.lottary.ui.profile.CreateProfileActivity;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.checkbox.MaterialCheckBox;
@@ -30,8 +30,6 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.text.DateFormat;
 import java.util.ArrayList;
@@ -234,12 +232,10 @@ public class EventDetailsActivity extends AppCompatActivity {
 
         String posterUrl = safe(d.getString("posterUrl"));
         if (!posterUrl.isEmpty()) {
-            // Reference to event poster in Cloud Storage
-            StorageReference storageReference = FirebaseStorage.getInstance().getReferenceFromUrl(posterUrl);
-            // Download directly from StorageReference using Glide
-            // (See MyAppGlideModule for Loader registration)
-            GlideApp.with(this)
-                    .load(storageReference)
+            // Streamed from the download URL (see PosterUrlLoader in LotteryGlideModule)
+            PosterImages.load(ivPoster, posterUrl)
+                    .placeholder(PosterImages.preview(getResources(),
+                            d.getString(PosterUploader.FIELD_PREVIEW)))
                     .into(ivPoster);
             ivPoster.setScaleType(ImageView.ScaleType.CENTER_CROP);
         } else ivPoster.setScaleType(ImageView.ScaleType.CENTER_INSIDE);
@@ -32,6 +32,7 @@ import java.util.Set;
  * - Presents a modal bottom sheet that lets the user configure filter options for the Browse list:
  *   - Open events only
  *   - Geolocation-enabled events only
+ *   - Events near the user's saved location
  *   - From / To date range (yyyy-MM-dd)
  *   - Coarse type buckets (Sports, Music, Arts & Crafts, Market)
  *
@@ -67,8 +68,8 @@ public class FilterBottomSheet extends BottomSheetDialogFragment {
 
     // --- Views bound from layout ---
 
-    /** "Open events only" switch. */
-    private Switch swOpenOnly, swGeo;
+    /** "Open events only" / "Geolocation only" / "Near me" switches. */
+    private Switch swOpenOnly, swGeo, swNearby;
     /** Type category checkboxes. */
     private CheckBox cbSports, cbMusic, cbArts, cbMarket;
     /** From/To date fields (formatted as yyyy-MM-dd). */
@@ -94,6 +95,8 @@ public class FilterBottomSheet extends BottomSheetDialogFragment {
         // View lookups.
         swOpenOnly = v.findViewById(R.id.sw_open_only);
         swGeo      = v.findViewById(R.id.sw_geo_only);
+        swNearby   = v.findViewById(R.id.sw_nearby);
+        swNearby.setText(getString(R.string.filter_nearby, FilterOptions.DEFAULT_NEARBY_KM));
         cbSports   = v.findViewById(R.id.cb_sports);
         cbMusic    = v.findViewById(R.id.cb_music);
         cbArts     = v.findViewById(R.id.cb_arts);
@@ -107,6 +110,7 @@ public class FilterBottomSheet extends BottomSheetDialogFragment {
         if (defaults != null) {
             swOpenOnly.setChecked(defaults.isOpenOnly());
             swGeo.setChecked(defaults.isGeoOnly());
+            swNearby.setChecked(defaults.getNearbyKm() > 0);
             if (defaults.getFromDateMs() > 0) etFrom.setText(DF.format(defaults.getFromDateMs()));
             if (defaults.getToDateMs() > 0)   etTo.setText(DF.format(defaults.getToDateMs()));
             if (defaults.getTypes().contains("Sports")) cbSports.setChecked(true);
@@ -157,7 +161,8 @@ public class FilterBottomSheet extends BottomSheetDialogFragment {
     private void applyAndDismiss() {
         FilterOptions out = new FilterOptions()
                 .setOpenOnly(swOpenOnly.isChecked())
-                .setGeoOnly(swGeo.isChecked());
+                .setGeoOnly(swGeo.isChecked())
+                .setNearbyKm(swNearby.isChecked() ? FilterOptions.DEFAULT_NEARBY_KM : 0);
 
         // Parse from/to dates if present.
         String sFrom = etFrom.getText().toString().trim();
@@ -20,6 +20,9 @@ import java.util.Set;
  * Invariants:
  * - {@code types} never null; getters return a defensive copy to avoid external mutation.
  *
+ * Distance Semantics:
+ * - {@code nearbyKm} is a radius around the user's saved location; 0 means "off".
+ *
  * Time Semantics:
  * - {@code fromDateMs} / {@code toDateMs} are UNIX epoch times in milliseconds.
  *   A value of 0 means "unset" (no bound).
@@ -38,6 +41,12 @@ public class FilterOptions implements Parcelable {
     private boolean openOnly;
     /** Show only events that have geolocation enabled. */
     private boolean geoOnly;
+
+    /** Radius used by the "Near me" switch in the filter sheet. */
+    public static final int DEFAULT_NEARBY_KM = 25;
+
+    /** Only show events within this many km of the user, nearest first; 0 = off. */
+    private int nearbyKm;
     /** Inclusive lower bound of event start time (epoch millis); 0 = no lower bound. */
     private long fromDateMs;
     /** Inclusive upper bound of event start time (epoch millis); 0 = no upper bound. */
@@ -49,6 +58,7 @@ public class FilterOptions implements Parcelable {
     public FilterOptions() {
         this.openOnly = false;
         this.geoOnly = false;
+        this.nearbyKm = 0;
         this.fromDateMs = 0L;
         this.toDateMs = 0L;
         this.types = new HashSet<>();
@@ -66,6 +76,11 @@ public class FilterOptions implements Parcelable {
         return geoOnly;
     }
 
+    /** @return "near me" radius in km; 0 means "off". */
+    public int getNearbyKm() {
+        return nearbyKm;
+    }
+
     /** @return epoch millis for the start-date lower bound; 0 means "unset". */
     public long getFromDateMs() {
         return fromDateMs;
@@ -99,6 +114,12 @@ public class FilterOptions implements Parcelable {
         return this;
     }
 
+    /** Set the "near me" radius in km; use 0 to turn it off. */
+    public FilterOptions setNearbyKm(int nearbyKm) {
+        this.nearbyKm = Math.max(0, nearbyKm);
+        return this;
+    }
+
     /** Set the inclusive start-date lower bound (epoch millis); use 0 to clear. */
     public FilterOptions setFromDateMs(long fromDateMs) {
         this.fromDateMs = fromDateMs;
@@ -129,6 +150,7 @@ public class FilterOptions implements Parcelable {
     protected FilterOptions(Parcel in) {
         openOnly = in.readByte() != 0;
         geoOnly = in.readByte() != 0;
+        nearbyKm = in.readInt();
         fromDateMs = in.readLong();
         toDateMs = in.readLong();
         List<String> list = new ArrayList<>();
@@ -163,6 +185,7 @@ public class FilterOptions implements Parcelable {
     public void writeToParcel(@NonNull Parcel dest, int flags) {
         dest.writeByte((byte) (openOnly ? 1 : 0));
         dest.writeByte((byte) (geoOnly ? 1 : 0));
+        dest.writeInt(nearbyKm);
         dest.writeLong(fromDateMs);
         dest.writeLong(toDateMs);
         dest.writeStringList(new ArrayList<>(types));
@@ -15,9 +15,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottary.R;
 import com.example.lottary.data.Event;
-import com.example.lottary.data.GlideApp;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
+import com.example.lottary.data.PosterImages;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -90,12 +88,10 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.ViewHolder
         // Set poster if one is available
         String posterUrl = e.getImageUrl();
         if (!posterUrl.isEmpty()) {
-            // Reference to event poster in Cloud Storage
-            StorageReference storageReference = FirebaseStorage.getInstance().getReferenceFromUrl(posterUrl);
-            // Download directly from StorageReference using Glide
-            // (See MyAppGlideModule for Loader registration)
-            GlideApp.with(h.root.getContext())
-                    .load(storageReference)
+            // Smallest stored rendition that covers the 86dp thumbnail, decoded at that size
+            int size = h.poster.getResources().getDimensionPixelSize(R.dimen.event_card_poster);
+            PosterImages.thumbnail(h.poster, posterUrl, e.getPosterRenditions(), size)
+                    .placeholder(PosterImages.preview(h.poster.getResources(), e.getPosterPreview()))
                     .into(h.poster);
             h.poster.setScaleType(ImageView.ScaleType.CENTER_CROP);
         } else h.poster.setScaleType(ImageView.ScaleType.CENTER_INSIDE);
@@ -17,6 +17,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.lottary.R;
 import com.example.lottary.data.Event;
 import com.example.lottary.data.FirestoreEventRepository;
+import com.example.lottary.data.SearchIndex;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.firestore.ListenerRegistration;
 
@@ -42,7 +43,8 @@ import java.util.Map;
  * Key Features:
  * - Consolidates event data into a pool to avoid duplication across categories.
  * - Computes UI status (“Open”, “Selected”, “Not Selected”) and button visibility dynamically.
- * - Supports live filtering and refresh triggered from the parent activity.
+ * - Supports live filtering (through a {@link SearchIndex} over the pool) and refresh
+ *   triggered from the parent activity.
  *
  * Outstanding Issues / Notes:
  * - No pagination or diffing; large datasets may affect performance.
@@ -55,6 +57,8 @@ public class JoinedEventsFragment extends Fragment {
     private EntrantEventsAdapter adapter;
 
     private final Map<String, Event> pool = new HashMap<>();
+    private final SearchIndex<Event> poolIndex = new SearchIndex<>(
+            Event::getId, e -> e.getTitle() + " " + e.getCity() + " " + e.getVenue());
     private final Map<String, Boolean> inWaiting   = new HashMap<>();
     private final Map<String, Boolean> inChosen    = new HashMap<>();
     private final Map<String, Boolean> inSigned    = new HashMap<>();
@@ -115,7 +119,7 @@ public class JoinedEventsFragment extends Fragment {
     }
 
     public void applyFilter(String q) {
-        currentQuery = q == null ? "" : q.trim().toLowerCase();
+        currentQuery = q == null ? "" : q.trim();
         render();
     }
 
@@ -167,21 +171,22 @@ public class JoinedEventsFragment extends Fragment {
     }
 
     private void addToPool(List<Event> list) {
-        for (Event e : list) pool.put(e.getId(), e);
+        for (Event e : list) {
+            pool.put(e.getId(), e);
+            poolIndex.put(e);
+        }
     }
 
     private void render() {
         if (!isAdded()) return;
         List<EntrantRow> rows = new ArrayList<>();
 
-        for (Map.Entry<String, Event> kv : pool.entrySet()) {
-            String id = kv.getKey();
-            Event e = kv.getValue();
+        Iterable<Event> candidates = TextUtils.isEmpty(currentQuery)
+                ? pool.values()
+                : poolIndex.search(currentQuery);
 
-            if (!TextUtils.isEmpty(currentQuery)) {
-                String hay = (e.getTitle() + " " + e.getCity() + " " + e.getVenue()).toLowerCase();
-                if (!hay.contains(currentQuery)) continue;
-            }
+        for (Event e : candidates) {
+            String id = e.getId();
 
             String status;
             if (inCancelled.containsKey(id)) {
@@ -0,0 +1,90 @@
+package com.example.lottary.ui.events;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.lottary.data.AppExecutors;
+import com.example.lottary.data.FirestoreEventRepository;
+import com.google.firebase.firestore.FieldValue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * VenueGeocoder
+ *
+ * Purpose:
+ * Resolves an event's "venue, city" text to coordinates and writes
+ * latitude/longitude (and, through FirestoreEventRepository, the geohash)
+ * onto the event so it shows up in "near me" browsing.
+ *
+ * Notes:
+ * - Geocoder blocks on network I/O, so it runs on the shared background
+ *   executor after the event has been saved; the caller does not wait.
+ * - Pass the application context: the calling screen usually finishes
+ *   before the lookup returns.
+ * - A cleared or unresolvable venue removes latitude/longitude/geohash, so
+ *   an edited event never keeps showing up at its old place.
+ */
+public final class VenueGeocoder {
+
+    private VenueGeocoder() {}
+
+    public static void attachToEvent(@NonNull Context appContext,
+                                     @NonNull String eventId,
+                                     String venue,
+                                     String city) {
+        String query = join(venue, city);
+        if (query.isEmpty()) {
+            clearLocation(eventId);
+            return;
+        }
+        if (!Geocoder.isPresent()) return;
+
+        AppExecutors.background().execute(() -> {
+            try {
+                Geocoder geocoder = new Geocoder(appContext, Locale.getDefault());
+                List<Address> found = geocoder.getFromLocationName(query, 1);
+                if (found == null || found.isEmpty()) {
+                    found = TextUtils.isEmpty(city) ? found : geocoder.getFromLocationName(city, 1);
+                }
+                if (found == null || found.isEmpty()) {
+                    Log.w("VenueGeocoder", "no match for " + eventId + ", clearing location");
+                    clearLocation(eventId);
+                    return;
+                }
+
+                Address a = found.get(0);
+                Map<String, Object> update = new HashMap<>();
+                update.put("latitude", a.getLatitude());
+                update.put("longitude", a.getLongitude());
+                FirestoreEventRepository.get().updateEvent(eventId, update);
+            } catch (Exception e) {
+                Log.w("VenueGeocoder", "geocoding failed for " + eventId, e);
+            }
+        });
+    }
+
+    private static void clearLocation(String eventId) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("latitude", FieldValue.delete());
+        update.put("longitude", FieldValue.delete());
+        update.put("geohash", FieldValue.delete());
+        FirestoreEventRepository.get().updateEvent(eventId, update);
+    }
+
+    private static String join(String venue, String city) {
+        String v = venue == null ? "" : venue.trim();
+        String c = city == null ? "" : city.trim();
+        if (v.isEmpty()) return c;
+        if (c.isEmpty()) return v;
+        return v + ", " + c;
+    }
+}
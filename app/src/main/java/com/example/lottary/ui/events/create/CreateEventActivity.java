@@ -2,6 +2,7 @@ package com.example.lottary.ui.events.create;
 
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
+import android.content.Context;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.Settings;
@@ -22,10 +23,10 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.lottary.R;
 import com.example.lottary.data.FirestoreEventRepository;
+import com.example.lottary.data.FirestoreImageRepository;
+import com.example.lottary.ui.events.VenueGeocoder;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.Timestamp;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -274,6 +275,10 @@ public class CreateEventActivity extends AppCompatActivity {
                 .addOnSuccessListener(ref -> {
                     String eventId = ref.getId();
 
+                    // Resolve venue/city to coordinates for "near me" browsing
+                    VenueGeocoder.attachToEvent(getApplicationContext(), eventId,
+                            (String) fields.get("venue"), (String) fields.get("city"));
+
                     if (posterUri != null) {
                         uploadPosterAndAttachToEvent(eventId);
                     }
@@ -296,28 +301,15 @@ public class CreateEventActivity extends AppCompatActivity {
     private void uploadPosterAndAttachToEvent(String eventId) {
         if (posterUri == null) return;
 
-        FirebaseStorage storage = FirebaseStorage.getInstance();
-        String fileName = eventId + "_" + System.currentTimeMillis() + ".jpg";
-        StorageReference ref = storage.getReference()
-                .child("event_posters")
-                .child(fileName);
-
-        ref.putFile(posterUri)
-                .addOnSuccessListener(taskSnapshot ->
-                        ref.getDownloadUrl()
-                                .addOnSuccessListener(uri -> {
-                                    Map<String, Object> update = new HashMap<>();
-                                    update.put("posterUrl", uri.toString());
-                                    FirestoreEventRepository.get().updateEvent(eventId, update);
-                                })
-                                .addOnFailureListener(e ->
-                                        Toast.makeText(this,
-                                                "Poster URL fetch failed: " + e.getMessage(),
-                                                Toast.LENGTH_SHORT).show()
-                                )
-                )
+        // Downscaled WebP renditions are encoded off the main thread; the
+        // activity finishes right away, so only the app context is used here.
+        Context app = getApplicationContext();
+        FirestoreImageRepository.get()
+                .uploadPoster(app, posterUri, eventId)
+                .addOnSuccessListener(update ->
+                        FirestoreEventRepository.get().updateEvent(eventId, update))
                 .addOnFailureListener(e ->
-                        Toast.makeText(this,
+                        Toast.makeText(app,
                                 "Poster upload failed: " + e.getMessage(),
                                 Toast.LENGTH_SHORT).show()
                 );
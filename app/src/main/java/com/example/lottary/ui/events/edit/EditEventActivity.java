@@ -3,6 +3,7 @@ package com.example.lottary.ui.events.edit;
 import android.app.DatePickerDialog;
 import android.app.ProgressDialog;
 import android.app.TimePickerDialog;
+import android.content.Context;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
@@ -18,12 +19,13 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.lottary.R;
 import com.example.lottary.data.FirestoreEventRepository;
-import com.example.lottary.data.GlideApp;
+import com.example.lottary.data.FirestoreImageRepository;
+import com.example.lottary.data.PosterImages;
+import com.example.lottary.data.PosterUploader;
+import com.example.lottary.ui.events.VenueGeocoder;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -61,6 +63,7 @@ public class EditEventActivity extends AppCompatActivity {
     public static final String EXTRA_EVENT_ID = "event_id";
 
     private String eventId, currentPosterUrl;
+    private Object currentRenditions;
 
     private MaterialToolbar topBar;
     private EditText etTitle, etDesc, etEventDate, etStart, etEnd, etRegStart, etRegEnd, etCapacity, etPrice, etVenue, etCity;
@@ -173,13 +176,10 @@ public class EditEventActivity extends AppCompatActivity {
         switchGeo.setChecked(Boolean.TRUE.equals(geo));
 
         currentPosterUrl = n(d.getString("posterUrl"));
+        currentRenditions = d.get(PosterUploader.FIELD_RENDITIONS);
         if (!currentPosterUrl.isEmpty()) {
-            // Reference to event poster in Cloud Storage
-            StorageReference storageReference = FirebaseStorage.getInstance().getReferenceFromUrl(currentPosterUrl);
-            // Download directly from StorageReference using Glide
-            // (See MyAppGlideModule for Loader registration)
-            GlideApp.with(getApplicationContext())
-                    .load(storageReference)
+            // Streamed from the download URL (see PosterUrlLoader in LotteryGlideModule)
+            PosterImages.load(imgPosterPreview, currentPosterUrl)
                     .into(imgPosterPreview);
         }
         else imgPosterPreview.setVisibility(View.GONE);
@@ -334,6 +334,8 @@ public class EditEventActivity extends AppCompatActivity {
                 .addOnSuccessListener(x -> {
                     handler.removeCallbacks(timeout);
                     if (pd.isShowing()) pd.dismiss();
+                    VenueGeocoder.attachToEvent(getApplicationContext(), eventId,
+                            (String) update.get("venue"), (String) update.get("city"));
                     if (posterUri != null) {
                         editPosterAndAttachToEvent(eventId);
                     }
@@ -357,32 +359,18 @@ public class EditEventActivity extends AppCompatActivity {
     private void editPosterAndAttachToEvent(String eventId) {
         if (posterUri == null) return;
 
-        FirebaseStorage storage = FirebaseStorage.getInstance();
-        String fileName = eventId + "_" + System.currentTimeMillis() + ".jpg";
-        StorageReference ref = storage.getReference()
-                .child("event_posters")
-                .child(fileName);
-
-        ref.putFile(posterUri)
-                .addOnSuccessListener(taskSnapshot ->
-                        ref.getDownloadUrl()
-                                .addOnSuccessListener(uri -> {
-                                    // delete old poster if available
-                                    // FirestoreImageRepository.get().deleteByStorageUrl(currentPosterUrl, );
-                                    if (!currentPosterUrl.isEmpty()) storage.getReferenceFromUrl(currentPosterUrl).delete();
-                                    // update poster URL in event
-                                    Map<String, Object> update = new HashMap<>();
-                                    update.put("posterUrl", uri.toString());
-                                    FirestoreEventRepository.get().updateEvent(eventId, update);
-                                })
-                                .addOnFailureListener(e ->
-                                        Toast.makeText(this,
-                                                "Poster URL fetch failed: " + e.getMessage(),
-                                                Toast.LENGTH_SHORT).show()
-                                )
-                )
+        // The activity finishes right away, so only the app context is used here
+        Context app = getApplicationContext();
+        String oldUrl = currentPosterUrl;
+        Object oldRenditions = currentRenditions;
+        FirestoreImageRepository.get()
+                .uploadPoster(app, posterUri, eventId)
+                .addOnSuccessListener(update ->
+                        FirestoreEventRepository.get().updateEvent(eventId, update)
+                                // drop the old poster files only once nothing points at them
+                                .addOnSuccessListener(x -> PosterUploader.deleteAll(oldUrl, oldRenditions)))
                 .addOnFailureListener(e ->
-                        Toast.makeText(this,
+                        Toast.makeText(app,
                                 "Poster upload failed: " + e.getMessage(),
                                 Toast.LENGTH_SHORT).show()
                 );
@@ -0,0 +1,158 @@
+package com.example.lottary.ui.events.manage;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.lottary.data.UserLocation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid-based clustering of entrant locations for {@link MapActivity}.
+ * <p>
+ * Points are projected to Web Mercator "world" coordinates (256 units wide at zoom 0, the
+ * same unit Google Maps uses for dp) and bucketed into square cells of {@link #CELL_DP} dp at
+ * the requested zoom. Each non-empty cell becomes one cluster at the mean position of its
+ * points. Results are cached per integer zoom level, so panning never re-clusters and zooming
+ * back to a visited level is free.
+ * <p>
+ * Instances are immutable snapshots of one roster load; {@link #clustersAt(int)} is safe to
+ * call from background threads.
+ */
+class EntrantClusterer {
+
+    /** Side of one grid cell on screen, in dp. */
+    static final int CELL_DP = 64;
+    /** At or beyond this zoom every entrant is shown individually. */
+    static final int MAX_CLUSTER_ZOOM = 18;
+
+    private static final double WORLD = 256d;
+
+    /** A group of entrants that fall into the same cell at one zoom level. */
+    static final class Cluster {
+        /** Stable key: the entrant id for single points, the zoom, cell and count otherwise. */
+        final String key;
+        final double latitude;
+        final double longitude;
+        final int count;
+        /** The only entrant of the cluster when {@code count == 1}. */
+        @Nullable final UserLocation single;
+
+        Cluster(String key, double latitude, double longitude, int count, @Nullable UserLocation single) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            this.single = single;
+        }
+    }
+
+    private final List<UserLocation> points;
+    private final double[] worldX;
+    private final double[] worldY;
+    private final Map<Integer, List<Cluster>> byZoom = new HashMap<>();
+
+    EntrantClusterer(@NonNull List<UserLocation> locations) {
+        this.points = new ArrayList<>(locations);
+        int n = points.size();
+        worldX = new double[n];
+        worldY = new double[n];
+        for (int i = 0; i < n; i++) {
+            UserLocation p = points.get(i);
+            worldX[i] = lngToWorldX(p.getLongitude());
+            worldY[i] = latToWorldY(p.getLatitude());
+        }
+    }
+
+    int size() { return points.size(); }
+
+    /** Clusters for the given zoom, computed once and then served from the cache. */
+    @NonNull
+    synchronized List<Cluster> clustersAt(int zoom) {
+        int z = Math.max(0, Math.min(zoom, MAX_CLUSTER_ZOOM));
+        List<Cluster> cached = byZoom.get(z);
+        if (cached == null) {
+            cached = Collections.unmodifiableList(compute(z));
+            byZoom.put(z, cached);
+        }
+        return cached;
+    }
+
+    private List<Cluster> compute(int zoom) {
+        List<Cluster> out = new ArrayList<>();
+        if (zoom >= MAX_CLUSTER_ZOOM) {
+            for (UserLocation p : points) out.add(singleton(p));
+            return out;
+        }
+
+        double cell = CELL_DP / Math.pow(2, zoom);
+        Map<Long, Cell> cells = new HashMap<>();
+        for (int i = 0; i < points.size(); i++) {
+            long key = cellKey((int) Math.floor(worldX[i] / cell), (int) Math.floor(worldY[i] / cell));
+            Cell c = cells.get(key);
+            if (c == null) {
+                c = new Cell(i);
+                cells.put(key, c);
+            }
+            c.sumX += worldX[i];
+            c.sumY += worldY[i];
+            c.count++;
+        }
+
+        for (Map.Entry<Long, Cell> kv : cells.entrySet()) {
+            Cell c = kv.getValue();
+            if (c.count == 1) {
+                out.add(singleton(points.get(c.first)));
+            } else {
+                out.add(new Cluster(
+                        "c:" + zoom + ":" + kv.getKey() + ":" + c.count,
+                        worldYToLat(c.sumY / c.count),
+                        worldXToLng(c.sumX / c.count),
+                        c.count,
+                        null));
+            }
+        }
+        return out;
+    }
+
+    /** Running totals for one grid cell. */
+    private static final class Cell {
+        final int first;
+        double sumX, sumY;
+        int count;
+        Cell(int first) { this.first = first; }
+    }
+
+    private static Cluster singleton(UserLocation p) {
+        return new Cluster("u:" + p.getUserId(), p.getLatitude(), p.getLongitude(), 1, p);
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    // ---------- Web Mercator projection ----------
+
+    static double lngToWorldX(double lng) {
+        return (lng + 180d) / 360d * WORLD;
+    }
+
+    static double latToWorldY(double lat) {
+        double clamped = Math.max(-85.05112878, Math.min(85.05112878, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * WORLD;
+    }
+
+    static double worldXToLng(double x) {
+        return x / WORLD * 360d - 180d;
+    }
+
+    static double worldYToLat(double y) {
+        double n = Math.PI - 2 * Math.PI * y / WORLD;
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.lottary.ui.events.manage;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import com.example.lottary.data.UserLocation;
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Density heatmap of entrant locations for {@link MapActivity}, drawn as one tile overlay
+ * instead of thousands of markers.
+ * <p>
+ * On construction (meant for a background thread) the points are projected to Web Mercator
+ * and sorted by x, so each tile only visits the points in its own column range. A tile is a
+ * {@link #GRID}x{@link #GRID} density grid, blurred and colourised, then scaled to 256px.
+ * Colours are normalised against the densest cell of the whole zoom level (computed once per
+ * zoom) so tiles line up without seams. Finished tiles are kept in an LRU cache keyed by
+ * zoom/x/y; Maps calls {@link #getTile(int, int, int)} on its own worker threads.
+ */
+class EntrantHeatmapTileProvider implements TileProvider {
+
+    private static final int TILE_PX = 256;
+    /** Density cells per tile side (4px per cell). */
+    private static final int GRID = 64;
+    /** Blur radius in cells; points this close to a tile edge still contribute to it. */
+    private static final int RADIUS = 3;
+    /** Cached tile bytes, roughly 2 MB. */
+    private static final int CACHE_BYTES = 2 * 1024 * 1024;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final float[] kernel = gaussianKernel(RADIUS);
+    private final Map<Integer, Double> maxByZoom = new HashMap<>();
+    private final LruCache<String, Tile> tiles = new LruCache<String, Tile>(CACHE_BYTES) {
+        @Override protected int sizeOf(String key, Tile tile) {
+            return tile.data == null ? 1 : tile.data.length;
+        }
+    };
+
+    EntrantHeatmapTileProvider(@NonNull List<UserLocation> locations) {
+        int n = locations.size();
+        double[][] pts = new double[n][];
+        for (int i = 0; i < n; i++) {
+            UserLocation p = locations.get(i);
+            pts[i] = new double[]{
+                    EntrantClusterer.lngToWorldX(p.getLongitude()),
+                    EntrantClusterer.latToWorldY(p.getLatitude())};
+        }
+        Arrays.sort(pts, (a, b) -> Double.compare(a[0], b[0]));
+        xs = new double[n];
+        ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = pts[i][0];
+            ys[i] = pts[i][1];
+        }
+    }
+
+    @Override
+    public Tile getTile(int x, int y, int zoom) {
+        String key = zoom + "/" + x + "/" + y;
+        Tile cached = tiles.get(key);
+        if (cached != null) return cached;
+
+        Tile tile = render(x, y, zoom);
+        tiles.put(key, tile);
+        return tile;
+    }
+
+    private Tile render(int tx, int ty, int zoom) {
+        double tileWorld = TILE_PX / Math.pow(2, zoom);
+        double cell = tileWorld / GRID;
+        double minX = tx * tileWorld - RADIUS * cell;
+        double maxX = (tx + 1) * tileWorld + RADIUS * cell;
+        double minY = ty * tileWorld - RADIUS * cell;
+        double maxY = (ty + 1) * tileWorld + RADIUS * cell;
+
+        // Raw counts over the tile plus a RADIUS-cell margin
+        int span = GRID + 2 * RADIUS;
+        float[] counts = new float[span * span];
+        boolean any = false;
+        for (int i = lowerBound(minX); i < xs.length && xs[i] < maxX; i++) {
+            if (ys[i] < minY || ys[i] >= maxY) continue;
+            int cx = (int) ((xs[i] - minX) / cell);
+            int cy = (int) ((ys[i] - minY) / cell);
+            if (cx < 0 || cy < 0 || cx >= span || cy >= span) continue;
+            counts[cy * span + cx] += 1f;
+            any = true;
+        }
+        if (!any) return NO_TILE;
+
+        float[] blurred = blur(counts, span);
+        double max = maxDensity(zoom);
+        double logMax = Math.log1p(max);
+
+        int[] pixels = new int[GRID * GRID];
+        for (int y = 0; y < GRID; y++) {
+            for (int x = 0; x < GRID; x++) {
+                float v = blurred[(y + RADIUS) * span + (x + RADIUS)];
+                pixels[y * GRID + x] = v <= 0f ? Color.TRANSPARENT
+                        : colorFor((float) Math.min(1d, Math.log1p(v) / logMax));
+            }
+        }
+
+        Bitmap small = Bitmap.createBitmap(pixels, GRID, GRID, Bitmap.Config.ARGB_8888);
+        Bitmap full = Bitmap.createScaledBitmap(small, TILE_PX, TILE_PX, true);
+        small.recycle();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        full.compress(Bitmap.CompressFormat.PNG, 100, out);
+        full.recycle();
+        return new Tile(TILE_PX, TILE_PX, out.toByteArray());
+    }
+
+    /** Densest blurred cell at this zoom, used to normalise every tile of the level. */
+    private synchronized double maxDensity(int zoom) {
+        Double cached = maxByZoom.get(zoom);
+        if (cached != null) return cached;
+
+        double cell = TILE_PX / Math.pow(2, zoom) / GRID;
+        Map<Long, Integer> grid = new HashMap<>();
+        int maxCount = 1;
+        for (int i = 0; i < xs.length; i++) {
+            long key = ((long) Math.floor(xs[i] / cell) << 32) | ((long) Math.floor(ys[i] / cell) & 0xffffffffL);
+            Integer c = grid.get(key);
+            int next = c == null ? 1 : c + 1;
+            grid.put(key, next);
+            if (next > maxCount) maxCount = next;
+        }
+        // A lone dense cell is spread by the kernel; its centre keeps this share
+        double max = Math.max(1d, maxCount * kernel[RADIUS] * kernel[RADIUS]);
+        maxByZoom.put(zoom, max);
+        return max;
+    }
+
+    private int lowerBound(double x) {
+        int lo = 0, hi = xs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[mid] < x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Separable gaussian blur of a span x span grid. */
+    private float[] blur(float[] src, int span) {
+        float[] tmp = new float[src.length];
+        float[] dst = new float[src.length];
+        for (int y = 0; y < span; y++) {
+            for (int x = 0; x < span; x++) {
+                float v = src[y * span + x];
+                if (v == 0f) continue;
+                for (int k = -RADIUS; k <= RADIUS; k++) {
+                    int xx = x + k;
+                    if (xx >= 0 && xx < span) tmp[y * span + xx] += v * kernel[k + RADIUS];
+                }
+            }
+        }
+        for (int y = 0; y < span; y++) {
+            for (int x = 0; x < span; x++) {
+                float v = tmp[y * span + x];
+                if (v == 0f) continue;
+                for (int k = -RADIUS; k <= RADIUS; k++) {
+                    int yy = y + k;
+                    if (yy >= 0 && yy < span) dst[yy * span + x] += v * kernel[k + RADIUS];
+                }
+            }
+        }
+        return dst;
+    }
+
+    private static float[] gaussianKernel(int radius) {
+        float[] k = new float[2 * radius + 1];
+        double sigma = radius / 2d;
+        double sum = 0;
+        for (int i = -radius; i <= radius; i++) {
+            k[i + radius] = (float) Math.exp(-(i * i) / (2 * sigma * sigma));
+            sum += k[i + radius];
+        }
+        for (int i = 0; i < k.length; i++) k[i] /= sum;
+        return k;
+    }
+
+    /** Teal → purple → red ramp, more opaque as density rises. */
+    private static int colorFor(float t) {
+        int alpha = (int) (80 + 150 * t);
+        int r, g, b;
+        if (t < 0.5f) {
+            float f = t / 0.5f;
+            r = lerp(0x27, 0x53, f);
+            g = lerp(0xA1, 0x2F, f);
+            b = lerp(0x8E, 0xA7, f);
+        } else {
+            float f = (t - 0.5f) / 0.5f;
+            r = lerp(0x53, 0xFD, f);
+            g = lerp(0x2F, 0x42, f);
+            b = lerp(0xA7, 0x21, f);
+        }
+        return Color.argb(alpha, r, g, b);
+    }
+
+    private static int lerp(int a, int b, float f) {
+        return (int) (a + (b - a) * f);
+    }
+}
@@ -104,6 +104,12 @@ public class ManageEventActivity extends AppCompatActivity {
 
         reg = FirestoreEventRepository.get().listenEvent(eventId, this::bindEventHeader);
 
+        // Finish notifying winners of a draw that was interrupted (e.g. the app was killed)
+        FirestoreEventRepository.get().resumePendingDraws(eventId)
+                .addOnSuccessListener(n -> {
+                    if (n != null && n > 0 && !isFinishing()) toast("Finished sending notifications for an earlier draw.");
+                });
+
         btnDraw.setOnClickListener(v -> {
             btnDraw.setEnabled(false);
             FirestoreEventRepository.get()
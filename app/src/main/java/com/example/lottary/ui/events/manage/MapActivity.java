@@ -1,30 +1,44 @@
 package com.example.lottary.ui.events.manage;
 
-import android.content.ActivityNotFoundException;
-import android.content.Intent;
-import android.net.Uri;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.os.Bundle;
-import android.util.Log;
+import android.util.LruCache;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
+
 import com.example.lottary.R;
+import com.example.lottary.data.AppExecutors;
 import com.example.lottary.data.FirestoreEventRepository;
 import com.example.lottary.data.FirestoreUserRepository;
+import com.example.lottary.data.UserLocation;
+import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.UiSettings;
+import com.google.android.gms.maps.model.BitmapDescriptor;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.TileOverlay;
+import com.google.android.gms.maps.model.TileOverlayOptions;
 import com.google.android.material.appbar.MaterialToolbar;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.OnMapReadyCallback;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
 // Copyright 2020 Google LLC
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
@@ -42,6 +56,14 @@ import java.util.List;
 /**
  * A {@link AppCompatActivity} subclass that let the organizer sees approximate locations of the people who joined the event
  * The code was adapted from Google LLC's Example on Display Maps and Custom Map Pins
+ * <p>
+ * Entrant coordinates are loaded with one batched read of the roster (no per-user
+ * listeners) and reloaded only when the organizer picks "Refresh locations".
+ * Locations are grouped by {@link EntrantClusterer} on a background thread and re-clustered
+ * when the camera goes idle; only clusters inside the visible region get a marker, and
+ * cluster markers are diffed by key so unchanged ones stay put. The "Heatmap" action swaps
+ * the markers for a single {@link EntrantHeatmapTileProvider} overlay. Everything is released
+ * in onDestroy.
  * @author Han Nguyen, Tianyi Zhang, Google LLC
  * @version 2.1
  * @see ManageEventActivity
@@ -53,6 +75,28 @@ public class MapActivity extends AppCompatActivity implements OnMapReadyCallback
 
     private String eventId;
 
+    /** Zoom levels added by tapping a cluster. */
+    private static final float CLUSTER_TAP_ZOOM_STEP = 2f;
+
+    @Nullable private GoogleMap map;
+    /** Clusterer for the latest roster load; null until locations arrive. */
+    @Nullable private EntrantClusterer clusterer;
+    /** Markers currently on the map, keyed by cluster key (entrant id for single entrants). */
+    private final Map<String, Marker> markers = new HashMap<>();
+    /** Bumped per load so a slow, superseded load cannot overwrite a newer one. */
+    private int loadGeneration = 0;
+    /** Bumped per re-cluster so only the latest camera position gets rendered. */
+    private int clusterGeneration = 0;
+    /** Latest loaded locations, kept to (re)build either view mode. */
+    private List<UserLocation> locations = new ArrayList<>();
+    /** True while the density heatmap replaces the markers. */
+    private boolean heatmapMode = false;
+    @Nullable private TileOverlay heatmapOverlay;
+    /** Bumped per heatmap build so a stale provider is never attached. */
+    private int heatmapGeneration = 0;
+    /** Count bubble icons, shared between clusters of the same size. */
+    private final LruCache<Integer, BitmapDescriptor> clusterIcons = new LruCache<>(64);
+
     @Override protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_map);
@@ -61,6 +105,19 @@ public class MapActivity extends AppCompatActivity implements OnMapReadyCallback
 
         MaterialToolbar top = findViewById(R.id.top_app_bar);
         top.setNavigationOnClickListener(v -> finish());
+        top.inflateMenu(R.menu.menu_map);
+        top.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() == R.id.action_refresh_map) {
+                loadLocations();
+                return true;
+            }
+            if (item.getItemId() == R.id.action_heatmap) {
+                item.setChecked(!item.isChecked());
+                setHeatmapMode(item.isChecked());
+                return true;
+            }
+            return false;
+        });
 
         // Create the map and add markers when map is ready
         SupportMapFragment mapFragment = (SupportMapFragment) getSupportFragmentManager().findFragmentById(R.id.map_view);
@@ -70,53 +127,231 @@ public class MapActivity extends AppCompatActivity implements OnMapReadyCallback
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Drop in-flight loads and release marker references
+        loadGeneration++;
+        clusterGeneration++;
+        heatmapGeneration++;
+        heatmapOverlay = null;
+        markers.clear();
+        clusterIcons.evictAll();
+        clusterer = null;
+        map = null;
+    }
+
     /**
      * Generate markers to display on the map when it's ready to be manipulated
      * @param googleMap the map that was loaded
      */
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
+        map = googleMap;
 
         // Enable zoom
         UiSettings mUiSettings = googleMap.getUiSettings();
         mUiSettings.setZoomControlsEnabled(true);
 
-        // Event venue marker (not needed)
-        // FirestoreEventRepository.get().listenEvent(eventId, this::getAllUserLocations);
-        // LatLng venueMarker = new LatLng(allLocationsList.get(0).getLat(), allLocationsList.get(0).getLng());
-        // googleMap.addMarker(new MarkerOptions()
-        // .position(venueMarker)
-        // .title(allLocationsList.get(0).getName()));
-        // googleMap.moveCamera(CameraUpdateFactory.newLatLng(venueMarker));
-
-        // Get all event IDs of users
-        FirestoreEventRepository.get().listenEvent(eventId, documentEvent -> {
-            if (documentEvent != null && documentEvent.exists()) {
-                List<String> allParticipants = toList(documentEvent.get("allParticipants"));
-                for (int i = 0; i < allParticipants.size(); i++) {
-                    // Get user info
-                    FirestoreUserRepository.get().listenUser(allParticipants.get(i), documentUser -> {
-                        Object la = documentUser.get("latitude");
-                        Object lo = documentUser.get("longitude");
-                        String name = documentUser.get("name").toString();
-
-                        // only make markers for users who have valid location coordinations
-                        // which means user who didn't provide location will be skipped
-                        if (la instanceof Number && lo instanceof Number) {
-                            Double entrantLat = ((Number) la).doubleValue();
-                            Double entrantLng = ((Number) lo).doubleValue();
-
-                            LatLng userMarker = new LatLng(entrantLat, entrantLng);
-                            googleMap.addMarker(new MarkerOptions()
-                                    .position(userMarker)
-                                    .title(name));
-                        }
+        // Re-cluster once the user stops panning/zooming
+        googleMap.setOnCameraIdleListener(this::recluster);
+
+        // Tapping a cluster zooms into it; single entrants show their name as usual
+        googleMap.setOnMarkerClickListener(marker -> {
+            Object tag = marker.getTag();
+            if (tag instanceof EntrantClusterer.Cluster
+                    && ((EntrantClusterer.Cluster) tag).count > 1 && map != null) {
+                map.animateCamera(CameraUpdateFactory.newLatLngZoom(
+                        marker.getPosition(),
+                        map.getCameraPosition().zoom + CLUSTER_TAP_ZOOM_STEP));
+                return true;
+            }
+            return false;
+        });
+
+        loadLocations();
+    }
+
+    /**
+     * Read the event's roster once, then fetch all entrant coordinates in batches
+     * and apply them to the map.
+     */
+    private void loadLocations() {
+        if (map == null || eventId == null) return;
+        final int generation = ++loadGeneration;
+
+        FirestoreEventRepository.get().getEvent(eventId)
+                .addOnSuccessListener(this, documentEvent -> {
+                    if (generation != loadGeneration) return;
+                    if (documentEvent == null || !documentEvent.exists()) return;
+                    List<String> allParticipants = toList(documentEvent.get("allParticipants"));
+                    FirestoreUserRepository.get().getUserLocations(allParticipants, locations -> {
+                        if (generation != loadGeneration || isDestroyed()) return;
+                        applyLocations(locations);
                     });
-                }
+                })
+                .addOnFailureListener(this, e ->
+                        Toast.makeText(this, "Failed to load entrant locations.", Toast.LENGTH_SHORT).show());
+    }
+
+    /**
+     * Replace the clusterer with one built from the latest locations and redraw.
+     * Users without valid coordinates never reach this point.
+     * @param locations latest coordinates of the entrants
+     */
+    private void applyLocations(@NonNull List<UserLocation> locations) {
+        if (map == null) return;
+        this.locations = locations;
+        clusterer = new EntrantClusterer(locations);
+        if (heatmapMode) showHeatmap();
+        else recluster();
+    }
+
+    /**
+     * Switch between clustered markers and the density heatmap.
+     * @param enabled true to show the heatmap
+     */
+    private void setHeatmapMode(boolean enabled) {
+        if (heatmapMode == enabled) return;
+        heatmapMode = enabled;
+        if (enabled) {
+            clusterGeneration++;
+            clearMarkers();
+            showHeatmap();
+        } else {
+            heatmapGeneration++;
+            if (heatmapOverlay != null) {
+                heatmapOverlay.remove();
+                heatmapOverlay = null;
+            }
+            recluster();
+        }
+    }
+
+    /** Build the heatmap provider in the background, then swap it in as the only overlay. */
+    private void showHeatmap() {
+        if (map == null) return;
+        final List<UserLocation> source = locations;
+        final int generation = ++heatmapGeneration;
+
+        AppExecutors.background().execute(() -> {
+            EntrantHeatmapTileProvider provider = new EntrantHeatmapTileProvider(source);
+            AppExecutors.main().execute(() -> {
+                if (generation != heatmapGeneration || map == null || isDestroyed()) return;
+                if (heatmapOverlay != null) heatmapOverlay.remove();
+                heatmapOverlay = map.addTileOverlay(new TileOverlayOptions()
+                        .tileProvider(provider)
+                        .fadeIn(true));
+            });
+        });
+    }
+
+    private void clearMarkers() {
+        for (Marker m : markers.values()) m.remove();
+        markers.clear();
+    }
+
+    /**
+     * Cluster for the current zoom on a background thread, keep the clusters inside the
+     * visible region and hand them to {@link #renderClusters(List)} on the main thread.
+     */
+    private void recluster() {
+        if (map == null || clusterer == null || heatmapMode) return;
+        final EntrantClusterer source = clusterer;
+        final int zoom = (int) map.getCameraPosition().zoom;
+        final LatLngBounds visible = map.getProjection().getVisibleRegion().latLngBounds;
+        final int generation = ++clusterGeneration;
+
+        AppExecutors.background().execute(() -> {
+            List<EntrantClusterer.Cluster> inView = new ArrayList<>();
+            for (EntrantClusterer.Cluster c : source.clustersAt(zoom)) {
+                if (visible.contains(new LatLng(c.latitude, c.longitude))) inView.add(c);
             }
+            AppExecutors.main().execute(() -> {
+                if (generation != clusterGeneration || isDestroyed()) return;
+                renderClusters(inView);
+            });
         });
     }
 
+    /**
+     * Diff the clusters against the markers on the map: keep markers whose key is still
+     * present, remove the rest and add markers for new clusters.
+     * @param clusters clusters to show
+     */
+    private void renderClusters(@NonNull List<EntrantClusterer.Cluster> clusters) {
+        if (map == null) return;
+
+        Set<String> keep = new HashSet<>();
+        for (EntrantClusterer.Cluster c : clusters) keep.add(c.key);
+
+        Iterator<Map.Entry<String, Marker>> it = markers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Marker> kv = it.next();
+            if (!keep.contains(kv.getKey())) {
+                kv.getValue().remove();
+                it.remove();
+            }
+        }
+
+        for (EntrantClusterer.Cluster c : clusters) {
+            Marker existing = markers.get(c.key);
+            LatLng position = new LatLng(c.latitude, c.longitude);
+            if (existing != null) {
+                // Same entrant may have moved or been renamed between refreshes
+                if (!existing.getPosition().equals(position)) existing.setPosition(position);
+                if (c.single != null) existing.setTitle(c.single.getName());
+                existing.setTag(c);
+                continue;
+            }
+
+            MarkerOptions options = new MarkerOptions().position(position);
+            if (c.single != null) {
+                options.title(c.single.getName());
+            } else {
+                options.title(c.count + " entrants")
+                        .icon(clusterIcon(c.count))
+                        .anchor(0.5f, 0.5f);
+            }
+            Marker m = map.addMarker(options);
+            if (m == null) continue;
+            m.setTag(c);
+            markers.put(c.key, m);
+        }
+    }
+
+    /**
+     * Round count bubble for a cluster marker, cached by count.
+     * @param count number of entrants in the cluster
+     * @return the marker icon
+     */
+    private BitmapDescriptor clusterIcon(int count) {
+        BitmapDescriptor cached = clusterIcons.get(count);
+        if (cached != null) return cached;
+
+        float density = getResources().getDisplayMetrics().density;
+        String label = count > 999 ? (count / 1000) + "k" : String.valueOf(count);
+        int size = (int) ((label.length() > 2 ? 44 : 36) * density);
+
+        Bitmap bmp = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bmp);
+
+        Paint fill = new Paint(Paint.ANTI_ALIAS_FLAG);
+        fill.setColor(ContextCompat.getColor(this, R.color.organizer_purple));
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, fill);
+
+        Paint text = new Paint(Paint.ANTI_ALIAS_FLAG);
+        text.setColor(ContextCompat.getColor(this, R.color.white));
+        text.setTextSize(14 * density);
+        text.setFakeBoldText(true);
+        text.setTextAlign(Paint.Align.CENTER);
+        float baseline = size / 2f - (text.descent() + text.ascent()) / 2f;
+        canvas.drawText(label, size / 2f, baseline, text);
+
+        BitmapDescriptor icon = BitmapDescriptorFactory.fromBitmap(bmp);
+        clusterIcons.put(count, icon);
+        return icon;
+    }
 
     /**
      * Convert a list of user IDs from the database into a Java String list
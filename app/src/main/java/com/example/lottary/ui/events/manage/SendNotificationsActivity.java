@@ -1,9 +1,13 @@
 package com.example.lottary.ui.events.manage;
 
+import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.text.TextUtils;
+import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
+import android.widget.ProgressBar;
 import android.widget.RadioGroup;
 import android.widget.Toast;
 
@@ -12,20 +16,38 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.lottary.R;
+import com.example.lottary.data.FirestoreNotificationRepository;
+import com.example.lottary.data.NotificationFanOut;
 import com.google.android.material.appbar.MaterialToolbar;
-import com.google.android.gms.tasks.Task;
-import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.UUID;
+
+/**
+ * Organizer screen for messaging one group of an event's entrants.
+ * <p>
+ * Sends go through {@link NotificationFanOut}: chunked batches, a few in flight, with retries.
+ * An unfinished send is remembered per event/group/message, so pressing Send again after a
+ * failure or after the app was killed resumes it with the same send id and sentAt instead of
+ * writing duplicates; already delivered notifications keep their place and read state.
+ * <p>
+ * By default every recipient gets their own notification document. With "broadcast"
+ * checked nothing is written per recipient: a single "broadcasts" document is stored and
+ * each entrant's inbox picks it up on read.
+ */
 public class SendNotificationsActivity extends AppCompatActivity {
 
+    private static final String P = "send_notifications";
+
+    private Button btnSend;
+    private ProgressBar progress;
+
     @Override protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_send_notifications);
@@ -38,7 +60,9 @@ public class SendNotificationsActivity extends AppCompatActivity {
 
         RadioGroup grp = findViewById(R.id.grp_target);
         EditText etMsg  = findViewById(R.id.et_message);
-        Button btnSend  = findViewById(R.id.btn_send);
+        CheckBox cbBroadcast = findViewById(R.id.cb_broadcast);
+        btnSend  = findViewById(R.id.btn_send);
+        progress = findViewById(R.id.progress_send);
 
         btnSend.setOnClickListener(v -> {
             String msg = etMsg.getText() == null ? "" : etMsg.getText().toString().trim();
@@ -49,48 +73,121 @@ public class SendNotificationsActivity extends AppCompatActivity {
             if (checked == R.id.rb_chosen) target = "chosen";
             else if (checked == R.id.rb_signed) target = "signedUp";
 
-            fanOutAndSend(eventId, target, msg);
+            if (cbBroadcast.isChecked()) broadcast(eventId, target, msg);
+            else fanOutAndSend(eventId, target, msg);
         });
     }
 
     private void fanOutAndSend(@NonNull String eventId, @NonNull String targetField, @NonNull String message) {
         FirebaseFirestore db = FirebaseFirestore.getInstance();
+        setSending(true);
 
         db.collection("events").document(eventId).get()
                 .addOnSuccessListener(d -> {
                     if (d == null || !d.exists()) {
+                        setSending(false);
                         Toast.makeText(this, "Event not found", Toast.LENGTH_LONG).show();
                         return;
                     }
                     String eventTitle = safe(d.getString("title"));
+                    String organizerId = safe(d.getString("creatorDeviceId"));
                     List<String> recipients = asStrList(d.get(targetField));
 
                     if (recipients.isEmpty()) {
+                        setSending(false);
                         Toast.makeText(this, "No recipients in " + targetField, Toast.LENGTH_SHORT).show();
                         return;
                     }
 
-                    List<Task<?>> writes = new ArrayList<>();
-                    for (String recipientId : recipients) {
+                    // Same event, group and text as an unfinished send -> resume it
+                    SharedPreferences sp = getSharedPreferences(P, MODE_PRIVATE);
+                    String pendingKey = "pending_" + eventId + "_" + targetField + "_"
+                            + Integer.toHexString(message.hashCode());
+                    String sentAtKey = pendingKey + "_sentAt";
+                    String sendId = sp.getString(pendingKey, null);
+                    long sentAtMs = sp.getLong(sentAtKey, 0L);
+                    if (sendId == null || sentAtMs == 0L) {
+                        sendId = UUID.randomUUID().toString();
+                        sentAtMs = System.currentTimeMillis();
+                        sp.edit().putString(pendingKey, sendId).putLong(sentAtKey, sentAtMs).apply();
+                    }
+                    // Chunk boundaries depend on the roster, so checkpoints are per roster;
+                    // writes merge, so re-covering recipients after a roster change is harmless
+                    String checkpointPrefix = sendId + "_";
+                    String checkpointKey = checkpointPrefix + Integer.toHexString(recipients.hashCode());
+
+                    Timestamp sentAt = new Timestamp(new Date(sentAtMs));
+                    NotificationFanOut fanOut = new NotificationFanOut(sendId, recipients, recipientId -> {
                         Map<String, Object> doc = new HashMap<>();
                         doc.put("recipientId", recipientId);      // ★ 每条消息一个收件人
                         doc.put("eventId", eventId);
                         doc.put("eventTitle", eventTitle);
+                        doc.put("organizerId", organizerId);
                         doc.put("message", message);
                         doc.put("targetGroup", targetField);       // waitingList / chosen / signedUp
                         doc.put("type", targetField.equals("chosen") ? "selected" : "info");
-                        doc.put("sentAt", Timestamp.now());
-                        doc.put("read", false);
-                        writes.add(db.collection("notifications").add(doc));
-                    }
-
-                    Tasks.whenAllComplete(writes).addOnCompleteListener(t -> {
-                        Toast.makeText(this, "Sent to " + recipients.size() + " recipients", Toast.LENGTH_SHORT).show();
-                        finish();
+                        doc.put("sentAt", sentAt);
+                        return doc;
                     });
+
+                    final String sid = sendId;
+                    fanOut.start(NotificationFanOut.prefsCheckpoint(this, checkpointKey), (written, total) -> {
+                                progress.setMax(total);
+                                progress.setProgress(written);
+                                btnSend.setText("Sending… " + written + "/" + total);
+                            })
+                            .addOnSuccessListener(n -> {
+                                sp.edit().remove(pendingKey).remove(sentAtKey).apply();
+                                NotificationFanOut.clearCheckpoints(this, checkpointPrefix);
+                                if (isFinishing() || isDestroyed()) return;
+                                Toast.makeText(this, "Sent to " + n + " recipients", Toast.LENGTH_SHORT).show();
+                                finish();
+                            })
+                            .addOnFailureListener(e -> {
+                                if (isFinishing() || isDestroyed()) return;
+                                setSending(false);
+                                Toast.makeText(this, e.getMessage() + ". Tap Send to retry the rest.",
+                                        Toast.LENGTH_LONG).show();
+                            });
                 })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this, "Failed: " + e.getMessage(), Toast.LENGTH_LONG).show());
+                .addOnFailureListener(e -> {
+                    setSending(false);
+                    Toast.makeText(this, "Failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                });
+    }
+
+    /** Stores the message once for the whole group; recipients read it from "broadcasts". */
+    private void broadcast(@NonNull String eventId, @NonNull String targetField, @NonNull String message) {
+        setSending(true);
+        FirebaseFirestore.getInstance().collection("events").document(eventId).get()
+                .continueWithTask(t -> {
+                    if (!t.isSuccessful() || t.getResult() == null || !t.getResult().exists()) {
+                        throw new IllegalStateException("Event not found");
+                    }
+                    return FirestoreNotificationRepository.get().sendBroadcast(
+                            eventId,
+                            safe(t.getResult().getString("title")),
+                            safe(t.getResult().getString("creatorDeviceId")),
+                            targetField,
+                            targetField.equals("chosen") ? "selected" : "info",
+                            message);
+                })
+                .addOnSuccessListener(ref -> {
+                    if (isFinishing() || isDestroyed()) return;
+                    Toast.makeText(this, "Broadcast sent to " + targetField, Toast.LENGTH_SHORT).show();
+                    finish();
+                })
+                .addOnFailureListener(e -> {
+                    if (isFinishing() || isDestroyed()) return;
+                    setSending(false);
+                    Toast.makeText(this, "Failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                });
+    }
+
+    private void setSending(boolean sending) {
+        btnSend.setEnabled(!sending);
+        progress.setVisibility(sending ? View.VISIBLE : View.GONE);
+        if (!sending) btnSend.setText(R.string.send_notification);
     }
 
     private static List<String> asStrList(Object o) {
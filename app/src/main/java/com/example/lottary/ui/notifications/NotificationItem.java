@@ -38,6 +38,9 @@ public class NotificationItem {
 
     public final String organizerId;
 
+    /** Whether the user has already read / acted on this notification. */
+    public final boolean read;
+
     /**
      * Creates a notification with basic fields.
      *
@@ -68,6 +71,17 @@ public class NotificationItem {
     public NotificationItem(String id, String eventId, String targetGroup,
                             String type, String message, long sentAtMs,
                             String eventTitle, String organizerId) {
+        this(id, eventId, targetGroup, type, message, sentAtMs, eventTitle, organizerId, false);
+    }
+
+    /**
+     * Creates a notification with display metadata and read state.
+     *
+     * @param read whether the user has already read this notification
+     */
+    public NotificationItem(String id, String eventId, String targetGroup,
+                            String type, String message, long sentAtMs,
+                            String eventTitle, String organizerId, boolean read) {
         this.id = id == null ? "" : id;
         this.eventId = eventId == null ? "" : eventId;
         this.targetGroup = targetGroup == null ? "" : targetGroup;
@@ -76,5 +90,6 @@ public class NotificationItem {
         this.sentAtMs = sentAtMs;
         this.eventTitle = eventTitle == null ? "" : eventTitle;
         this.organizerId = organizerId == null ? "" : organizerId;
+        this.read = read;
     }
 }
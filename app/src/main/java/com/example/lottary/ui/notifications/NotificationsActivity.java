@@ -11,7 +11,11 @@
  *   are introduced, notifications should be keyed by user id instead.
  * - Error handling is limited to Toast messages and does not surface all
  *   failure cases to the user.
- * - Client-side sorting assumes that "sentAt" is present and consistent.
+ * - The inbox renders from the on-device NotificationStore and only pulls
+ *   documents changed since the last sync (NotificationSync); legacy documents
+ *   are synced once an admin device has backfilled their "sentAt".
+ * - Broadcasts (one shared document per event group) are merged in after
+ *   a one-shot load; they refresh on the next onStart, not live.
  */
 
 
@@ -36,7 +40,13 @@ import androidx.recyclerview.widget.RecyclerView;
 
 
 import com.example.lottary.R;
+import com.example.lottary.data.AppExecutors;
 import com.example.lottary.data.FirestoreEventRepository;
+import com.example.lottary.data.FirestoreNotificationRepository;
+import com.example.lottary.data.NotificationStore;
+import com.example.lottary.data.NotificationSync;
+import com.example.lottary.data.NotificationSyncWorker;
+import com.example.lottary.data.ReceiptWriter;
 import com.example.lottary.ui.browse.BrowseActivity;
 import com.example.lottary.ui.events.MyEventsActivity;
 import com.example.lottary.ui.profile.MyProfileActivity;
@@ -45,24 +55,21 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.snackbar.Snackbar; // << added
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.QuerySnapshot;
-import com.google.firebase.firestore.SetOptions;
 
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 
 /**
  * Activity that shows a list of notifications for the current device.
  *
- * It subscribes to Firestore updates, filters results according to
+ * It renders the local store, delta-syncs it with Firestore, filters results according to
  * {@link NotifyPrefs}, and forwards user actions (sign up / decline /
  * opt-out) to the appropriate repositories.
  */
@@ -76,10 +83,29 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
     private String deviceId;
 
 
-    /** Latest raw notifications fetched from Firestore before opt-out filtering. */
+    /** Item id prefix marking rows that come from the "broadcasts" collection. */
+    private static final String BROADCAST_PREFIX = "broadcast:";
+
+
+    /** Newest notifications read from the local store before opt-out filtering. */
     private final List<NotificationItem> latest = new ArrayList<>();
 
 
+    /** Broadcasts addressed to this device, merged with {@link #latest} on display. */
+    private final List<NotificationItem> broadcasts = new ArrayList<>();
+
+
+    /** Load the next page when this close to the end of the list. */
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+
+    /** Rows read from the local store; grows by a page when scrolling near the end. */
+    private int visibleLimit = FirestoreNotificationRepository.PAGE_SIZE;
+    private boolean hasMore;
+    /** Bumped on start/stop so callbacks from an earlier session are dropped. */
+    private int generation = 0;
+
+
     /**
      * Sets up the toolbar, RecyclerView, adapter, and bottom navigation.
      */
@@ -112,10 +138,25 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
         recycler.setLayoutManager(new LinearLayoutManager(this));
         adapter = new NotificationsAdapter(this);
         recycler.setAdapter(adapter);
+        recycler.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) return;
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                if (lm != null && lm.findLastVisibleItemPosition()
+                        >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadOlder();
+                }
+            }
+        });
 
 
         // Configure bottom navigation.
         wireBottomNav();
+
+
+        // Keep the local inbox fresh in the background.
+        NotificationSyncWorker.schedule(this);
     }
 
 
@@ -135,6 +176,9 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
     @Override
     protected void onStop() {
         super.onStop();
+        generation++;
+        // Don't leave receipts waiting in the coalescing window.
+        ReceiptWriter.get().flush();
         if (reg != null) {
             reg.remove();
             reg = null;
@@ -143,15 +187,12 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
 
 
     /**
-     * Subscribes to the "notifications" collection for this device and keeps
-     * the {@link #latest} list in sync.
-     *
-     * Uses {@code whereEqualTo("recipientId", deviceId)} and client side
-     * sorting to avoid composite index requirements.
+     * Shows the locally stored notifications right away, then pulls only documents changed
+     * since the last sync and keeps listening from that point on. Scrolling further back
+     * reads more rows from the store ({@link #loadOlder()}).
      */
     private void startListening() {
-        loading.setVisibility(View.VISIBLE);
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        final int gen = ++generation;
 
 
         // Remove any previous listener to avoid leaking registrations.
@@ -161,73 +202,96 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
         }
 
 
-        reg = db.collection("notifications")
-                .whereEqualTo("recipientId", deviceId)
-                .limit(200)
-                .addSnapshotListener((snap, err) -> {
-                    loading.setVisibility(View.GONE);
+        if (latest.isEmpty()) loading.setVisibility(View.VISIBLE);
+        renderFromStore(gen, null);
 
 
-                    if (err != null) {
-                        // On error, show empty state and surface a message.
-                        adapter.submit(new ArrayList<>());
-                        Toast.makeText(
-                                this,
-                                "Load notifications failed: " + err.getMessage(),
-                                Toast.LENGTH_LONG
-                        ).show();
-                        return;
-                    }
-                    if (snap == null) {
-                        adapter.submit(new ArrayList<>());
-                        return;
-                    }
+        NotificationSync.syncNow(this, deviceId).addOnCompleteListener(t -> {
+            if (gen != generation) return;
+            loading.setVisibility(View.GONE);
+            if (!t.isSuccessful() && t.getException() != null) {
+                // Keep showing local data and surface a message.
+                Toast.makeText(
+                        this,
+                        "Load notifications failed: " + t.getException().getMessage(),
+                        Toast.LENGTH_LONG
+                ).show();
+            }
 
 
-                    // Map raw documents into model objects.
-                    latest.clear();
-                    latest.addAll(mapList(snap));
+            // Live updates only for documents changed since the sync mark.
+            renderFromStore(gen, () ->
+                    reg = NotificationSync.listen(this, deviceId, () -> renderFromStore(gen, null)));
+        });
 
 
-                    // Sort newest first based on sentAtMs.
-                    Collections.sort(latest, new Comparator<NotificationItem>() {
-                        @Override
-                        public int compare(NotificationItem a, NotificationItem b) {
-                            return Long.compare(b.sentAtMs, a.sentAtMs);
-                        }
-                    });
+        // Broadcasts are fanned out on read: fetch the ones for this device's events.
+        FirestoreNotificationRepository.get().loadBroadcastsFor(deviceId, (docs, readIds) -> {
+            if (isDestroyed()) return;
+            broadcasts.clear();
+            for (DocumentSnapshot d : docs) {
+                broadcasts.add(map(d, BROADCAST_PREFIX, readIds.contains(d.getId())));
+            }
+            submitWithOptOutFilter();
+        });
+    }
 
 
-                    // Apply opt-out preferences before showing to the user.
-                    submitWithOptOutFilter();
-                });
+    /**
+     * Shows one more page of older notifications from the local store.
+     */
+    private void loadOlder() {
+        if (!hasMore) return;
+        hasMore = false;
+        visibleLimit += FirestoreNotificationRepository.PAGE_SIZE;
+        renderFromStore(generation, null);
     }
 
 
     /**
-     * Maps a Firestore {@link QuerySnapshot} to a list of {@link NotificationItem}.
-     *
-     * @param snap query result containing notification documents
-     * @return list of mapped NotificationItem objects
+     * Reads the newest {@link #visibleLimit} rows from the store off the main thread,
+     * then shows them and runs {@code then} (unless the activity was stopped meanwhile).
      */
-    private List<NotificationItem> mapList(@NonNull QuerySnapshot snap) {
-        List<NotificationItem> out = new ArrayList<>();
-        for (DocumentSnapshot d : snap.getDocuments()) {
-            // Extract fields; missing values are normalized in NotificationItem.
-            String id = d.getId();
-            String evId = s(d.get("eventId"));
-            String evTi = s(d.get("eventTitle"));
-            String grp = s(d.get("targetGroup"));
-            String type = s(d.get("type"));
-            String msg = s(d.get("message"));
-            String org = s(d.get("organizerId"));
-            Timestamp ts = d.getTimestamp("sentAt");
-            long when = ts == null ? 0L : ts.toDate().getTime();
-
-
-            out.add(new NotificationItem(id, evId, grp, type, msg, when, evTi, org));
-        }
-        return out;
+    private void renderFromStore(int gen, @Nullable Runnable then) {
+        NotificationStore store = NotificationStore.get(this);
+        final int limit = visibleLimit;
+        final Set<String> muted = NotifyPrefs.mutedOrganizers(this);
+        AppExecutors.background().execute(() -> {
+            List<NotificationStore.Entry> rows = store.newest(deviceId, limit + 1, muted);
+            AppExecutors.main().execute(() -> {
+                if (gen != generation) return;
+                hasMore = rows.size() > limit;
+                latest.clear();
+                for (int i = 0; i < rows.size() && i < limit; i++) {
+                    NotificationStore.Entry e = rows.get(i);
+                    latest.add(new NotificationItem(e.id, e.eventId, e.targetGroup, e.type,
+                            e.message, e.sentAtMs, e.eventTitle, e.organizerId, e.read));
+                }
+                submitWithOptOutFilter();
+                if (then != null) then.run();
+            });
+        });
+    }
+
+
+    /**
+     * Maps one notification or broadcast document; {@code idPrefix} tags where it came from
+     * and {@code read} is the user's receipt state.
+     */
+    private NotificationItem map(@NonNull DocumentSnapshot d, @NonNull String idPrefix, boolean read) {
+        // Extract fields; missing values are normalized in NotificationItem.
+        String id = idPrefix + d.getId();
+        String evId = s(d.get("eventId"));
+        String evTi = s(d.get("eventTitle"));
+        String grp = s(d.get("targetGroup"));
+        String type = s(d.get("type"));
+        String msg = s(d.get("message"));
+        String org = s(d.get("organizerId"));
+        Timestamp ts = d.getTimestamp("sentAt");
+        long when = ts == null ? 0L : ts.toDate().getTime();
+
+
+        return new NotificationItem(id, evId, grp, type, msg, when, evTi, org, read);
     }
 
 
@@ -256,7 +320,7 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
                 Snackbar.make(recycler, "All notifications muted", Snackbar.LENGTH_LONG)
                         .setAction("Opt-in", v -> {
                             NotifyPrefs.setAllOptedOut(this, false);
-                            submitWithOptOutFilter();
+                            renderFromStore(generation, null);
                         })
                         .show();
             }
@@ -264,12 +328,26 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
         }
 
 
+        // Merge stored notifications and broadcasts, newest first based on sentAtMs.
+        List<NotificationItem> merged = new ArrayList<>(latest.size() + broadcasts.size());
+        merged.addAll(latest);
+        merged.addAll(broadcasts);
+        Collections.sort(merged, new Comparator<NotificationItem>() {
+            @Override
+            public int compare(NotificationItem a, NotificationItem b) {
+                return Long.compare(b.sentAtMs, a.sentAtMs);
+            }
+        });
+
+
+        // Snapshot once; each item is then a single hash lookup.
+        Set<String> muted = NotifyPrefs.mutedOrganizers(this);
         List<NotificationItem> filtered = new ArrayList<>();
-        for (NotificationItem n : latest) {
+        for (NotificationItem n : merged) {
             // Skip notifications from organizers that have been muted.
             if (n.organizerId != null
                     && !n.organizerId.isEmpty()
-                    && NotifyPrefs.isOrganizerOptedOut(this, n.organizerId)) {
+                    && muted.contains(n.organizerId)) {
                 continue;
             }
             filtered.add(n);
@@ -379,17 +457,20 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
 
         pm.setOnMenuItemClickListener(mi -> {
             int id = mi.getItemId();
-            if (id == R.id.action_optout_all) {
+            if (id == R.id.action_mark_all_read) {
+                markAllRead();
+                return true;
+            } else if (id == R.id.action_optout_all) {
                 // Mute all notifications.
                 NotifyPrefs.setAllOptedOut(this, true);
                 Toast.makeText(this, "Opted out of all notifications", Toast.LENGTH_SHORT).show();
-                submitWithOptOutFilter();
+                renderFromStore(generation, null);
                 return true;
             } else if (id == R.id.action_optin_all) {
                 // Unmute all notifications.
                 NotifyPrefs.setAllOptedOut(this, false);
                 Toast.makeText(this, "Opted in to all notifications", Toast.LENGTH_SHORT).show();
-                submitWithOptOutFilter();
+                renderFromStore(generation, null);
                 return true;
             } else if (id == R.id.action_optout_org
                     && item.organizerId != null
@@ -397,7 +478,7 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
                 // Mute notifications from this organizer only.
                 NotifyPrefs.setOrganizerOptedOut(this, item.organizerId, true);
                 Toast.makeText(this, "Opted out from this organizer", Toast.LENGTH_SHORT).show();
-                submitWithOptOutFilter();
+                renderFromStore(generation, null);
                 return true;
             } else if (id == R.id.action_optin_org
                     && item.organizerId != null
@@ -405,13 +486,13 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
                 // Unmute notifications from this organizer.
                 NotifyPrefs.setOrganizerOptedOut(this, item.organizerId, false);
                 Toast.makeText(this, "Opted in to this organizer", Toast.LENGTH_SHORT).show();
-                submitWithOptOutFilter();
+                renderFromStore(generation, null);
                 return true;
             } else if (id == R.id.action_reset_mute) {
                 // Clear all mute settings.
                 NotifyPrefs.resetAll(this);
                 Toast.makeText(this, "Mute settings reset", Toast.LENGTH_SHORT).show();
-                submitWithOptOutFilter();
+                renderFromStore(generation, null);
                 return true;
             }
             return false;
@@ -423,23 +504,77 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
 
 
     /**
-     * Marks the notification as read in Firestore and records an "actedAt" timestamp.
+     * Marks the notification as read locally and queues the Firestore receipt
+     * ("read" + "actedAt") on {@link ReceiptWriter}, which batches receipts
+     * from a short window into one write. For broadcasts the receipt is the
+     * device's entry under the broadcast.
      *
      * @param notifId id of the notification document to update
      */
     private void markNotificationRead(@NonNull String notifId) {
         if (notifId.isEmpty()) return;
+        Timestamp now = Timestamp.now();
 
 
-        Map<String, Object> up = new HashMap<>();
-        up.put("read", true);
-        up.put("actedAt", Timestamp.now());
+        // Broadcasts are shared; per-user state goes into a receipt instead.
+        if (notifId.startsWith(BROADCAST_PREFIX)) {
+            ReceiptWriter.get().markBroadcastRead(
+                    notifId.substring(BROADCAST_PREFIX.length()), deviceId, now);
+            markBroadcastsReadLocally(Collections.singleton(notifId));
+            submitWithOptOutFilter();
+            return;
+        }
 
 
-        FirebaseFirestore.getInstance()
-                .collection("notifications")
-                .document(notifId)
-                .set(up, SetOptions.merge());
+        // Local store first so the state sticks even before the write reaches the server.
+        NotificationStore store = NotificationStore.get(this);
+        final int gen = generation;
+        AppExecutors.background().execute(() -> {
+            store.markRead(notifId, now.toDate().getTime());
+            AppExecutors.main().execute(() -> renderFromStore(gen, null));
+        });
+        ReceiptWriter.get().markRead(notifId, now);
+    }
+
+    /** Replaces the loaded broadcasts in {@code ids} with read copies. */
+    private void markBroadcastsReadLocally(@NonNull Set<String> ids) {
+        for (int i = 0; i < broadcasts.size(); i++) {
+            NotificationItem b = broadcasts.get(i);
+            if (b.read || !ids.contains(b.id)) continue;
+            broadcasts.set(i, new NotificationItem(b.id, b.eventId, b.targetGroup, b.type,
+                    b.message, b.sentAtMs, b.eventTitle, b.organizerId, true));
+        }
+    }
+
+
+    /**
+     * Marks every unread stored notification and every unread loaded broadcast as read,
+     * sending receipts only for rows whose state changes, through {@link ReceiptWriter}
+     * in as few batches as possible.
+     */
+    private void markAllRead() {
+        Timestamp now = Timestamp.now();
+        Set<String> unreadBroadcasts = new HashSet<>();
+        for (NotificationItem b : broadcasts) {
+            if (!b.read) unreadBroadcasts.add(b.id);
+        }
+        NotificationStore store = NotificationStore.get(this);
+        final int gen = generation;
+        AppExecutors.background().execute(() -> {
+            List<String> ids = store.markAllRead(deviceId, now.toDate().getTime());
+            AppExecutors.main().execute(() -> {
+                ReceiptWriter writer = ReceiptWriter.get();
+                for (String id : unreadBroadcasts) {
+                    writer.markBroadcastRead(id.substring(BROADCAST_PREFIX.length()), deviceId, now);
+                }
+                writer.markAllRead(ids, now);
+                markBroadcastsReadLocally(unreadBroadcasts);
+                renderFromStore(gen, null);
+                if (!isDestroyed()) {
+                    Toast.makeText(this, "Marked all as read", Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
     }
 
 
@@ -6,6 +6,7 @@
  *
  * Responsibilities:
  * - Bind NotificationItem data (message, time, type-specific icon).
+ * - Show read state: unread rows get a bold title, read rows are dimmed.
  * - Show contextual actions for "selected" notifications
  *   (Sign Up / Decline buttons).
  * - Forward user interactions to a Listener implemented by the host Activity.
@@ -19,6 +20,7 @@
 
 package com.example.lottary.ui.notifications;
 
+import android.graphics.Typeface;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -74,6 +76,9 @@ public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdap
         void onOverflow(@NonNull View anchor, @NonNull NotificationItem item);
     }
 
+    /** Alpha of rows the user has already read. */
+    private static final float READ_ALPHA = 0.6f;
+
     private final List<NotificationItem> items = new ArrayList<>();
 
     private final Listener listener;
@@ -128,6 +133,9 @@ public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdap
 
         h.txtTime.setText(fmt.format(new Date(n.sentAtMs)));
 
+        h.txtTitle.setTypeface(null, n.read ? Typeface.NORMAL : Typeface.BOLD);
+        h.itemView.setAlpha(n.read ? READ_ALPHA : 1f);
+
         h.icon.setImageResource(
                 n.type.equals("selected")  ? R.drawable.ic_check :
                         n.type.equals("cancelled") ? R.drawable.ic_close :
@@ -4,11 +4,23 @@
  * Utility class for reading and writing notification preference flags.
  * Preferences are stored in SharedPreferences and control whether the
  * user wants to receive notifications globally or from specific organizers.
+ *
+ * Reads are served from an in-memory snapshot (an immutable set of muted
+ * organizer ids plus the global flag) that is rebuilt when the preferences
+ * change, so per-item checks in the inbox are plain hash lookups.
  */
 
 package com.example.lottary.ui.notifications;
 
 import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Static helper methods for managing notification opt-out preferences.
@@ -16,6 +28,59 @@ import android.content.Context;
 public class NotifyPrefs {
     private static final String P = "notify_prefs";
     private static final String K_ALL = "opt_out_all";
+    private static final String ORG_PREFIX = "org_";
+
+    /** Immutable snapshot of the muted organizer ids; null until first read. */
+    private static volatile Set<String> mutedOrgs;
+    private static volatile boolean allOptedOut;
+
+    /**
+     * Rebuilds the snapshot on any change. SharedPreferences only keeps a weak
+     * reference to listeners, so this one is held in a static field.
+     */
+    private static final SharedPreferences.OnSharedPreferenceChangeListener ON_CHANGE =
+            (sp, key) -> {
+                if (key == null || K_ALL.equals(key) || key.startsWith(ORG_PREFIX)) reload(sp);
+            };
+
+    private static SharedPreferences prefs(Context c) {
+        return c.getApplicationContext().getSharedPreferences(P, Context.MODE_PRIVATE);
+    }
+
+    /** Loads the snapshot on first use and starts tracking changes. */
+    private static void ensureLoaded(Context c) {
+        if (mutedOrgs != null) return;
+        synchronized (NotifyPrefs.class) {
+            if (mutedOrgs != null) return;
+            SharedPreferences sp = prefs(c);
+            sp.registerOnSharedPreferenceChangeListener(ON_CHANGE);
+            reload(sp);
+        }
+    }
+
+    private static synchronized void reload(SharedPreferences sp) {
+        Set<String> muted = new HashSet<>();
+        for (Map.Entry<String, ?> e : sp.getAll().entrySet()) {
+            if (e.getKey().startsWith(ORG_PREFIX) && Boolean.TRUE.equals(e.getValue())) {
+                muted.add(e.getKey().substring(ORG_PREFIX.length()));
+            }
+        }
+        allOptedOut = sp.getBoolean(K_ALL, false);
+        mutedOrgs = Collections.unmodifiableSet(muted);
+    }
+
+    /**
+     * Returns the ids of all muted organizers as an immutable snapshot.
+     * Safe to keep and query off the main thread; it does not change afterwards.
+     *
+     * @param c context used to access SharedPreferences on first use
+     * @return muted organizer ids (never null)
+     */
+    @NonNull
+    public static Set<String> mutedOrganizers(Context c) {
+        ensureLoaded(c);
+        return mutedOrgs;
+    }
 
     /**
      * Returns whether the user has opted out of all notifications.
@@ -24,7 +89,8 @@ public class NotifyPrefs {
      * @return true if all notifications are disabled; false otherwise
      */
     public static boolean isAllOptedOut(Context c) {
-        return c.getSharedPreferences(P, Context.MODE_PRIVATE).getBoolean(K_ALL, false);
+        ensureLoaded(c);
+        return allOptedOut;
     }
 
     /**
@@ -34,7 +100,9 @@ public class NotifyPrefs {
      * @param v true to disable all notifications; false to enable
      */
     public static void setAllOptedOut(Context c, boolean v) {
-        c.getSharedPreferences(P, Context.MODE_PRIVATE).edit().putBoolean(K_ALL, v).apply();
+        SharedPreferences sp = prefs(c);
+        sp.edit().putBoolean(K_ALL, v).apply();
+        reload(sp);
     }
 
     /**
@@ -45,7 +113,7 @@ public class NotifyPrefs {
      * @return true if notifications from this organizer are disabled; false otherwise
      */
     public static boolean isOrganizerOptedOut(Context c, String orgId) {
-        return c.getSharedPreferences(P, Context.MODE_PRIVATE).getBoolean("org_"+orgId, false);
+        return mutedOrganizers(c).contains(orgId);
     }
 
     /**
@@ -56,7 +124,9 @@ public class NotifyPrefs {
      * @param v     true to mute this organizer; false to unmute
      */
     public static void setOrganizerOptedOut(Context c, String orgId, boolean v) {
-        c.getSharedPreferences(P, Context.MODE_PRIVATE).edit().putBoolean("org_"+orgId, v).apply();
+        SharedPreferences sp = prefs(c);
+        sp.edit().putBoolean(ORG_PREFIX + orgId, v).apply();
+        reload(sp);
     }
 
     /**
@@ -65,7 +135,10 @@ public class NotifyPrefs {
      * @param c context used to access SharedPreferences
      */
     public static void resetAll(Context c) {
-        c.getSharedPreferences(P, Context.MODE_PRIVATE).edit().clear().apply();
+        SharedPreferences sp = prefs(c);
+        sp.edit().clear().apply();
+        // clear() does not notify listeners before API 30
+        reload(sp);
     }
 }
 
@@ -0,0 +1,96 @@
+package com.example.lottary.data;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local tests for {@link GeoHash}: encoding against published values and
+ * the guarantee that {@link GeoHash#queryBounds} covers the whole circle,
+ * including circles that straddle cell, equator and antimeridian edges.
+ */
+public class GeoHashTest {
+
+    @Test
+    public void encode_matchesKnownHashes() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", GeoHash.encode(42.605, -5.603, 5));
+        assertEquals("s0000", GeoHash.encode(0d, 0d, 5));
+    }
+
+    @Test
+    public void encode_longerPrecisionExtendsShorter() {
+        String full = GeoHash.encode(53.5461, -113.4938, GeoHash.STORED_PRECISION);
+        assertEquals(GeoHash.STORED_PRECISION, full.length());
+        for (int p = 1; p < GeoHash.STORED_PRECISION; p++) {
+            assertEquals(full.substring(0, p), GeoHash.encode(53.5461, -113.4938, p));
+        }
+    }
+
+    @Test
+    public void queryBounds_coverEveryPointOnTheCircle() {
+        assertCovers(53.5461, -113.4938, 5_000);
+        assertCovers(53.5461, -113.4938, 250);
+    }
+
+    @Test
+    public void queryBounds_coverNeighbourCellsAcrossEdges() {
+        // Equator / prime meridian: the circle touches four top-level cells
+        assertCovers(0.0001, 0.0001, 2_000);
+        // Antimeridian: the wrapped side must be covered as well
+        assertCovers(10d, 179.999, 3_000);
+    }
+
+    @Test
+    public void putGeohash_skipsMissingAndZeroLocations() {
+        java.util.Map<String, Object> none = new java.util.HashMap<>();
+        GeoHash.putGeohash(none);
+        assertFalse(none.containsKey("geohash"));
+
+        java.util.Map<String, Object> zero = new java.util.HashMap<>();
+        zero.put("latitude", 0d);
+        zero.put("longitude", 0d);
+        GeoHash.putGeohash(zero);
+        assertFalse(zero.containsKey("geohash"));
+
+        java.util.Map<String, Object> set = new java.util.HashMap<>();
+        set.put("latitude", 57.64911);
+        set.put("longitude", 10.40744);
+        GeoHash.putGeohash(set);
+        assertEquals("u4pruydqqv", set.get("geohash"));
+    }
+
+    @Test
+    public void distanceMeters_oneDegreeOfLatitude() {
+        assertEquals(111_195d, GeoHash.distanceMeters(0, 0, 1, 0), 50d);
+        assertEquals(0d, GeoHash.distanceMeters(53.5, -113.5, 53.5, -113.5), 1e-6);
+    }
+
+    /** Samples the circle (and its centre) and checks each stored hash falls in a range. */
+    private static void assertCovers(double lat, double lng, double radiusM) {
+        List<String[]> ranges = GeoHash.queryBounds(lat, lng, radiusM);
+        assertFalse(ranges.isEmpty());
+        double dLat = radiusM / 111_320d;
+        double dLng = dLat / Math.cos(Math.toRadians(lat));
+        for (int deg = 0; deg < 360; deg += 15) {
+            double a = Math.toRadians(deg);
+            double pLat = lat + dLat * 0.99 * Math.sin(a);
+            double pLng = lng + dLng * 0.99 * Math.cos(a);
+            if (pLng > 180d) pLng -= 360d;
+            String h = GeoHash.encode(pLat, pLng, GeoHash.STORED_PRECISION);
+            assertTrue("not covered: " + pLat + "," + pLng + " " + h, inAny(ranges, h));
+        }
+        assertTrue(inAny(ranges, GeoHash.encode(lat, lng, GeoHash.STORED_PRECISION)));
+    }
+
+    private static boolean inAny(List<String[]> ranges, String hash) {
+        for (String[] r : ranges) {
+            if (hash.compareTo(r[0]) >= 0 && hash.compareTo(r[1]) <= 0) return true;
+        }
+        return false;
+    }
+}
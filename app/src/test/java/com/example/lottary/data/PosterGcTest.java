@@ -0,0 +1,38 @@
+package com.example.lottary.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Local tests for blob-key parsing and the delete re-check in {@link PosterGc}. */
+public class PosterGcTest {
+
+    private static final String KEY =
+            "p1_0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Test
+    public void blobKey_stripsRenditionSuffixAndExtension() {
+        assertEquals(KEY, PosterGc.blobKey(KEY + ".webp"));
+        assertEquals(KEY, PosterGc.blobKey(KEY + "_thumb.webp"));
+        assertEquals(KEY, PosterGc.blobKey(KEY + "_medium.webp"));
+    }
+
+    @Test
+    public void blobKey_nullForOtherNames() {
+        assertNull(PosterGc.blobKey("evt123_1700000000000.webp"));
+        assertNull(PosterGc.blobKey("evt123_1700000000000_thumb.webp"));
+        assertNull(PosterGc.blobKey("poster.jpg"));
+    }
+
+    @Test
+    public void claimedSince_keepsFilesUsedAroundOrAfterTheRunStart() {
+        long start = 1_700_000_000_000L;
+        assertTrue(PosterGc.claimedSince(start + 1, start));
+        assertTrue(PosterGc.claimedSince(start - PosterGc.CLOCK_SLACK_MS, start));
+        assertFalse(PosterGc.claimedSince(start - PosterGc.CLOCK_SLACK_MS - 1, start));
+        assertFalse(PosterGc.claimedSince(0L, start));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.lottary.data;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Local tests for rendition selection in {@link PosterImages}. */
+public class PosterImagesTest {
+
+    private static final String FULL = "https://x/full.webp";
+    private static final String MEDIUM = "https://x/medium.webp";
+    private static final String THUMB = "https://x/thumb.webp";
+
+    private static Map<String, String> all() {
+        Map<String, String> m = new HashMap<>();
+        m.put("thumb", THUMB);
+        m.put("medium", MEDIUM);
+        m.put("full", FULL);
+        return m;
+    }
+
+    @Test
+    public void pickUrl_smallestCoveringRendition() {
+        assertEquals(THUMB, PosterImages.pickUrl(FULL, all(), 200));
+        assertEquals(THUMB, PosterImages.pickUrl(FULL, all(), PosterUploader.Rendition.THUMB.maxEdge));
+        assertEquals(MEDIUM, PosterImages.pickUrl(FULL, all(), 321));
+        assertEquals(FULL, PosterImages.pickUrl(FULL, all(), 1500));
+    }
+
+    @Test
+    public void cropTarget_needsShortEdgeToCoverSquare() {
+        // 86dp card on xxhdpi: the 320px thumb of a 16:9 poster is only 180px short
+        int card = 258;
+        assertEquals(MEDIUM, PosterImages.pickUrl(FULL, all(), PosterImages.cropTargetPx(card)));
+        assertTrue(PosterImages.cropTargetPx(card) * 9 / 16 >= card);
+        // Small cells still fit the thumb
+        assertEquals(THUMB, PosterImages.pickUrl(FULL, all(), PosterImages.cropTargetPx(170)));
+    }
+
+    @Test
+    public void pickUrl_largestStoredWhenNoneCovers() {
+        assertEquals(FULL, PosterImages.pickUrl(FULL, all(), 4000));
+        Map<String, String> thumbOnly = new HashMap<>();
+        thumbOnly.put("thumb", THUMB);
+        assertEquals(THUMB, PosterImages.pickUrl(FULL, thumbOnly, 4000));
+    }
+
+    @Test
+    public void pickUrl_skipsMissingRenditions() {
+        Map<String, String> m = all();
+        m.remove("medium");
+        assertEquals(FULL, PosterImages.pickUrl(FULL, m, 500));
+        m.put("medium", "");
+        assertEquals(FULL, PosterImages.pickUrl(FULL, m, 500));
+    }
+
+    @Test
+    public void pickUrl_fallsBackToPosterUrl() {
+        assertEquals(FULL, PosterImages.pickUrl(FULL, null, 200));
+        assertEquals(FULL, PosterImages.pickUrl(FULL, new HashMap<>(), 200));
+        assertEquals("", PosterImages.pickUrl(null, null, 200));
+    }
+
+    @Test
+    public void renditions_keepsOnlyNonEmptyStrings() {
+        Map<String, Object> raw = new HashMap<>();
+        raw.put("thumb", THUMB);
+        raw.put("medium", "");
+        raw.put("full", 42);
+        Map<String, String> out = PosterImages.renditions(raw);
+        assertEquals(1, out.size());
+        assertEquals(THUMB, out.get("thumb"));
+        assertTrue(PosterImages.renditions("not a map").isEmpty());
+        assertTrue(PosterImages.renditions(null).isEmpty());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.lottary.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Local tests for the pure helpers of {@link PosterUploader}. */
+public class PosterUploaderTest {
+
+    private static final String HEX =
+            "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Test
+    public void sampleSize_largestPowerOfTwoStillCoveringTarget() {
+        assertEquals(1, PosterUploader.sampleSize(1000, 1920));
+        assertEquals(1, PosterUploader.sampleSize(1920, 1920));
+        assertEquals(1, PosterUploader.sampleSize(3839, 1920));
+        assertEquals(2, PosterUploader.sampleSize(3840, 1920));
+        assertEquals(2, PosterUploader.sampleSize(4032, 1920));
+        assertEquals(4, PosterUploader.sampleSize(8000, 1920));
+    }
+
+    @Test
+    public void isSharedName_onlyContentAddressedFiles() {
+        assertTrue(PosterUploader.isSharedName("p1_" + HEX + ".webp"));
+        assertTrue(PosterUploader.isSharedName("p1_" + HEX + "_thumb.webp"));
+        assertTrue(PosterUploader.isSharedName("p12_" + HEX + "_medium.webp"));
+
+        assertFalse(PosterUploader.isSharedName("evt123_1700000000000.webp"));
+        assertFalse(PosterUploader.isSharedName("p1_" + HEX.substring(1) + ".webp"));
+        assertFalse(PosterUploader.isSharedName("p1_" + HEX.toUpperCase() + ".webp"));
+        assertFalse(PosterUploader.isSharedName("p1_" + HEX + "_large.webp"));
+        assertFalse(PosterUploader.isSharedName("p1_" + HEX + ".jpg"));
+    }
+}
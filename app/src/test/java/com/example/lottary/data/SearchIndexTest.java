@@ -0,0 +1,103 @@
+package com.example.lottary.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Local tests for {@link SearchIndex}: prefix matching, deltas and removal. */
+public class SearchIndexTest {
+
+    /** Minimal item: id plus searchable text. */
+    private static final class Item {
+        final String id;
+        final String text;
+        Item(String id, String text) { this.id = id; this.text = text; }
+    }
+
+    private SearchIndex<Item> index;
+
+    @Before
+    public void setUp() {
+        index = new SearchIndex<>(i -> i.id, i -> i.text);
+        index.update(Arrays.asList(
+                new Item("a", "Spring Concert"),
+                new Item("b", "Swimming lessons"),
+                new Item("c", "Concert in the Park")));
+    }
+
+    @Test
+    public void prefixMatchesWordStarts() {
+        assertEquals(Arrays.asList("a", "c"), index.searchIds("conc"));
+        assertEquals(Arrays.asList("a", "b"), index.searchIds("s"));
+        assertEquals(Collections.emptyList(), index.searchIds("oncert"));
+    }
+
+    @Test
+    public void matchingIsCaseInsensitiveAndAnded() {
+        assertEquals(Collections.singletonList("c"), index.searchIds("CONCERT park"));
+        assertEquals(Collections.emptyList(), index.searchIds("concert swim"));
+    }
+
+    @Test
+    public void blankQueryReturnsEverythingInSnapshotOrder() {
+        assertNull(index.matchSlots("  "));
+        assertEquals(Arrays.asList("a", "b", "c"), index.searchIds(""));
+    }
+
+    @Test
+    public void removeDropsItemAndItsPostings() {
+        index.remove("a");
+        assertEquals(2, index.size());
+        assertEquals(Collections.singletonList("c"), index.searchIds("concert"));
+        assertEquals(Collections.emptyList(), index.searchIds("spring"));
+
+        // The freed slot is reused without bringing the old text back
+        index.put(new Item("d", "Yoga"));
+        assertEquals(Collections.singletonList("d"), index.searchIds("yoga"));
+        assertEquals(Collections.emptyList(), index.searchIds("spring"));
+    }
+
+    @Test
+    public void updateAppliesSnapshotAsDelta() {
+        index.update(Arrays.asList(
+                new Item("c", "Jazz in the Park"),
+                new Item("a", "Spring Concert")));
+        assertEquals(2, index.size());
+        assertEquals(Collections.singletonList("a"), index.searchIds("concert"));
+        assertEquals(Collections.singletonList("c"), index.searchIds("jazz"));
+        assertEquals(Collections.emptyList(), index.searchIds("swim"));
+        // Results follow the new snapshot order
+        assertEquals(Arrays.asList("c", "a"), index.searchIds(""));
+    }
+
+    @Test
+    public void putRefreshesExistingItemInPlace() {
+        index.put(new Item("b", "Diving"));
+        assertEquals(Collections.singletonList("b"), index.searchIds("div"));
+        assertTrue(index.searchIds("swim").isEmpty());
+        assertEquals(Arrays.asList("a", "b", "c"), index.searchIds(""));
+    }
+
+    @Test
+    public void tokenizeSplitsOnNonLetters() {
+        assertArrayEquals(new String[]{"rock", "n", "roll", "2024"},
+                SearchIndex.tokenize("Rock'n'Roll 2024 - rock"));
+        assertEquals(0, SearchIndex.tokenize(null).length);
+    }
+
+    @Test
+    public void clearEmptiesIndex() {
+        index.clear();
+        assertEquals(0, index.size());
+        List<String> all = index.searchIds(null);
+        assertTrue(all.isEmpty());
+    }
+}
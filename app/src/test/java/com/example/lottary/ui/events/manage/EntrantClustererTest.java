@@ -0,0 +1,77 @@
+package com.example.lottary.ui.events.manage;
+
+import com.example.lottary.data.UserLocation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/** Local tests for the grid clustering and projection of {@link EntrantClusterer}. */
+public class EntrantClustererTest {
+
+    private final List<UserLocation> points = Arrays.asList(
+            new UserLocation("a", "A", 53.5461, -113.4938),
+            new UserLocation("b", "B", 53.5462, -113.4937),
+            new UserLocation("c", "C", 51.0447, -114.0719));
+
+    @Test
+    public void nearbyPointsClusterAtLowZoom() {
+        List<EntrantClusterer.Cluster> clusters = new EntrantClusterer(points).clustersAt(10);
+        assertEquals(2, clusters.size());
+        assertEquals(3, totalCount(clusters));
+        for (EntrantClusterer.Cluster c : clusters) {
+            if (c.count == 2) {
+                assertNull(c.single);
+                assertEquals(53.54615, c.latitude, 1e-3);
+            } else {
+                assertNotNull(c.single);
+                assertEquals("c", c.single.getUserId());
+                assertEquals("u:c", c.key);
+            }
+        }
+    }
+
+    @Test
+    public void everyPointIsSingleAtMaxZoom() {
+        EntrantClusterer clusterer = new EntrantClusterer(points);
+        List<EntrantClusterer.Cluster> clusters = clusterer.clustersAt(EntrantClusterer.MAX_CLUSTER_ZOOM + 3);
+        assertEquals(3, clusters.size());
+        for (EntrantClusterer.Cluster c : clusters) assertEquals(1, c.count);
+    }
+
+    @Test
+    public void everythingMergesAtZoomZero() {
+        List<EntrantClusterer.Cluster> clusters = new EntrantClusterer(points).clustersAt(0);
+        assertEquals(1, clusters.size());
+        assertEquals(3, clusters.get(0).count);
+    }
+
+    @Test
+    public void clustersAreCachedPerZoom() {
+        EntrantClusterer clusterer = new EntrantClusterer(points);
+        assertSame(clusterer.clustersAt(8), clusterer.clustersAt(8));
+    }
+
+    @Test
+    public void projectionRoundTrips() {
+        double[][] samples = {{0, 0}, {53.5461, -113.4938}, {-33.8688, 151.2093}, {85, 179.9}};
+        for (double[] s : samples) {
+            assertEquals(s[0], EntrantClusterer.worldYToLat(EntrantClusterer.latToWorldY(s[0])), 1e-9);
+            assertEquals(s[1], EntrantClusterer.worldXToLng(EntrantClusterer.lngToWorldX(s[1])), 1e-9);
+        }
+        assertEquals(128d, EntrantClusterer.lngToWorldX(0), 1e-9);
+        assertEquals(128d, EntrantClusterer.latToWorldY(0), 1e-9);
+    }
+
+    private static int totalCount(List<EntrantClusterer.Cluster> clusters) {
+        int n = 0;
+        for (EntrantClusterer.Cluster c : clusters) n += c.count;
+        return n;
+    }
+}